@@ -0,0 +1,15 @@
+#!/bin/bash
+# Copia la primaria con pg_basebackup la primera vez y arranca en modo standby (-R)
+set -e
+export PGDATA=/var/lib/postgresql/data
+if [ ! -s "$PGDATA/PG_VERSION" ]; then
+    mkdir -p "$PGDATA"
+    chown postgres:postgres "$PGDATA"
+    chmod 0700 "$PGDATA"
+    until gosu postgres pg_basebackup -h primaria -U replicador -D "$PGDATA" -X stream -R; do
+        echo "Esperando a la primaria..."
+        rm -rf "${PGDATA:?}"/*
+        sleep 2
+    done
+fi
+exec gosu postgres postgres -c hot_standby=on
@@ -0,0 +1,7 @@
+#!/bin/bash
+# Usuario de replicación y acceso desde la red de docker
+set -e
+psql -v ON_ERROR_STOP=1 -U "$POSTGRES_USER" -d "$POSTGRES_DB" <<SQL
+CREATE ROLE replicador WITH REPLICATION LOGIN PASSWORD 'replicador';
+SQL
+echo "host replication replicador all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,45 @@
+package com.studymate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración del registro de actividad de los usuarios (/usuarios/actividad)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "studymate.actividad")
+@Data
+public class ActividadConfig {
+
+    /**
+     * Entradas más recientes que se guardan en memoria por usuario para servir la primera página
+     */
+    private int tamanoAnillo = 64;
+
+    /**
+     * Tiempo durante el que se sirve la primera página desde el anillo; después se vuelve a cargar
+     * para incluir lo registrado en otros nodos
+     */
+    private long vigenciaAnilloMs = 60000;
+
+    /**
+     * Usuarios con su actividad reciente en memoria; se descartan los que llevan más tiempo sin usarla
+     */
+    private int maxUsuariosEnMemoria = 5000;
+
+    /**
+     * Actividades pendientes de escribir; si se llena, quien registra escribe la suya directamente
+     */
+    private int capacidadCola = 10000;
+
+    /**
+     * Filas por cada inserción por lotes
+     */
+    private int tamanoLote = 500;
+
+    /**
+     * Intervalo entre escrituras de las actividades pendientes
+     */
+    private long intervaloEscrituraMs = 1000;
+}
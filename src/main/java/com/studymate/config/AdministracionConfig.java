@@ -0,0 +1,32 @@
+package com.studymate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Usuarios administradores. Su token de acceso recibe la autoridad ADMIN, necesaria para
+ * los endpoints que exponen datos de todos los usuarios (GET /usuarios y /usuarios/exportar)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "studymate.administracion")
+@Data
+public class AdministracionConfig {
+
+    public static final String AUTORIDAD_ADMIN = "ADMIN";
+
+    /**
+     * Emails de los administradores; vacío, nadie puede listar ni exportar los usuarios
+     */
+    private Set<String> emails = new HashSet<>();
+
+    /**
+     * Indica si el email es de un administrador, sin distinguir mayúsculas
+     */
+    public boolean esAdministrador(String email) {
+        return email != null && emails.stream().anyMatch(e -> e.trim().equalsIgnoreCase(email));
+    }
+}
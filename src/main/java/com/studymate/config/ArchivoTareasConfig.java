@@ -0,0 +1,49 @@
+package com.studymate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Política de archivo de las tareas completadas
+ */
+@Configuration
+@ConfigurationProperties(prefix = "studymate.archivo")
+@Data
+public class ArchivoTareasConfig {
+
+    /**
+     * Si el archivador se ejecuta en segundo plano
+     */
+    private boolean habilitado = true;
+
+    /**
+     * Expresión cron de la ejecución periódica
+     */
+    private String cron = "0 15 3 * * *";
+
+    /**
+     * Días desde que se completó una tarea hasta que se mueve al archivo
+     */
+    private int diasHastaArchivar = 30;
+
+    /**
+     * Días desde que se completó una tarea archivada hasta que se elimina, 0 para conservarla siempre
+     */
+    private int diasConservacion = 0;
+
+    /**
+     * Tareas que se mueven en cada transacción
+     */
+    private int tamanoLote = 500;
+
+    /**
+     * Pausa entre lotes para no competir con el tráfico de la API
+     */
+    private long pausaEntreLotesMs = 200;
+
+    /**
+     * Lotes como máximo por ejecución; lo que quede se procesa en la siguiente
+     */
+    private int maxLotesPorEjecucion = 200;
+}
@@ -0,0 +1,46 @@
+package com.studymate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de la migración en segundo plano de las notas existentes al extracto
+ * y a la compresión LZ4 del contenido
+ */
+@Configuration
+@ConfigurationProperties(prefix = "studymate.compresion-notas")
+@Data
+public class CompresionNotasConfig {
+
+    /**
+     * Si la migración se ejecuta en segundo plano
+     */
+    private boolean habilitado = true;
+
+    /**
+     * Tamaño en bytes a partir del cual se reescribe el contenido para comprimirlo con LZ4.
+     * PostgreSQL solo comprime los valores de las filas que superan unos 2 KB.
+     */
+    private int umbralBytes = 2048;
+
+    /**
+     * Notas que se procesan en cada transacción
+     */
+    private int tamanoLote = 200;
+
+    /**
+     * Pausa entre lotes para no competir con el tráfico de la API
+     */
+    private long pausaEntreLotesMs = 200;
+
+    /**
+     * Intervalo entre ejecuciones mientras queden notas por migrar
+     */
+    private long intervaloMs = 60000;
+
+    /**
+     * Lotes como máximo por ejecución; lo que quede se procesa en la siguiente
+     */
+    private int maxLotesPorEjecucion = 100;
+}
@@ -0,0 +1,216 @@
+package com.studymate.config;
+
+import com.studymate.util.ContextoUsuario;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource de las transacciones de solo lectura. Reparte las conexiones entre las réplicas sanas
+ * y recurre a la primaria si no queda ninguna, si la réplica elegida falla o si el usuario
+ * de la petición ha escrito hace poco (lectura de sus propias escrituras).
+ */
+@Slf4j
+public class DataSourceReplicas extends AbstractDataSource implements DisposableBean {
+
+    private final DataSource primaria;
+    private final List<Replica> replicas;
+    private final ReplicasConfig config;
+    private final AtomicInteger siguiente = new AtomicInteger();
+    private final Map<Long, Long> ultimasEscrituras = new ConcurrentHashMap<>();
+
+    public DataSourceReplicas(DataSource primaria, List<HikariDataSource> replicas, ReplicasConfig config) {
+        this.primaria = primaria;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.config = config;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (escribioRecientemente(ContextoUsuario.actual())) {
+            return primaria.getConnection();
+        }
+        int inicio = Math.floorMod(siguiente.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((inicio + i) % replicas.size());
+            if (!replica.sana) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                log.warn("Réplica {} no disponible, se marca como caída: {}", replica.nombre(), e.getMessage());
+                replica.sana = false;
+            }
+        }
+        return primaria.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Las credenciales se configuran en cada pool");
+    }
+
+    /**
+     * Envuelve una conexión de la primaria para abrir la ventana de lectura propia del usuario
+     * solo cuando se confirma una transacción que ha escrito (o una escritura en autocommit).
+     * Las transacciones de lectura y las que se deshacen no la abren.
+     */
+    public Connection registrarEscriturasAlConfirmar(Connection conexion) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new EscriturasConexion(conexion, ContextoUsuario.actual()));
+    }
+
+    /**
+     * Anota que el usuario acaba de escribir en la primaria
+     */
+    public void registrarEscritura(Long usuarioId) {
+        if (usuarioId != null && config.getVentanaLecturaPropiaMs() > 0) {
+            ultimasEscrituras.put(usuarioId, System.currentTimeMillis());
+        }
+    }
+
+    boolean escribioRecientemente(Long usuarioId) {
+        if (usuarioId == null) {
+            return false;
+        }
+        Long escritura = ultimasEscrituras.get(usuarioId);
+        return escritura != null && System.currentTimeMillis() - escritura < config.getVentanaLecturaPropiaMs();
+    }
+
+    /**
+     * Comprueba periódicamente cada réplica: que responda y, si está configurado, que su retraso
+     * de replicación no supere el máximo. Las réplicas recuperadas vuelven a recibir lecturas.
+     */
+    @Scheduled(fixedDelayString = "${studymate.replicas.intervalo-salud-ms:10000}")
+    public void comprobarSalud() {
+        for (Replica replica : replicas) {
+            boolean sana = estaSana(replica);
+            if (sana != replica.sana) {
+                log.info("Réplica {} {}", replica.nombre(), sana ? "disponible" : "caída");
+            }
+            replica.sana = sana;
+        }
+        // Olvidar las escrituras que ya quedaron fuera de la ventana
+        long limite = System.currentTimeMillis() - config.getVentanaLecturaPropiaMs();
+        ultimasEscrituras.values().removeIf(escritura -> escritura < limite);
+    }
+
+    public long replicasSanas() {
+        return replicas.stream().filter(r -> r.sana).count();
+    }
+
+    private boolean estaSana(Replica replica) {
+        try (Connection conexion = replica.dataSource.getConnection()) {
+            if (!conexion.isValid(2)) {
+                return false;
+            }
+            if (config.getRetrasoMaximoMs() > 0) {
+                try (Statement sentencia = conexion.createStatement();
+                     ResultSet rs = sentencia.executeQuery("SELECT COALESCE(EXTRACT(EPOCH FROM "
+                             + "(now() - pg_last_xact_replay_timestamp())) * 1000, 0)")) {
+                    return rs.next() && rs.getDouble(1) <= config.getRetrasoMaximoMs();
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(r -> r.dataSource.close());
+    }
+
+    /**
+     * Anota si la conexión ejecuta sentencias que escriben y registra la escritura al confirmarlas
+     */
+    private class EscriturasConexion implements InvocationHandler {
+        private final Connection conexion;
+        private final Long usuarioId;
+        private boolean escrito;
+
+        EscriturasConexion(Connection conexion, Long usuarioId) {
+            this.conexion = conexion;
+            this.usuarioId = usuarioId;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                // Hibernate y JdbcTemplate preparan todas sus sentencias: el SQL dice si escribe
+                case "prepareStatement", "prepareCall" -> escrito |= !esLectura((String) args[0]);
+                // El SQL llega después; se supone que puede escribir
+                case "createStatement" -> escrito = true;
+                // En autocommit cada sentencia ya está confirmada al devolver la conexión
+                case "close" -> {
+                    if (escrito && !conexion.isClosed() && conexion.getAutoCommit()) {
+                        confirmar();
+                    }
+                }
+                default -> {
+                }
+            }
+            Object resultado;
+            try {
+                resultado = metodo.invoke(conexion, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            if (metodo.getName().equals("commit")) {
+                confirmar();
+            } else if (metodo.getName().equals("rollback") && args == null) {
+                escrito = false;
+            }
+            return resultado;
+        }
+
+        private void confirmar() {
+            if (escrito) {
+                registrarEscritura(usuarioId);
+                escrito = false;
+            }
+        }
+    }
+
+    private static boolean esLectura(String sql) {
+        return sql.stripLeading().regionMatches(true, 0, "select", 0, 6);
+    }
+
+    private static class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean sana = true;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        String nombre() {
+            return dataSource.getPoolName();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.studymate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de la escritura diferida de las notas: los autoguardados seguidos de una misma
+ * nota se acumulan en memoria y se escriben con un solo UPDATE
+ */
+@Configuration
+@ConfigurationProperties(prefix = "studymate.escritura-diferida-notas")
+@Data
+public class EscrituraDiferidaNotasConfig {
+
+    /**
+     * Si las modificaciones de notas se acumulan en memoria; si no, cada una es un UPDATE
+     */
+    private boolean habilitado = true;
+
+    /**
+     * Tiempo sin modificaciones de una nota tras el que se escribe
+     */
+    private long ventanaMs = 2000;
+
+    /**
+     * Tiempo máximo que una modificación puede esperar en memoria aunque la nota se siga editando
+     */
+    private long retrasoMaximoMs = 10000;
+
+    /**
+     * Notas pendientes como máximo en cada nodo; al superarlo se escriben las más antiguas
+     */
+    private int maxNotas = 1000;
+
+    /**
+     * Bytes de contenido pendiente como máximo en cada nodo (aproximado, dos por carácter)
+     */
+    private long maxBytes = 32L * 1024 * 1024;
+
+    /**
+     * Cada cuánto se buscan notas cuya ventana ha terminado
+     */
+    private long intervaloVolcadoMs = 500;
+}
@@ -0,0 +1,54 @@
+package com.studymate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Canal de eventos en tiempo real (GET /eventos)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "studymate.eventos")
+@Data
+public class EventosConfig {
+
+    /**
+     * Conexiones abiertas como máximo en este nodo
+     */
+    private int maxConexiones = 1000;
+
+    /**
+     * Conexiones abiertas como máximo por usuario en este nodo
+     */
+    private int maxConexionesPorUsuario = 5;
+
+    /**
+     * Eventos pendientes de envío por conexión; si se llena la conexión se cierra y el cliente reanuda
+     */
+    private int capacidadBuffer = 64;
+
+    /**
+     * Últimos eventos de cada usuario que se conservan para reanudar con Last-Event-ID
+     */
+    private int eventosRepeticion = 256;
+
+    /**
+     * Tiempo que se conservan los eventos para reanudar
+     */
+    private long retencionRepeticionMs = 300000;
+
+    /**
+     * Intervalo entre latidos para mantener abiertas las conexiones inactivas
+     */
+    private long heartbeatMs = 15000;
+
+    /**
+     * Duración máxima de una conexión; nunca supera la caducidad del token
+     */
+    private long timeoutMs = 900000;
+
+    /**
+     * Hilos que escriben los eventos en las conexiones
+     */
+    private int hilosEnvio = 2;
+}
@@ -1,6 +1,8 @@
 package com.studymate.config;
 
 import com.studymate.service.JwtService;
+import com.studymate.util.ContextoUsuario;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,21 +10,33 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 
+/**
+ * Autentica las peticiones a partir del token de acceso sin consultar la base de datos.
+ * Los tokens de acceso son de corta duración; el estado del usuario se revisa al refrescarlos.
+ */
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Set<String> PARAMETRO_TOKEN_RUTAS = Set.of("/eventos");
+
+    private static final List<SimpleGrantedAuthority> AUTORIDADES_USUARIO =
+            List.of(new SimpleGrantedAuthority("USER"));
+    private static final List<SimpleGrantedAuthority> AUTORIDADES_ADMINISTRADOR = List.of(
+            new SimpleGrantedAuthority("USER"), new SimpleGrantedAuthority(AdministracionConfig.AUTORIDAD_ADMIN));
+
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final AdministracionConfig administracionConfig;
 
     @Override
     protected void doFilterInternal(
@@ -30,29 +44,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
-        final String authHeader = request.getHeader("Authorization");
-        final String jwt;
+        final String jwt = extraerToken(request);
         final String userEmail;
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (jwt == null) {
             filterChain.doFilter(request, response);
             return;
         }
-        jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            if (jwtService.isTokenValid(jwt, userDetails.getUsername())) {
+        try {
+            userEmail = jwtService.extractUsername(jwt);
+            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null
+                    && jwtService.isTokenValid(jwt)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        userEmail,
                         null,
-                        userDetails.getAuthorities()
+                        administracionConfig.esAdministrador(userEmail) ? AUTORIDADES_ADMINISTRADOR : AUTORIDADES_USUARIO
                 );
                 authToken.setDetails(
                         new WebAuthenticationDetailsSource().buildDetails(request)
                 );
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                ContextoUsuario.establecer(jwtService.extractUsuarioId(jwt));
             }
+        } catch (JwtException | IllegalArgumentException e) {
+            // Token inválido o expirado: la petición continúa sin autenticar y el cliente debe refrescar
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ContextoUsuario.limpiar();
+        }
+    }
+
+    private String extraerToken(HttpServletRequest request) {
+        final String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        // EventSource no puede enviar cabeceras: en /eventos se admite el token como parámetro
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        if (PARAMETRO_TOKEN_RUTAS.contains(ruta)) {
+            String token = request.getParameter("token");
+            return token == null || token.isBlank() ? null : token;
         }
-        filterChain.doFilter(request, response);
+        return null;
     }
 }
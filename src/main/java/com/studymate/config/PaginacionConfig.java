@@ -0,0 +1,34 @@
+package com.studymate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de la paginación por cursor de los listados
+ */
+@Configuration
+@ConfigurationProperties(prefix = "studymate.paginacion")
+@Data
+public class PaginacionConfig {
+
+    /**
+     * Tamaño de página cuando el cliente no indica uno
+     */
+    private int tamanoPorDefecto = 50;
+
+    /**
+     * Tamaño máximo de página que se acepta
+     */
+    private int tamanoMaximo = 200;
+
+    /**
+     * Ajusta el tamaño pedido por el cliente a los límites configurados
+     */
+    public int resolverTamano(Integer tamano) {
+        if (tamano == null || tamano <= 0) {
+            return tamanoPorDefecto;
+        }
+        return Math.min(tamano, tamanoMaximo);
+    }
+}
@@ -0,0 +1,37 @@
+package com.studymate.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Programadores de las tareas @Scheduled. Las frecuentes y cortas (ticks de recordatorios, volcados de la
+ * escritura diferida, actividad, latidos) usan el programador por defecto (spring.task.scheduling.*).
+ * Los procesos por lotes que pueden durar minutos (archivo de tareas, compresión de notas) van al
+ * programador de lotes, para no dejar sin hilos a las demás mientras duermen entre lotes.
+ */
+@Configuration
+public class ProgramacionConfig {
+
+    public static final String PROGRAMADOR_LOTES = "programadorLotes";
+
+    /**
+     * Programador por defecto; al declarar otro, Spring Boot deja de crearlo
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * Un solo hilo: los lotes no se solapan entre sí ni compiten por la base de datos
+     */
+    @Bean(PROGRAMADOR_LOTES)
+    public ThreadPoolTaskScheduler programadorLotes() {
+        ThreadPoolTaskScheduler programador = new ThreadPoolTaskScheduler();
+        programador.setPoolSize(1);
+        programador.setThreadNamePrefix("lotes-");
+        return programador;
+    }
+}
@@ -0,0 +1,42 @@
+package com.studymate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Recordatorios de fecha límite de las tareas pendientes
+ */
+@Configuration
+@ConfigurationProperties(prefix = "studymate.recordatorios")
+@Data
+public class RecordatoriosConfig {
+
+    /**
+     * Si se programan y envían recordatorios
+     */
+    private boolean habilitado = true;
+
+    /**
+     * Antelaciones respecto a la fecha límite a las que se envía un recordatorio
+     */
+    private List<Duration> antelaciones = List.of(Duration.ofHours(24), Duration.ofHours(1));
+
+    /**
+     * Cuánto por delante se mantienen cargados en memoria los recordatorios
+     */
+    private Duration horizonte = Duration.ofHours(24);
+
+    /**
+     * Cada cuánto se carga el siguiente tramo del horizonte desde la base de datos
+     */
+    private long intervaloCargaMs = 600000;
+
+    /**
+     * Resolución de los recordatorios: duración de un tick de la rueda temporal
+     */
+    private long tickMs = 1000;
+}
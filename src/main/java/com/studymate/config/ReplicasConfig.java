@@ -0,0 +1,60 @@
+package com.studymate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración de las réplicas de lectura de la base de datos
+ */
+@Configuration
+@ConfigurationProperties(prefix = "studymate.replicas")
+@Data
+public class ReplicasConfig {
+
+    /**
+     * Enviar las transacciones de solo lectura a las réplicas
+     */
+    private boolean habilitado = false;
+
+    /**
+     * Réplicas disponibles; se reparten las lecturas entre las que estén sanas
+     */
+    private List<Replica> instancias = new ArrayList<>();
+
+    /**
+     * Tamaño máximo del pool de conexiones de cada réplica
+     */
+    private int tamanoPool = 10;
+
+    /**
+     * Espera máxima para obtener una conexión de una réplica antes de leer de la primaria
+     */
+    private long tiempoEsperaConexionMs = 2000;
+
+    /**
+     * Cada cuánto se comprueba la salud de las réplicas
+     */
+    private long intervaloSaludMs = 10000;
+
+    /**
+     * Retraso de replicación máximo tolerado (solo PostgreSQL); 0 para no comprobarlo
+     */
+    private long retrasoMaximoMs = 0;
+
+    /**
+     * Tras una escritura, las lecturas del mismo usuario van a la primaria durante este tiempo
+     * para que vea sus propios cambios aunque la réplica vaya con retraso; 0 para desactivarlo
+     */
+    private long ventanaLecturaPropiaMs = 5000;
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,74 @@
+package com.studymate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enrutamiento de conexiones entre la primaria y las réplicas de lectura.
+ * Las transacciones readOnly marcan la conexión como de solo lectura y el proxy perezoso
+ * la obtiene entonces de las réplicas; el resto (escrituras, migraciones) va a la primaria.
+ * Solo se activa con studymate.replicas.habilitado=true.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "studymate.replicas", name = "habilitado", havingValue = "true")
+public class ReplicasDataSourceConfig {
+
+    /**
+     * Pool de la primaria con la configuración estándar spring.datasource.*
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimaria(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primaria");
+        return dataSource;
+    }
+
+    @Bean
+    public DataSourceReplicas dataSourceReplicas(HikariDataSource dataSourcePrimaria, ReplicasConfig config) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < config.getInstancias().size(); i++) {
+            ReplicasConfig.Replica replica = config.getInstancias().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + (i + 1));
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setMaximumPoolSize(config.getTamanoPool());
+            dataSource.setReadOnly(true);
+            dataSource.setConnectionTimeout(config.getTiempoEsperaConexionMs());
+            // Una réplica caída no debe impedir el arranque: se queda fuera hasta que responda
+            dataSource.setInitializationFailTimeout(-1);
+            replicas.add(dataSource);
+        }
+        return new DataSourceReplicas(dataSourcePrimaria, replicas, config);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource dataSourcePrimaria, DataSourceReplicas dataSourceReplicas) {
+        // Las escrituras confirmadas en la primaria abren la ventana de lectura propia del usuario de la petición
+        DataSource primaria = new DelegatingDataSource(dataSourcePrimaria) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return dataSourceReplicas.registrarEscriturasAlConfirmar(super.getConnection());
+            }
+        };
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaria);
+        proxy.setReadOnlyDataSource(dataSourceReplicas);
+        return proxy;
+    }
+}
@@ -0,0 +1,30 @@
+package com.studymate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de la sincronización incremental (GET /sync)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "studymate.sync")
+@Data
+public class SincronizacionConfig {
+
+    /**
+     * Margen por detrás del reloj con el que se emite el cursor, para volver a enviar las
+     * escrituras que aún no habían confirmado al responder (el cliente las aplica dos veces sin efecto)
+     */
+    private long margenMs = 10000;
+
+    /**
+     * Días que se conservan los registros de eliminaciones. Un cursor más antiguo recibe una copia completa.
+     */
+    private int diasConservacionEliminaciones = 90;
+
+    /**
+     * Expresión cron de la purga de eliminaciones
+     */
+    private String cronPurga = "0 45 3 * * *";
+}
@@ -0,0 +1,20 @@
+package com.studymate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración del autocompletado de títulos de notas y nombres de materias
+ */
+@Configuration
+@ConfigurationProperties(prefix = "studymate.sugerencias")
+@Data
+public class SugerenciasConfig {
+
+    /**
+     * Tiempo durante el que se usa el índice de prefijos de un usuario; después se vuelve a cargar
+     * para incluir lo creado, renombrado o borrado en otros nodos
+     */
+    private long vigenciaIndiceMs = 60000;
+}
@@ -2,10 +2,12 @@ package com.studymate.controller;
 
 import com.studymate.dto.LoginRequestDTO;
 import com.studymate.dto.LoginResponseDTO;
+import com.studymate.dto.RefreshRequestDTO;
 import com.studymate.dto.UsuarioDTO;
 import com.studymate.dto.UsuarioResponseDTO;
 import com.studymate.model.Usuario;
 import com.studymate.service.JwtService;
+import com.studymate.service.TokenRefrescoService;
 import com.studymate.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -35,6 +37,7 @@ public class AuthController {
     private final UsuarioService usuarioService;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final TokenRefrescoService tokenRefrescoService;
     private final AuthenticationManager authenticationManager;
 
     /**
@@ -128,13 +131,16 @@ public class AuthController {
             System.out.println("Usuario creado: " + usuario.getId());
             
             System.out.println("Generando token JWT...");
-            // Generar token JWT
-            String token = jwtService.generateToken(usuario.getEmail());
+            // Generar token de acceso y refresh token
+            String token = jwtService.generateAccessToken(usuario.getId(), usuario.getEmail());
+            String refreshToken = tokenRefrescoService.emitir(usuario);
             System.out.println("Token generado correctamente");
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Usuario registrado exitosamente");
             response.put("token", token);
+            response.put("refreshToken", refreshToken);
+            response.put("expiresIn", jwtService.getExpirationMs() / 1000);
             response.put("usuario", Map.of(
                 "id", usuario.getId(),
                 "nombre", usuario.getNombre(),
@@ -185,12 +191,15 @@ public class AuthController {
 
             Usuario usuario = usuarioOpt.get();
             
-            // Generar token JWT
-            String token = jwtService.generateToken(usuario.getEmail());
+            // Generar token de acceso y refresh token
+            String token = jwtService.generateAccessToken(usuario.getId(), usuario.getEmail());
+            String refreshToken = tokenRefrescoService.emitir(usuario);
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Login exitoso");
             response.put("token", token);
+            response.put("refreshToken", refreshToken);
+            response.put("expiresIn", jwtService.getExpirationMs() / 1000);
             response.put("usuario", Map.of(
                 "id", usuario.getId(),
                 "nombre", usuario.getNombre(),
@@ -210,6 +219,26 @@ public class AuthController {
         }
     }
 
+    /**
+     * Renueva el token de acceso rotando el refresh token.
+     * Cada refresh token solo puede usarse una vez; reutilizarlo revoca la sesión completa.
+     * @param refreshRequest Refresh token vigente
+     * @return Nuevo token de acceso y nuevo refresh token
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Object>> refrescarToken(@Valid @RequestBody RefreshRequestDTO refreshRequest) {
+        TokenRefrescoService.Rotacion rotacion = tokenRefrescoService.rotar(refreshRequest.getRefreshToken());
+        Usuario usuario = rotacion.getUsuario();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Token renovado");
+        response.put("token", jwtService.generateAccessToken(usuario.getId(), usuario.getEmail()));
+        response.put("refreshToken", rotacion.getRefreshToken());
+        response.put("expiresIn", jwtService.getExpirationMs() / 1000);
+        response.put("status", "SUCCESS");
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Obtiene información del usuario autenticado
      */
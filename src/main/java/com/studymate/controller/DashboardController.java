@@ -0,0 +1,58 @@
+package com.studymate.controller;
+
+import com.studymate.dto.DashboardDTO;
+import com.studymate.model.Usuario;
+import com.studymate.service.DashboardService;
+import com.studymate.service.JwtService;
+import com.studymate.service.UsuarioService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/dashboard")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+    private final UsuarioService usuarioService;
+    private final JwtService jwtService;
+
+    private Long getUsuarioIdDesdeToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token no proporcionado");
+        }
+        String token = authHeader.substring(7);
+        Long usuarioId = jwtService.extractUsuarioId(token);
+        if (usuarioId != null) {
+            return usuarioId;
+        }
+        // Tokens emitidos antes de incluir el id del usuario
+        String email = jwtService.extractUsername(token);
+        Usuario usuario = usuarioService.buscarPorEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuario no encontrado"));
+        return usuario.getId();
+    }
+
+    /**
+     * Datos del panel principal en una sola petición
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> obtenerDashboard(HttpServletRequest request) {
+        Long usuarioId = getUsuarioIdDesdeToken(request);
+        DashboardDTO dashboard = dashboardService.obtenerDashboard(usuarioId);
+        Map<String, Object> response = new HashMap<>();
+        response.put("dashboard", dashboard);
+        response.put("message", "Panel obtenido correctamente");
+        response.put("status", "SUCCESS");
+        return ResponseEntity.ok(response);
+    }
+}
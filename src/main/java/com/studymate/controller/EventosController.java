@@ -0,0 +1,82 @@
+package com.studymate.controller;
+
+import com.studymate.config.EventosConfig;
+import com.studymate.model.Usuario;
+import com.studymate.service.EventosService;
+import com.studymate.service.JwtService;
+import com.studymate.service.UsuarioService;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.Date;
+
+@RestController
+@RequestMapping("/eventos")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class EventosController {
+
+    private final EventosService eventosService;
+    private final EventosConfig eventosConfig;
+    private final UsuarioService usuarioService;
+    private final JwtService jwtService;
+
+    // EventSource no permite cabeceras: el token puede llegar también como parámetro ?token=
+    private String getToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        String token = request.getParameter("token");
+        if (token == null || token.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token no proporcionado");
+        }
+        return token;
+    }
+
+    private Long getUsuarioIdDesdeToken(String token) {
+        Long usuarioId = jwtService.extractUsuarioId(token);
+        if (usuarioId != null) {
+            return usuarioId;
+        }
+        // Tokens emitidos antes de incluir el id del usuario
+        String email = jwtService.extractUsername(token);
+        Usuario usuario = usuarioService.buscarPorEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuario no encontrado"));
+        return usuario.getId();
+    }
+
+    /**
+     * Canal de eventos del usuario (text/event-stream): cambios en tareas, notas y materias y
+     * recordatorios. Al reconectar, el navegador envía Last-Event-ID y se repite lo perdido.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> conectar(HttpServletRequest request,
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEvento) {
+        try {
+            String token = getToken(request);
+            Long usuarioId = getUsuarioIdDesdeToken(token);
+            // La conexión no sobrevive al token con el que se abrió: al caducar, el cliente reconecta con uno nuevo
+            Date expiracion = jwtService.extractClaim(token, Claims::getExpiration);
+            long timeout = Math.min(eventosConfig.getTimeoutMs(),
+                    Math.max(expiracion.getTime() - System.currentTimeMillis(), 1));
+            SseEmitter emitter = eventosService.conectar(usuarioId, ultimoEvento, timeout);
+            // Que los proxies no acumulen los eventos
+            return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+        } catch (ResponseStatusException e) {
+            ResponseEntity.BodyBuilder respuesta = ResponseEntity.status(e.getStatusCode());
+            if (e.getStatusCode().value() == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                respuesta.header(HttpHeaders.RETRY_AFTER, "30");
+            }
+            return respuesta.build();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.studymate.controller;
+
+import com.studymate.model.Usuario;
+import com.studymate.service.EscrituraDiferidaNotasService;
+import com.studymate.service.ExportacionService;
+import com.studymate.service.JwtService;
+import com.studymate.service.UsuarioService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+@RestController
+@RequestMapping("/export")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ExportacionController {
+
+    private final ExportacionService exportacionService;
+    private final EscrituraDiferidaNotasService escrituraDiferida;
+    private final UsuarioService usuarioService;
+    private final JwtService jwtService;
+
+    private Long getUsuarioIdDesdeToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token no proporcionado");
+        }
+        String token = authHeader.substring(7);
+        Long usuarioId = jwtService.extractUsuarioId(token);
+        if (usuarioId != null) {
+            return usuarioId;
+        }
+        // Tokens emitidos antes de incluir el id del usuario
+        String email = jwtService.extractUsername(token);
+        Usuario usuario = usuarioService.buscarPorEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuario no encontrado"));
+        return usuario.getId();
+    }
+
+    /**
+     * Descarga un ZIP con las notas del usuario en Markdown, por materia, y sus tareas en JSON.
+     * Se genera mientras se envía, sin construirlo en memoria.
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportar(HttpServletRequest request) {
+        // El token se lee en el hilo de la petición; el cuerpo se escribe fuera de él
+        Long usuarioId = getUsuarioIdDesdeToken(request);
+        escrituraDiferida.volcarUsuario(usuarioId);
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportarDatos(usuarioId, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("studymate-export.zip").build().toString())
+                .body(cuerpo);
+    }
+}
@@ -1,15 +1,21 @@
 package com.studymate.controller;
 
 import com.studymate.dto.MateriaDTO;
+import com.studymate.dto.PaginaDTO;
 import com.studymate.model.Materia;
+import com.studymate.model.ModoEliminacionMateria;
 import com.studymate.model.Usuario;
 import com.studymate.service.JwtService;
 import com.studymate.service.MateriaService;
+import com.studymate.service.SugerenciasService;
 import com.studymate.service.UsuarioService;
+import com.studymate.service.VersionColeccionesService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.web.server.ResponseStatusException;
@@ -24,9 +30,14 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class MateriaController {
 
+    // El cliente puede guardar el listado pero debe revalidarlo con If-None-Match en cada uso
+    private static final CacheControl REVALIDAR = CacheControl.noCache().cachePrivate();
+
     private final MateriaService materiaService;
     private final UsuarioService usuarioService;
     private final JwtService jwtService;
+    private final VersionColeccionesService versionColecciones;
+    private final SugerenciasService sugerenciasService;
 
     private Long getUsuarioIdDesdeToken(HttpServletRequest request) {
         String authHeader = request.getHeader("Authorization");
@@ -34,20 +45,61 @@ public class MateriaController {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token no proporcionado");
         }
         String token = authHeader.substring(7);
+        Long usuarioId = jwtService.extractUsuarioId(token);
+        if (usuarioId != null) {
+            return usuarioId;
+        }
+        // Tokens emitidos antes de incluir el id del usuario
         String email = jwtService.extractUsername(token);
         Usuario usuario = usuarioService.buscarPorEmail(email)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuario no encontrado"));
         return usuario.getId();
     }
 
+    /**
+     * Lista las materias del usuario paginadas por cursor.
+     * Con completo=true devuelve la lista entera como antes de la paginación.
+     */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> obtenerMaterias(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> obtenerMaterias(HttpServletRequest request,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano,
+            @RequestParam(defaultValue = "false") boolean completo,
+            WebRequest webRequest) {
         Long usuarioId = getUsuarioIdDesdeToken(request);
-        List<Materia> materias = materiaService.buscarPorUsuario(usuarioId);
+        String etag = versionColecciones.etag(usuarioId);
+        if (webRequest.checkNotModified(etag)) {
+            // Nada ha cambiado desde la versión del cliente: 304 sin consultar ni serializar
+            // (checkNotModified ya ha escrito la cabecera ETag)
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDAR).build();
+        }
         Map<String, Object> response = new HashMap<>();
-        response.put("materias", materias);
+        if (completo) {
+            List<Materia> materias = materiaService.buscarPorUsuario(usuarioId);
+            response.put("materias", materias);
+        } else {
+            PaginaDTO<Materia> pagina = materiaService.buscarPaginaPorUsuario(usuarioId, cursor, tamano);
+            response.put("materias", pagina.getItems());
+            response.put("siguienteCursor", pagina.getSiguienteCursor());
+            response.put("hayMas", pagina.isHayMas());
+        }
         response.put("message", "Materias obtenidas correctamente");
         response.put("status", "SUCCESS");
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDAR).body(response);
+    }
+
+    /**
+     * Autocompletado de nombres de materias por prefijo
+     */
+    @GetMapping("/sugerencias")
+    public ResponseEntity<Map<String, Object>> sugerirMaterias(HttpServletRequest request,
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(required = false) Integer limite) {
+        Long usuarioId = getUsuarioIdDesdeToken(request);
+        Map<String, Object> response = new HashMap<>();
+        response.put("sugerencias", sugerenciasService.sugerirMaterias(usuarioId, prefix, limite));
+        response.put("message", "Sugerencias obtenidas correctamente");
+        response.put("status", "SUCCESS");
         return ResponseEntity.ok(response);
     }
 
@@ -98,11 +150,15 @@ public class MateriaController {
         }
     }
 
+    /**
+     * Elimina una materia. Con modo=DESVINCULAR sus tareas y notas se conservan como generales.
+     */
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> eliminarMateria(HttpServletRequest request, @PathVariable Long id) {
+    public ResponseEntity<?> eliminarMateria(HttpServletRequest request, @PathVariable Long id,
+            @RequestParam(defaultValue = "BORRAR") ModoEliminacionMateria modo) {
         try {
             Long usuarioId = getUsuarioIdDesdeToken(request);
-            materiaService.eliminarMateria(id, usuarioId);
+            materiaService.eliminarMateria(id, usuarioId, modo);
             return ResponseEntity.ok(Map.of(
                     "message", "Materia eliminada exitosamente",
                     "status", "SUCCESS"));
@@ -1,16 +1,29 @@
 package com.studymate.controller;
 
-import com.studymate.model.Materia;
+import com.studymate.dto.NotaBusquedaDTO;
+import com.studymate.dto.NotaDeltaDTO;
+import com.studymate.dto.NotaDetalleDTO;
+import com.studymate.dto.PaginaDTO;
+import com.studymate.dto.ResultadoLoteDTO;
+import com.studymate.dto.NotaResumenDTO;
+import com.studymate.exception.ConflictoVersionException;
 import com.studymate.model.Nota;
 import com.studymate.model.Usuario;
+import com.studymate.service.EscrituraDiferidaNotasService;
 import com.studymate.service.JwtService;
-import com.studymate.service.MateriaService;
 import com.studymate.service.NotaService;
+import com.studymate.service.SugerenciasService;
 import com.studymate.service.UsuarioService;
+import com.studymate.service.VersionColeccionesService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.web.server.ResponseStatusException;
@@ -25,10 +38,15 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class NotaController {
 
+    // El cliente puede guardar el listado pero debe revalidarlo con If-None-Match en cada uso
+    private static final CacheControl REVALIDAR = CacheControl.noCache().cachePrivate();
+
     private final NotaService notaService;
     private final UsuarioService usuarioService;
-    private final MateriaService materiaService;
     private final JwtService jwtService;
+    private final VersionColeccionesService versionColecciones;
+    private final SugerenciasService sugerenciasService;
+    private final EscrituraDiferidaNotasService escrituraDiferida;
 
     private Long getUsuarioIdDesdeToken(HttpServletRequest request) {
         String authHeader = request.getHeader("Authorization");
@@ -36,22 +54,50 @@ public class NotaController {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token no proporcionado");
         }
         String token = authHeader.substring(7);
+        Long usuarioId = jwtService.extractUsuarioId(token);
+        if (usuarioId != null) {
+            return usuarioId;
+        }
+        // Tokens emitidos antes de incluir el id del usuario
         String email = jwtService.extractUsername(token);
         Usuario usuario = usuarioService.buscarPorEmail(email)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuario no encontrado"));
         return usuario.getId();
     }
 
+    /**
+     * Lista las notas del usuario paginadas por cursor.
+     * Con completo=true devuelve la lista entera como antes de la paginación.
+     */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> obtenerNotas(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> obtenerNotas(HttpServletRequest request,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano,
+            @RequestParam(defaultValue = "false") boolean completo,
+            WebRequest webRequest) {
         try {
             Long usuarioId = getUsuarioIdDesdeToken(request);
-            List<Nota> notas = notaService.buscarPorUsuario(usuarioId);
+            // Lo pendiente en memoria se escribe antes: cambia la versión de la colección y el listado
+            escrituraDiferida.volcarUsuario(usuarioId);
+            String etag = versionColecciones.etag(usuarioId);
+            if (webRequest.checkNotModified(etag)) {
+                // Nada ha cambiado desde la versión del cliente: 304 sin consultar ni serializar
+                // (checkNotModified ya ha escrito la cabecera ETag)
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDAR).build();
+            }
             Map<String, Object> response = new HashMap<>();
-            response.put("notas", notas);
+            if (completo) {
+                List<NotaResumenDTO> notas = notaService.buscarPorUsuario(usuarioId);
+                response.put("notas", notas);
+            } else {
+                PaginaDTO<NotaResumenDTO> pagina = notaService.buscarPaginaPorUsuario(usuarioId, cursor, tamano);
+                response.put("notas", pagina.getItems());
+                response.put("siguienteCursor", pagina.getSiguienteCursor());
+                response.put("hayMas", pagina.isHayMas());
+            }
             response.put("message", "Notas obtenidas correctamente");
             response.put("status", "SUCCESS");
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDAR).body(response);
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Error al obtener notas: " + e.getMessage());
@@ -64,14 +110,7 @@ public class NotaController {
     public ResponseEntity<Map<String, Object>> crearNota(HttpServletRequest request, @Valid @RequestBody Nota nota) {
         try {
             Long usuarioId = getUsuarioIdDesdeToken(request);
-            if (nota.getMateria() != null && nota.getMateria().getId() != null) {
-                Materia materia = materiaService.buscarPorId(nota.getMateria().getId())
-                        .orElseThrow(() -> new RuntimeException("Materia no encontrada"));
-                if (!materia.getUsuario().getId().equals(usuarioId)) {
-                    throw new RuntimeException("La materia no pertenece al usuario");
-                }
-                nota.setMateria(materia);
-            }
+            // El servicio comprueba que la materia pertenece al usuario
             Nota creada = notaService.crearNota(nota, usuarioId);
             Map<String, Object> response = new HashMap<>();
             response.put("nota", creada);
@@ -86,15 +125,83 @@ public class NotaController {
         }
     }
 
+    /**
+     * Crea varias notas en una sola transacción con un resultado por nota
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> crearNotas(HttpServletRequest request, @RequestBody List<Nota> notas) {
+        try {
+            Long usuarioId = getUsuarioIdDesdeToken(request);
+            List<ResultadoLoteDTO> resultados = notaService.crearNotas(notas, usuarioId);
+            long errores = resultados.stream().filter(r -> ResultadoLoteDTO.ERROR.equals(r.getEstado())).count();
+            Map<String, Object> response = new HashMap<>();
+            response.put("resultados", resultados);
+            response.put("creadas", resultados.size() - errores);
+            response.put("errores", errores);
+            response.put("message", "Lote de notas procesado");
+            response.put("status", errores == 0 ? "SUCCESS" : "PARTIAL");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Error al crear notas: " + e.getMessage());
+            response.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Autocompletado de títulos de notas por prefijo
+     */
+    @GetMapping("/sugerencias")
+    public ResponseEntity<Map<String, Object>> sugerirNotas(HttpServletRequest request,
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(required = false) Integer limite) {
+        Long usuarioId = getUsuarioIdDesdeToken(request);
+        Map<String, Object> response = new HashMap<>();
+        response.put("sugerencias", sugerenciasService.sugerirNotas(usuarioId, prefix, limite));
+        response.put("message", "Sugerencias obtenidas correctamente");
+        response.put("status", "SUCCESS");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Búsqueda de texto completo en título y contenido, ordenada por relevancia
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<Map<String, Object>> buscarNotas(HttpServletRequest request,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(required = false) Integer tamano) {
+        try {
+            Long usuarioId = getUsuarioIdDesdeToken(request);
+            escrituraDiferida.volcarUsuario(usuarioId);
+            PaginaDTO<NotaBusquedaDTO> resultados = notaService.buscarTexto(usuarioId, q, pagina, tamano);
+            Map<String, Object> response = new HashMap<>();
+            response.put("notas", resultados.getItems());
+            response.put("siguientePagina", resultados.isHayMas() ? pagina + 1 : null);
+            response.put("hayMas", resultados.isHayMas());
+            response.put("message", "Búsqueda realizada correctamente");
+            response.put("status", "SUCCESS");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Error al buscar notas: " + e.getMessage());
+            response.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> obtenerNota(HttpServletRequest request, @PathVariable Long id) {
         try {
             Long usuarioId = getUsuarioIdDesdeToken(request);
-            Nota nota = notaService.buscarPorId(id).orElse(null);
-            if (nota == null || !nota.getUsuario().getId().equals(usuarioId)) {
+            escrituraDiferida.volcarNota(id);
+            NotaDetalleDTO nota = notaService.buscarDetalle(id, usuarioId).orElse(null);
+            if (nota == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Nota no encontrada"));
             }
-            return ResponseEntity.ok(nota);
+            // La versión como ETag: el cliente la envía en If-Match o como base de PATCH
+            return ResponseEntity.ok().eTag(String.valueOf(nota.getVersion())).body(nota);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
                     "message", "Error al obtener nota: " + e.getMessage(),
@@ -129,6 +236,100 @@ public class NotaController {
         }
     }
 
+    /**
+     * Modifica parte de una nota con JSON Merge Patch (titulo, contenido, materiaId). Con If-Match
+     * solo se aplica si la nota sigue en esa versión; si no, 409 con la versión actual.
+     */
+    @PatchMapping(value = "/{id}", consumes = "application/merge-patch+json")
+    public ResponseEntity<?> modificarNota(HttpServletRequest request, @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Map<String, Object> cambios) {
+        Long usuarioId = null;
+        try {
+            usuarioId = getUsuarioIdDesdeToken(request);
+            Nota nota = notaService.aplicarMergePatch(id, usuarioId, cambios, versionDe(ifMatch));
+            return notaGuardada(nota);
+        } catch (ConflictoVersionException e) {
+            return conflicto(e.getVersionActual());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return conflicto(versionActual(id, usuarioId));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of(
+                    "message", e.getReason(),
+                    "status", "ERROR"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "message", "Error al modificar nota: " + e.getMessage(),
+                    "status", "ERROR"));
+        }
+    }
+
+    /**
+     * Autoguardado del contenido: aplica operaciones de texto sobre la versión que tiene el cliente,
+     * sin enviar el contenido completo. Si la nota ha cambiado desde esa versión, 409 con la actual.
+     */
+    @PatchMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> modificarContenido(HttpServletRequest request, @PathVariable Long id,
+            @RequestBody NotaDeltaDTO delta) {
+        Long usuarioId = null;
+        try {
+            usuarioId = getUsuarioIdDesdeToken(request);
+            Nota nota = notaService.aplicarDelta(id, usuarioId, delta);
+            return notaGuardada(nota);
+        } catch (ConflictoVersionException e) {
+            return conflicto(e.getVersionActual());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return conflicto(versionActual(id, usuarioId));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of(
+                    "message", e.getReason(),
+                    "status", "ERROR"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "message", "Error al modificar nota: " + e.getMessage(),
+                    "status", "ERROR"));
+        }
+    }
+
+    // Respuesta de PATCH: sin el contenido, que el cliente ya tiene
+    private ResponseEntity<?> notaGuardada(Nota nota) {
+        return ResponseEntity.ok().eTag(String.valueOf(nota.getVersion())).body(Map.of(
+                "message", "Nota modificada exitosamente",
+                "status", "SUCCESS",
+                "id", nota.getId(),
+                "version", nota.getVersion(),
+                "fechaModificacion", nota.getFechaModificacion()));
+    }
+
+    private ResponseEntity<?> conflicto(Long versionActual) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "La nota ha cambiado desde la versión indicada");
+        response.put("status", "CONFLICT");
+        response.put("version", versionActual);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    // Versión tras perder la carrera con otra escritura; null si la nota ya no existe
+    private Long versionActual(Long id, Long usuarioId) {
+        return notaService.buscarDetalle(id, usuarioId).map(NotaDetalleDTO::getVersion).orElse(null);
+    }
+
+    // Versión de la cabecera If-Match ("5", W/"5" o *); null si no se indica
+    private Long versionDe(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String valor = ifMatch.trim();
+        if (valor.startsWith("W/")) {
+            valor = valor.substring(2);
+        }
+        try {
+            return Long.parseLong(valor.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match debe contener la versión de la nota");
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> eliminarNota(HttpServletRequest request, @PathVariable Long id) {
         try {
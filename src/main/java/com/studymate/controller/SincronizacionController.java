@@ -0,0 +1,75 @@
+package com.studymate.controller;
+
+import com.studymate.dto.SincronizacionDTO;
+import com.studymate.model.Usuario;
+import com.studymate.service.EscrituraDiferidaNotasService;
+import com.studymate.service.JwtService;
+import com.studymate.service.SincronizacionService;
+import com.studymate.service.UsuarioService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/sync")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class SincronizacionController {
+
+    private final SincronizacionService sincronizacionService;
+    private final EscrituraDiferidaNotasService escrituraDiferida;
+    private final UsuarioService usuarioService;
+    private final JwtService jwtService;
+
+    private Long getUsuarioIdDesdeToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token no proporcionado");
+        }
+        String token = authHeader.substring(7);
+        Long usuarioId = jwtService.extractUsuarioId(token);
+        if (usuarioId != null) {
+            return usuarioId;
+        }
+        // Tokens emitidos antes de incluir el id del usuario
+        String email = jwtService.extractUsername(token);
+        Usuario usuario = usuarioService.buscarPorEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuario no encontrado"));
+        return usuario.getId();
+    }
+
+    /**
+     * Cambios en tareas, notas y materias desde el cursor de la sincronización anterior.
+     * Sin cursor (o con uno demasiado antiguo) devuelve una copia completa con completo=true.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> sincronizar(HttpServletRequest request,
+            @RequestParam(required = false) String since) {
+        try {
+            Long usuarioId = getUsuarioIdDesdeToken(request);
+            escrituraDiferida.volcarUsuario(usuarioId);
+            SincronizacionDTO cambios = sincronizacionService.obtenerCambios(usuarioId, since);
+            Map<String, Object> response = new HashMap<>();
+            response.put("tareas", cambios.getTareas());
+            response.put("notas", cambios.getNotas());
+            response.put("materias", cambios.getMaterias());
+            response.put("eliminadas", cambios.getEliminadas());
+            response.put("cursor", cambios.getCursor());
+            response.put("completo", cambios.isCompleto());
+            response.put("message", "Cambios obtenidos correctamente");
+            response.put("status", "SUCCESS");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Error al sincronizar: " + e.getMessage());
+            response.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package com.studymate.controller;
 
-import com.studymate.model.Materia;
+import com.studymate.dto.CompletarTareasDTO;
+import com.studymate.dto.PaginaDTO;
+import com.studymate.dto.ResultadoLoteDTO;
+import com.studymate.dto.TareaArchivadaDTO;
+import com.studymate.dto.TareaResumenDTO;
 import com.studymate.model.Tarea;
 import com.studymate.model.Usuario;
 import com.studymate.service.JwtService;
-import com.studymate.service.MateriaService;
 import com.studymate.service.TareaService;
 import com.studymate.service.UsuarioService;
+import com.studymate.service.VersionColeccionesService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.web.server.ResponseStatusException;
@@ -25,10 +31,13 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class TareaController {
 
+    // El cliente puede guardar el listado pero debe revalidarlo con If-None-Match en cada uso
+    private static final CacheControl REVALIDAR = CacheControl.noCache().cachePrivate();
+
     private final TareaService tareaService;
     private final UsuarioService usuarioService;
-    private final MateriaService materiaService;
     private final JwtService jwtService;
+    private final VersionColeccionesService versionColecciones;
 
     private Long getUsuarioIdDesdeToken(HttpServletRequest request) {
         String authHeader = request.getHeader("Authorization");
@@ -36,22 +45,48 @@ public class TareaController {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token no proporcionado");
         }
         String token = authHeader.substring(7);
+        Long usuarioId = jwtService.extractUsuarioId(token);
+        if (usuarioId != null) {
+            return usuarioId;
+        }
+        // Tokens emitidos antes de incluir el id del usuario
         String email = jwtService.extractUsername(token);
         Usuario usuario = usuarioService.buscarPorEmail(email)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuario no encontrado"));
         return usuario.getId();
     }
 
+    /**
+     * Lista las tareas del usuario paginadas por cursor.
+     * Con completo=true devuelve la lista entera como antes de la paginación.
+     */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> obtenerTareas(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> obtenerTareas(HttpServletRequest request,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano,
+            @RequestParam(defaultValue = "false") boolean completo,
+            WebRequest webRequest) {
         try {
             Long usuarioId = getUsuarioIdDesdeToken(request);
-            List<Tarea> tareas = tareaService.buscarPorUsuario(usuarioId);
+            String etag = versionColecciones.etag(usuarioId);
+            if (webRequest.checkNotModified(etag)) {
+                // Nada ha cambiado desde la versión del cliente: 304 sin consultar ni serializar
+                // (checkNotModified ya ha escrito la cabecera ETag)
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDAR).build();
+            }
             Map<String, Object> response = new HashMap<>();
-            response.put("tareas", tareas);
+            if (completo) {
+                List<TareaResumenDTO> tareas = tareaService.buscarPorUsuario(usuarioId);
+                response.put("tareas", tareas);
+            } else {
+                PaginaDTO<TareaResumenDTO> pagina = tareaService.buscarPaginaPorUsuario(usuarioId, cursor, tamano);
+                response.put("tareas", pagina.getItems());
+                response.put("siguienteCursor", pagina.getSiguienteCursor());
+                response.put("hayMas", pagina.isHayMas());
+            }
             response.put("message", "Tareas obtenidas correctamente");
             response.put("status", "SUCCESS");
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDAR).body(response);
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Error al obtener tareas: " + e.getMessage());
@@ -72,16 +107,7 @@ public class TareaController {
             System.out.println("Fecha límite: " + tarea.getFechaLimite());
             System.out.println("Prioridad: " + tarea.getPrioridad());
 
-            // Si viene materia con id, validar pertenencia
-            if (tarea.getMateria() != null && tarea.getMateria().getId() != null) {
-                Materia materia = materiaService.buscarPorId(tarea.getMateria().getId())
-                        .orElseThrow(() -> new RuntimeException("Materia no encontrada"));
-                if (!materia.getUsuario().getId().equals(usuarioId)) {
-                    throw new RuntimeException("La materia no pertenece al usuario");
-                }
-                tarea.setMateria(materia);
-            }
-
+            // El servicio comprueba que la materia pertenece al usuario
             Tarea creada = tareaService.crearTarea(tarea, usuarioId);
             Map<String, Object> response = new HashMap<>();
             response.put("tarea", creada);
@@ -98,6 +124,80 @@ public class TareaController {
         }
     }
 
+    /**
+     * Crea varias tareas en una sola transacción con un resultado por tarea
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> crearTareas(HttpServletRequest request, @RequestBody List<Tarea> tareas) {
+        try {
+            Long usuarioId = getUsuarioIdDesdeToken(request);
+            List<ResultadoLoteDTO> resultados = tareaService.crearTareas(tareas, usuarioId);
+            long errores = resultados.stream().filter(r -> ResultadoLoteDTO.ERROR.equals(r.getEstado())).count();
+            Map<String, Object> response = new HashMap<>();
+            response.put("resultados", resultados);
+            response.put("creadas", resultados.size() - errores);
+            response.put("errores", errores);
+            response.put("message", "Lote de tareas procesado");
+            response.put("status", errores == 0 ? "SUCCESS" : "PARTIAL");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Error al crear tareas: " + e.getMessage());
+            response.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Marca como completadas varias tareas con una sola sentencia UPDATE
+     */
+    @PatchMapping("/completar")
+    public ResponseEntity<Map<String, Object>> completarTareas(HttpServletRequest request,
+            @Valid @RequestBody CompletarTareasDTO completarDTO) {
+        try {
+            Long usuarioId = getUsuarioIdDesdeToken(request);
+            List<ResultadoLoteDTO> resultados = tareaService.completarTareas(completarDTO.getIds(), usuarioId);
+            long errores = resultados.stream().filter(r -> ResultadoLoteDTO.ERROR.equals(r.getEstado())).count();
+            Map<String, Object> response = new HashMap<>();
+            response.put("resultados", resultados);
+            response.put("completadas", resultados.size() - errores);
+            response.put("errores", errores);
+            response.put("message", "Tareas marcadas como completadas");
+            response.put("status", errores == 0 ? "SUCCESS" : "PARTIAL");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Error al completar tareas: " + e.getMessage());
+            response.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Lista las tareas archivadas del usuario paginadas por cursor
+     */
+    @GetMapping("/archivo")
+    public ResponseEntity<Map<String, Object>> obtenerTareasArchivadas(HttpServletRequest request,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano) {
+        try {
+            Long usuarioId = getUsuarioIdDesdeToken(request);
+            PaginaDTO<TareaArchivadaDTO> pagina = tareaService.buscarArchivadas(usuarioId, cursor, tamano);
+            Map<String, Object> response = new HashMap<>();
+            response.put("tareas", pagina.getItems());
+            response.put("siguienteCursor", pagina.getSiguienteCursor());
+            response.put("hayMas", pagina.isHayMas());
+            response.put("message", "Tareas archivadas obtenidas correctamente");
+            response.put("status", "SUCCESS");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Error al obtener tareas archivadas: " + e.getMessage());
+            response.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> obtenerTarea(HttpServletRequest request, @PathVariable Long id) {
         try {
@@ -1,19 +1,28 @@
 package com.studymate.controller;
 
+import com.studymate.dto.ActividadDTO;
+import com.studymate.dto.PaginaDTO;
 import com.studymate.dto.UsuarioDTO;
+import com.studymate.model.FormatoExportacion;
 import com.studymate.model.Usuario;
+import com.studymate.service.ActividadService;
+import com.studymate.service.JwtService;
 import com.studymate.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 
 @RestController
 @RequestMapping("/usuarios")
@@ -22,10 +31,25 @@ import java.util.concurrent.atomic.AtomicLong;
 public class UsuarioController {
 
     private final UsuarioService usuarioService;
-    
-    // Almacenamiento en memoria para actividades
-    private static final Map<Long, Map<String, Object>> actividadesEnMemoria = new ConcurrentHashMap<>();
-    private static final AtomicLong actividadIdCounter = new AtomicLong(1);
+    private final ActividadService actividadService;
+    private final JwtService jwtService;
+
+    private Long getUsuarioIdDesdeToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token no proporcionado");
+        }
+        String token = authHeader.substring(7);
+        Long usuarioId = jwtService.extractUsuarioId(token);
+        if (usuarioId != null) {
+            return usuarioId;
+        }
+        // Tokens emitidos antes de incluir el id del usuario
+        String email = jwtService.extractUsername(token);
+        Usuario usuario = usuarioService.buscarPorEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuario no encontrado"));
+        return usuario.getId();
+    }
 
     @PostMapping("/test")
     public ResponseEntity<Map<String, Object>> testEndpoint(@RequestBody Map<String, Object> request) {
@@ -96,59 +120,81 @@ public class UsuarioController {
         }
     }
 
+    /**
+     * Lista los usuarios activos paginados por cursor (solo administradores). Para obtenerlos todos, /usuarios/exportar.
+     */
     @GetMapping
-    public ResponseEntity<List<Usuario>> listarUsuarios() {
-        List<Usuario> usuarios = usuarioService.listarUsuariosActivos();
-        return ResponseEntity.ok(usuarios);
+    public ResponseEntity<Map<String, Object>> listarUsuarios(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano) {
+        try {
+            PaginaDTO<Usuario> pagina = usuarioService.listarUsuariosActivos(cursor, tamano);
+            Map<String, Object> response = new HashMap<>();
+            response.put("usuarios", pagina.getItems());
+            response.put("siguienteCursor", pagina.getSiguienteCursor());
+            response.put("hayMas", pagina.isHayMas());
+            response.put("message", "Usuarios obtenidos correctamente");
+            response.put("status", "SUCCESS");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Error al obtener usuarios: " + e.getMessage());
+            response.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Exporta todos los usuarios activos en NDJSON (por defecto) o CSV. La respuesta se escribe
+     * a medida que se leen de la base de datos, sin cargarlos todos en memoria.
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarUsuarios(
+            @RequestParam(defaultValue = "NDJSON") FormatoExportacion formato) {
+        boolean csv = formato == FormatoExportacion.CSV;
+        // Se ejecuta fuera del hilo de la petición; la transacción la abre el servicio
+        StreamingResponseBody cuerpo = salida -> usuarioService.exportarUsuariosActivos(formato, salida);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "usuarios.csv" : "usuarios.ndjson").build().toString())
+                .body(cuerpo);
     }
 
     /**
-     * Obtiene la actividad reciente del usuario
+     * Obtiene la actividad del usuario paginada por cursor, de la más reciente a la más antigua
      */
     @GetMapping("/actividad")
-    public ResponseEntity<Map<String, Object>> obtenerActividad() {
-        Map<String, Object> response = new HashMap<>();
-        // Convertir a lista y ordenar por fecha descendente (más reciente primero)
-        List<Map<String, Object>> actividadesOrdenadas = actividadesEnMemoria.values()
-            .stream()
-            .sorted((a1, a2) -> {
-                String fecha1 = (String) a1.get("fecha");
-                String fecha2 = (String) a2.get("fecha");
-                return fecha2.compareTo(fecha1); // Orden descendente
-            })
-            .collect(java.util.stream.Collectors.toList());
-        
-        response.put("actividades", actividadesOrdenadas);
-        response.put("message", "Actividad obtenida correctamente");
-        response.put("status", "SUCCESS");
-        return ResponseEntity.ok(response);
+    public ResponseEntity<Map<String, Object>> obtenerActividad(HttpServletRequest httpRequest,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer tamano) {
+        try {
+            Long usuarioId = getUsuarioIdDesdeToken(httpRequest);
+            PaginaDTO<ActividadDTO> pagina = actividadService.listar(usuarioId, cursor, tamano);
+            Map<String, Object> response = new HashMap<>();
+            response.put("actividades", pagina.getItems());
+            response.put("siguienteCursor", pagina.getSiguienteCursor());
+            response.put("hayMas", pagina.isHayMas());
+            response.put("message", "Actividad obtenida correctamente");
+            response.put("status", "SUCCESS");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Error al obtener actividad: " + e.getMessage());
+            response.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(response);
+        }
     }
-    
+
     /**
      * Agregar una nueva actividad
      */
     @PostMapping("/actividad")
-    public ResponseEntity<Map<String, Object>> agregarActividad(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> agregarActividad(HttpServletRequest httpRequest,
+            @RequestBody Map<String, Object> request) {
         try {
-            String tipo = (String) request.get("tipo");
-            String descripcion = (String) request.get("descripcion");
-            
-            if (tipo == null || descripcion == null) {
-                Map<String, Object> error = new HashMap<>();
-                error.put("error", "Tipo y descripción son obligatorios");
-                return ResponseEntity.badRequest().body(error);
-            }
-            
-            // Crear actividad en memoria
-            Long id = actividadIdCounter.getAndIncrement();
-            Map<String, Object> actividad = new HashMap<>();
-            actividad.put("id", id);
-            actividad.put("tipo", tipo);
-            actividad.put("descripcion", descripcion);
-            actividad.put("fecha", java.time.LocalDateTime.now().toString());
-            
-            actividadesEnMemoria.put(id, actividad);
-            
+            Long usuarioId = getUsuarioIdDesdeToken(httpRequest);
+            ActividadDTO actividad = actividadService.registrar(usuarioId,
+                    (String) request.get("tipo"), (String) request.get("descripcion"));
+
             Map<String, Object> response = new HashMap<>();
             response.put("actividad", actividad);
             response.put("message", "Actividad agregada exitosamente");
@@ -162,4 +208,4 @@ public class UsuarioController {
             return ResponseEntity.badRequest().body(response);
         }
     }
-}
\ No newline at end of file
+}
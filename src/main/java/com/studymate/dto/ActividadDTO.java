@@ -0,0 +1,21 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada del registro de actividad tal como se devuelve al usuario
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActividadDTO {
+
+    private Long id;
+    private String tipo;
+    private String descripcion;
+    private LocalDateTime fecha;
+}
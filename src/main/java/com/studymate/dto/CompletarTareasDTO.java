@@ -0,0 +1,16 @@
+package com.studymate.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Ids de las tareas a marcar como completadas en bloque
+ */
+@Data
+public class CompletarTareasDTO {
+
+    @NotEmpty(message = "Debe indicar al menos una tarea")
+    private List<Long> ids;
+}
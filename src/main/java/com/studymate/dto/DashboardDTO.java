@@ -0,0 +1,23 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Datos del panel principal: conteos por materia, totales, próximas entregas y tareas urgentes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardDTO {
+    private List<ResumenMateriaDTO> materias;
+    private long tareasPendientes;
+    private long tareasCompletadas;
+    private long tareasVencidas;
+    private long notas;
+    private List<TareaResumenDTO> proximasEntregas;
+    private List<TareaResumenDTO> urgentes;
+}
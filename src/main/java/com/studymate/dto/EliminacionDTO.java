@@ -0,0 +1,20 @@
+package com.studymate.dto;
+
+import com.studymate.model.TipoEntidad;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad eliminada que el cliente debe borrar de su copia local
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EliminacionDTO {
+    private TipoEntidad tipo;
+    private Long id;
+    private LocalDateTime fechaEliminacion;
+}
@@ -0,0 +1,21 @@
+package com.studymate.dto;
+
+import com.studymate.model.OperacionCambio;
+import com.studymate.model.TipoEntidad;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cambio en una tarea, nota o materia enviado por /eventos. La versión es la de las colecciones
+ * del usuario tras el cambio, la misma del ETag de los listados.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoCambioDTO {
+    private TipoEntidad tipo;
+    private Long id;
+    private OperacionCambio operacion;
+    private long version;
+}
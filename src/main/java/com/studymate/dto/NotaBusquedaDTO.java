@@ -0,0 +1,25 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resultado de la búsqueda de texto completo: la nota, su relevancia
+ * y un fragmento del contenido con las coincidencias marcadas con &lt;mark&gt;.
+ * El fragmento es HTML: el contenido va escapado y &lt;mark&gt; es la única etiqueta
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotaBusquedaDTO {
+    private Long id;
+    private String titulo;
+    private String fragmento;
+    private Long materiaId;
+    private String materiaNombre;
+    private Double rango;
+    private LocalDateTime fechaModificacion;
+}
@@ -0,0 +1,19 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Cambios en el contenido de una nota respecto a la versión que tiene el cliente.
+ * Las operaciones se aplican en orden, cada una sobre el resultado de la anterior.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotaDeltaDTO {
+    private Long version;
+    private List<OperacionTextoDTO> operaciones;
+}
@@ -0,0 +1,24 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Nota completa con su contenido, usada solo al consultar una nota concreta
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotaDetalleDTO {
+    private Long id;
+    private String titulo;
+    private String contenido;
+    private Long materiaId;
+    private String materiaNombre;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaModificacion;
+    private Long version;
+}
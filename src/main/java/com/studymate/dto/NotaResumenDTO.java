@@ -0,0 +1,24 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista ligera de una nota para los listados: solo un extracto del contenido
+ * y los datos de la materia, sin cargar la entidad ni sus relaciones
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotaResumenDTO {
+    private Long id;
+    private String titulo;
+    private String extracto;
+    private Long materiaId;
+    private String materiaNombre;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaModificacion;
+}
@@ -0,0 +1,19 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Operación sobre el contenido de una nota: en la posición indicada se eliminan
+ * los caracteres pedidos y se inserta el texto
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperacionTextoDTO {
+    // En unidades UTF-16, como los índices de las cadenas de JavaScript
+    private int posicion;
+    private int eliminar;
+    private String insertar;
+}
@@ -0,0 +1,33 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados con el cursor para pedir la siguiente
+ */
+@Data
+@AllArgsConstructor
+public class PaginaDTO<T> {
+
+    private List<T> items;
+    private String siguienteCursor;
+    private boolean hayMas;
+
+    /**
+     * Construye la página a partir de una consulta que pidió tamano + 1 filas
+     * 
+     * @param filas     Filas obtenidas (como máximo tamano + 1)
+     * @param tamano    Tamaño de página solicitado
+     * @param cursorDe  Función que calcula el cursor de una fila
+     */
+    public static <T> PaginaDTO<T> desdeFilas(List<T> filas, int tamano, Function<T, String> cursorDe) {
+        boolean hayMas = filas.size() > tamano;
+        List<T> items = hayMas ? filas.subList(0, tamano) : filas;
+        String siguienteCursor = hayMas ? cursorDe.apply(items.get(items.size() - 1)) : null;
+        return new PaginaDTO<>(items, siguienteCursor, hayMas);
+    }
+}
@@ -0,0 +1,20 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fecha límite de una tarea pendiente, lo necesario para programar sus recordatorios
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlazoTareaDTO {
+    private Long tareaId;
+    private Long usuarioId;
+    private String titulo;
+    private LocalDateTime fechaLimite;
+}
@@ -0,0 +1,21 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aviso de que una tarea pendiente vence dentro de la antelación indicada
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordatorioDTO {
+    private Long tareaId;
+    private Long usuarioId;
+    private String titulo;
+    private LocalDateTime fechaLimite;
+    private long antelacionSegundos;
+}
@@ -0,0 +1,11 @@
+package com.studymate.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class RefreshRequestDTO {
+
+    @NotBlank(message = "El refresh token es obligatorio")
+    private String refreshToken;
+}
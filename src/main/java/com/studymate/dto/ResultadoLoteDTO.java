@@ -0,0 +1,31 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de un elemento dentro de una operación por lotes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoLoteDTO {
+
+    public static final String OK = "OK";
+    public static final String ERROR = "ERROR";
+
+    // Posición del elemento en la petición
+    private int indice;
+    private Long id;
+    private String estado;
+    private String mensaje;
+
+    public static ResultadoLoteDTO ok(int indice, Long id) {
+        return new ResultadoLoteDTO(indice, id, OK, null);
+    }
+
+    public static ResultadoLoteDTO error(int indice, Long id, String mensaje) {
+        return new ResultadoLoteDTO(indice, id, ERROR, mensaje);
+    }
+}
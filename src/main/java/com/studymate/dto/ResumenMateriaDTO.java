@@ -0,0 +1,22 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Conteos de tareas y notas de una materia para el panel principal.
+ * La fila con materiaId null agrupa las tareas y notas generales.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenMateriaDTO {
+    private Long materiaId;
+    private String nombre;
+    private String color;
+    private long tareasPendientes;
+    private long tareasCompletadas;
+    private long tareasVencidas;
+    private long notas;
+}
@@ -0,0 +1,24 @@
+package com.studymate.dto;
+
+import com.studymate.model.Materia;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Cambios de las colecciones de un usuario desde un cursor de sincronización.
+ * Con completo=true el cliente debe sustituir su copia local por el contenido recibido.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SincronizacionDTO {
+    private List<TareaResumenDTO> tareas;
+    private List<NotaDetalleDTO> notas;
+    private List<Materia> materias;
+    private List<EliminacionDTO> eliminadas;
+    private String cursor;
+    private boolean completo;
+}
@@ -0,0 +1,16 @@
+package com.studymate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sugerencia de autocompletado: id y título de una nota o materia
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SugerenciaDTO {
+    private Long id;
+    private String titulo;
+}
@@ -0,0 +1,27 @@
+package com.studymate.dto;
+
+import com.studymate.model.Prioridad;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tarea archivada tal como se devuelve en GET /tareas/archivo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TareaArchivadaDTO {
+    private Long id;
+    private String titulo;
+    private String descripcion;
+    private LocalDateTime fechaLimite;
+    private Prioridad prioridad;
+    private Long materiaId;
+    private String materiaNombre;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaCompletada;
+    private LocalDateTime fechaArchivado;
+}
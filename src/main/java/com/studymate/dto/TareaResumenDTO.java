@@ -0,0 +1,26 @@
+package com.studymate.dto;
+
+import com.studymate.model.Prioridad;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista ligera de una tarea para los listados, sin cargar la entidad ni sus relaciones
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TareaResumenDTO {
+    private Long id;
+    private String titulo;
+    private String descripcion;
+    private LocalDateTime fechaLimite;
+    private Boolean completada;
+    private Prioridad prioridad;
+    private Long materiaId;
+    private String materiaNombre;
+    private LocalDateTime fechaCreacion;
+}
@@ -0,0 +1,18 @@
+package com.studymate.exception;
+
+/**
+ * La entidad ha cambiado desde la versión en la que se basa la modificación del cliente
+ */
+public class ConflictoVersionException extends RuntimeException {
+
+    private final Long versionActual;
+
+    public ConflictoVersionException(Long versionActual) {
+        super("La nota ha cambiado desde la versión indicada");
+        this.versionActual = versionActual;
+    }
+
+    public Long getVersionActual() {
+        return versionActual;
+    }
+}
@@ -0,0 +1,40 @@
+package com.studymate.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada del registro de actividad de un usuario. Solo se insertan: las escribe
+ * ActividadService por lotes, con el id ya asignado al registrarlas
+ */
+@Entity
+@Table(name = "actividades", indexes = {
+        @Index(name = "idx_actividades_usuario_fecha", columnList = "usuario_id, fecha DESC, id DESC")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Actividad {
+
+    // Misma secuencia en bloques de 50 que reserva ActividadService
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "actividades_seq")
+    @SequenceGenerator(name = "actividades_seq", sequenceName = "actividades_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "tipo", nullable = false, length = 50)
+    private String tipo;
+
+    @Column(name = "descripcion", nullable = false, length = 500)
+    private String descripcion;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+}
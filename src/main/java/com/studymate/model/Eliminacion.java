@@ -0,0 +1,40 @@
+package com.studymate.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro de una tarea, nota o materia eliminada, para que GET /sync pueda
+ * comunicar los borrados a los clientes que sincronizan de forma incremental
+ */
+@Entity
+@Table(name = "eliminaciones", indexes = {
+        @Index(name = "idx_eliminaciones_usuario_fecha", columnList = "usuario_id, fecha_eliminacion, id"),
+        @Index(name = "idx_eliminaciones_fecha", columnList = "fecha_eliminacion")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Eliminacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "tipo", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TipoEntidad tipo;
+
+    @Column(name = "entidad_id", nullable = false)
+    private Long entidadId;
+
+    @Column(name = "fecha_eliminacion", nullable = false)
+    private LocalDateTime fechaEliminacion;
+}
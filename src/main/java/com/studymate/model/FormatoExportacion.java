@@ -0,0 +1,11 @@
+package com.studymate.model;
+
+/**
+ * Formatos de las exportaciones en streaming
+ */
+public enum FormatoExportacion {
+    /** Un objeto JSON por línea */
+    NDJSON,
+    /** Valores separados por comas con cabecera */
+    CSV
+}
@@ -3,18 +3,28 @@ package com.studymate.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "materias")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "materias", indexes = {
+        @Index(name = "idx_materias_usuario_fecha_creacion", columnList = "usuario_id, fecha_creacion, id"),
+        @Index(name = "idx_materias_usuario_fecha_modificacion", columnList = "usuario_id, fecha_modificacion, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_materias_usuario_nombre", columnNames = { "usuario_id", "nombre" })
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -56,20 +66,34 @@ public class Materia {
     @JsonIgnore
     private Usuario usuario;
 
-    // Relaciones con Notas y Tareas de esta materia
-    @OneToMany(mappedBy = "materia", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    // Relaciones con Notas y Tareas de esta materia. Sin cascada: MateriaService las elimina o
+    // desvincula por lotes sin cargarlas. Fuera de equals/hashCode/toString para no inicializarlas.
+    @OneToMany(mappedBy = "materia", fetch = FetchType.LAZY)
     @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Nota> notas = new HashSet<>();
 
-    @OneToMany(mappedBy = "materia", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @OneToMany(mappedBy = "materia", fetch = FetchType.LAZY)
     @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Tarea> tareas = new HashSet<>();
 
-    @Column(name = "fecha_creacion")
+    @Column(name = "fecha_creacion", nullable = false)
     private LocalDateTime fechaCreacion;
 
+    @Column(name = "fecha_modificacion")
+    private LocalDateTime fechaModificacion;
+
     @PrePersist
     protected void onCreate() {
         fechaCreacion = LocalDateTime.now();
+        fechaModificacion = fechaCreacion;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        fechaModificacion = LocalDateTime.now();
     }
 }
\ No newline at end of file
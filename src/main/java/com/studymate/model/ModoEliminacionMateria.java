@@ -0,0 +1,11 @@
+package com.studymate.model;
+
+/**
+ * Qué hacer con las tareas y notas de una materia al eliminarla
+ */
+public enum ModoEliminacionMateria {
+    /** Se eliminan junto con la materia */
+    BORRAR,
+    /** Se conservan sin materia, como generales */
+    DESVINCULAR
+}
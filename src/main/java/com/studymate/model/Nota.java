@@ -1,32 +1,58 @@
 package com.studymate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notas")
+// Solo las columnas modificadas: cambiar el título no vuelve a escribir (ni comprimir) el contenido
+@DynamicUpdate
+@NamedEntityGraph(name = "Nota.materia", attributeNodes = @NamedAttributeNode("materia"))
+@Table(name = "notas", indexes = {
+        @Index(name = "idx_notas_usuario_fecha_creacion", columnList = "usuario_id, fecha_creacion, id"),
+        @Index(name = "idx_notas_usuario_fecha_modificacion", columnList = "usuario_id, fecha_modificacion, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Nota {
 
+    public static final int LONGITUD_TITULO = 255;
+    public static final int LONGITUD_EXTRACTO = 200;
+
+    // Ids en bloques de 50 para poder agrupar las inserciones en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notas_seq")
+    @SequenceGenerator(name = "notas_seq", sequenceName = "notas_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "El título es obligatorio")
-    @Column(name = "titulo", nullable = false)
+    @Column(name = "titulo", nullable = false, length = LONGITUD_TITULO)
     private String titulo;
 
+    // En PostgreSQL los contenidos grandes se guardan comprimidos con LZ4 (TOAST, ver V10)
     @Column(name = "contenido", columnDefinition = "TEXT")
     private String contenido;
 
-    @Column(name = "fecha_creacion")
+    // Inicio del contenido para los listados: así no leen ni descomprimen el contenido completo
+    @Column(name = "extracto", length = LONGITUD_EXTRACTO)
+    @JsonIgnore
+    private String extracto;
+
+    // Bloqueo optimista: cada UPDATE comprueba e incrementa la versión
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    @Column(name = "fecha_creacion", nullable = false)
     private LocalDateTime fechaCreacion;
 
     @Column(name = "fecha_modificacion")
@@ -35,6 +61,7 @@ public class Nota {
     // Relación con Usuario (obligatoria)
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
+    @JsonIgnore
     private Usuario usuario;
 
     // Relación con Materia (opcional - para notas generales)
@@ -46,10 +73,28 @@ public class Nota {
     protected void onCreate() {
         fechaCreacion = LocalDateTime.now();
         fechaModificacion = LocalDateTime.now();
+        extracto = extraer(contenido);
     }
 
     @PreUpdate
     protected void onUpdate() {
         fechaModificacion = LocalDateTime.now();
+        extracto = extraer(contenido);
+    }
+
+    /**
+     * Extracto que corresponde a un contenido; lo usan también las escrituras que no pasan por la entidad.
+     * Cuenta caracteres, no unidades UTF-16, igual que VARCHAR(200) y LEFT(contenido, 200) en PostgreSQL:
+     * un emoji cuenta uno y nunca se parte
+     */
+    public static String extraer(String contenido) {
+        if (contenido == null || contenido.length() <= LONGITUD_EXTRACTO) {
+            return contenido;
+        }
+        int fin = 0;
+        for (int i = 0; i < LONGITUD_EXTRACTO && fin < contenido.length(); i++) {
+            fin += Character.charCount(contenido.codePointAt(fin));
+        }
+        return contenido.substring(0, fin);
     }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.studymate.model;
+
+/**
+ * Operación que produjo un evento de cambio
+ */
+public enum OperacionCambio {
+    CREACION,
+    MODIFICACION,
+    ELIMINACION
+}
@@ -1,5 +1,7 @@
 package com.studymate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
@@ -9,14 +11,20 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tareas")
+@NamedEntityGraph(name = "Tarea.materia", attributeNodes = @NamedAttributeNode("materia"))
+@Table(name = "tareas", indexes = {
+        @Index(name = "idx_tareas_usuario_fecha_creacion", columnList = "usuario_id, fecha_creacion, id"),
+        @Index(name = "idx_tareas_usuario_fecha_modificacion", columnList = "usuario_id, fecha_modificacion, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Tarea {
 
+    // Ids en bloques de 50 para poder agrupar las inserciones en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tareas_seq")
+    @SequenceGenerator(name = "tareas_seq", sequenceName = "tareas_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "El título es obligatorio")
@@ -36,12 +44,22 @@ public class Tarea {
     @Enumerated(EnumType.STRING)
     private Prioridad prioridad = Prioridad.MEDIA;
 
-    @Column(name = "fecha_creacion")
+    @Column(name = "fecha_creacion", nullable = false)
     private LocalDateTime fechaCreacion;
 
+    @Column(name = "fecha_modificacion")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime fechaModificacion;
+
+    // Se fija al completarse; el archivador mueve las completadas hace más de N días
+    @Column(name = "fecha_completada")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime fechaCompletada;
+
     // Relación con Usuario (obligatoria)
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
+    @JsonIgnore
     private Usuario usuario;
 
     // Relación con Materia (opcional - para tareas generales)
@@ -52,5 +70,21 @@ public class Tarea {
     @PrePersist
     protected void onCreate() {
         fechaCreacion = LocalDateTime.now();
+        fechaModificacion = fechaCreacion;
+        actualizarFechaCompletada();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        fechaModificacion = LocalDateTime.now();
+        actualizarFechaCompletada();
+    }
+
+    private void actualizarFechaCompletada() {
+        if (!Boolean.TRUE.equals(completada)) {
+            fechaCompletada = null;
+        } else if (fechaCompletada == null) {
+            fechaCompletada = LocalDateTime.now();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.studymate.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tarea completada que el archivador ha movido fuera de la tabla de tareas activas.
+ * Conserva el id original; solo se escribe con SQL desde el archivador.
+ */
+@Entity
+@Immutable
+@Table(name = "tareas_archivo", indexes = {
+        @Index(name = "idx_tareas_archivo_usuario_fecha", columnList = "usuario_id, fecha_completada, id"),
+        @Index(name = "idx_tareas_archivo_fecha_completada", columnList = "fecha_completada")
+})
+@Data
+@NoArgsConstructor
+public class TareaArchivada {
+
+    @Id
+    private Long id;
+
+    @Column(name = "titulo", nullable = false)
+    private String titulo;
+
+    @Column(name = "descripcion", columnDefinition = "TEXT")
+    private String descripcion;
+
+    @Column(name = "fecha_limite")
+    private LocalDateTime fechaLimite;
+
+    @Column(name = "prioridad")
+    @Enumerated(EnumType.STRING)
+    private Prioridad prioridad;
+
+    @Column(name = "fecha_creacion")
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_completada", nullable = false)
+    private LocalDateTime fechaCompletada;
+
+    @Column(name = "fecha_archivado", nullable = false)
+    private LocalDateTime fechaArchivado;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Usuario usuario;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "materia_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    @JsonIgnore
+    private Materia materia;
+}
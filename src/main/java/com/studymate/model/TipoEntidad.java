@@ -0,0 +1,10 @@
+package com.studymate.model;
+
+/**
+ * Tipos de entidad que se sincronizan con los clientes
+ */
+public enum TipoEntidad {
+    TAREA,
+    NOTA,
+    MATERIA
+}
@@ -0,0 +1,55 @@
+package com.studymate.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token emitido a un usuario. Solo se guarda el hash SHA-256 del token;
+ * todos los tokens obtenidos por rotación a partir del mismo login comparten familia
+ */
+@Entity
+@Table(name = "tokens_refresco", indexes = {
+        @Index(name = "idx_tokens_refresco_familia", columnList = "familia"),
+        @Index(name = "idx_tokens_refresco_expiracion", columnList = "fecha_expiracion")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRefresco {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(name = "familia", nullable = false, length = 36)
+    private String familia;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
+
+    @Column(name = "fecha_creacion")
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_expiracion", nullable = false)
+    private LocalDateTime fechaExpiracion;
+
+    @Column(name = "revocado", nullable = false)
+    private Boolean revocado = false;
+
+    // Hash del token que sustituyó a este en la rotación
+    @Column(name = "reemplazado_por", length = 64)
+    private String reemplazadoPor;
+
+    @PrePersist
+    protected void onCreate() {
+        fechaCreacion = LocalDateTime.now();
+    }
+}
@@ -1,6 +1,9 @@
 package com.studymate.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -19,6 +22,7 @@ import java.util.Set;
  * Contiene información personal y relaciones con otras entidades
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "usuarios")
 @Data
 @NoArgsConstructor
@@ -55,6 +59,13 @@ public class Usuario {
     @Column(name = "activo")
     private Boolean activo = true;
 
+    // Versión de las colecciones del usuario para los ETag de los listados. Solo la leen y la
+    // incrementan consultas SQL de VersionColeccionesService, así que Hibernate nunca la escribe
+    @Column(name = "version_colecciones", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private Long versionColecciones;
+
     // Relaciones
     @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
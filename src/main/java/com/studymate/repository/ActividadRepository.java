@@ -0,0 +1,28 @@
+package com.studymate.repository;
+
+import com.studymate.dto.ActividadDTO;
+import com.studymate.model.Actividad;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ActividadRepository extends JpaRepository<Actividad, Long> {
+
+    String SELECT_DTO = "SELECT new com.studymate.dto.ActividadDTO(a.id, a.tipo, a.descripcion, a.fecha) FROM Actividad a ";
+
+    // Actividad más reciente del usuario; recorre idx_actividades_usuario_fecha
+    @Query(SELECT_DTO + "WHERE a.usuarioId = :usuarioId ORDER BY a.fecha DESC, a.id DESC")
+    List<ActividadDTO> findRecientes(@Param("usuarioId") Long usuarioId, Limit limit);
+
+    // Página siguiente a la posición (fecha, id) del cursor
+    @Query(SELECT_DTO + "WHERE a.usuarioId = :usuarioId AND a.fecha <= :fecha "
+            + "AND (a.fecha < :fecha OR a.id < :id) ORDER BY a.fecha DESC, a.id DESC")
+    List<ActividadDTO> findAnterioresA(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDateTime fecha,
+            @Param("id") Long id, Limit limit);
+}
@@ -0,0 +1,40 @@
+package com.studymate.repository;
+
+import com.studymate.dto.EliminacionDTO;
+import com.studymate.model.Eliminacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EliminacionRepository extends JpaRepository<Eliminacion, Long> {
+
+    // Eliminaciones del usuario posteriores a la fecha indicada
+    @Query("SELECT new com.studymate.dto.EliminacionDTO(e.tipo, e.entidadId, e.fechaEliminacion) FROM Eliminacion e "
+            + "WHERE e.usuarioId = :usuarioId AND e.fechaEliminacion > :desde "
+            + "ORDER BY e.fechaEliminacion ASC, e.id ASC")
+    List<EliminacionDTO> findDesde(@Param("usuarioId") Long usuarioId, @Param("desde") LocalDateTime desde);
+
+    // Registra en una sola sentencia la eliminación de las tareas indicadas
+    @Modifying
+    @Query("INSERT INTO Eliminacion (usuarioId, tipo, entidadId, fechaEliminacion) "
+            + "SELECT t.usuario.id, com.studymate.model.TipoEntidad.TAREA, t.id, :ahora FROM Tarea t WHERE t.id IN :ids")
+    int registrarTareas(@Param("ids") Collection<Long> ids, @Param("ahora") LocalDateTime ahora);
+
+    // Registra en una sola sentencia la eliminación de las notas indicadas
+    @Modifying
+    @Query("INSERT INTO Eliminacion (usuarioId, tipo, entidadId, fechaEliminacion) "
+            + "SELECT n.usuario.id, com.studymate.model.TipoEntidad.NOTA, n.id, :ahora FROM Nota n WHERE n.id IN :ids")
+    int registrarNotas(@Param("ids") Collection<Long> ids, @Param("ahora") LocalDateTime ahora);
+
+    // Purga los registros anteriores a la fecha indicada
+    @Modifying
+    @Query("DELETE FROM Eliminacion e WHERE e.fechaEliminacion < :limite")
+    int eliminarAnterioresA(@Param("limite") LocalDateTime limite);
+}
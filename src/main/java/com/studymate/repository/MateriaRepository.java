@@ -1,18 +1,27 @@
 package com.studymate.repository;
 
+import com.studymate.dto.ResumenMateriaDTO;
+import com.studymate.dto.SugerenciaDTO;
 import com.studymate.model.Materia;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MateriaRepository extends JpaRepository<Materia, Long> {
 
-    // Buscar todas las materias de un usuario
+    // Buscar todas las materias de un usuario (resultado en la caché de consultas)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Materia> findByUsuarioId(Long usuarioId);
 
     // Buscar materia por nombre y usuario
@@ -20,4 +29,38 @@ public interface MateriaRepository extends JpaRepository<Materia, Long> {
 
     // Verificar si existe una materia con ese nombre para el usuario
     boolean existsByNombreAndUsuarioId(String nombre, Long usuarioId);
-}
\ No newline at end of file
+
+    // Verificar que la materia existe y es del usuario
+    boolean existsByIdAndUsuarioId(Long id, Long usuarioId);
+
+    // Verificar si otra materia del usuario ya usa ese nombre
+    boolean existsByNombreAndUsuarioIdAndIdNot(String nombre, Long usuarioId, Long id);
+
+    // Id y nombre de todas las materias del usuario, para el índice de autocompletado
+    @Query("SELECT new com.studymate.dto.SugerenciaDTO(m.id, m.nombre) FROM Materia m WHERE m.usuario.id = :usuarioId")
+    List<SugerenciaDTO> findSugerenciasByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Materias del usuario con los conteos a cero, para completarlos con las consultas agregadas del panel
+    @Query("SELECT new com.studymate.dto.ResumenMateriaDTO(m.id, m.nombre, m.color, 0L, 0L, 0L, 0L) "
+            + "FROM Materia m WHERE m.usuario.id = :usuarioId ORDER BY m.nombre")
+    List<ResumenMateriaDTO> findResumenByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Ids de la lista que pertenecen al usuario
+    @Query("SELECT m.id FROM Materia m WHERE m.usuario.id = :usuarioId AND m.id IN :ids")
+    List<Long> findIdsByUsuarioIdAndIdIn(@Param("usuarioId") Long usuarioId, @Param("ids") Collection<Long> ids);
+
+    // Primera página de materias de un usuario, más recientes primero
+    @Query("SELECT m FROM Materia m WHERE m.usuario.id = :usuarioId ORDER BY m.fechaCreacion DESC, m.id DESC")
+    List<Materia> findPrimeraPagina(@Param("usuarioId") Long usuarioId, Limit limit);
+
+    // Página siguiente a la posición (fecha_creacion, id) del cursor
+    @Query("SELECT m FROM Materia m WHERE m.usuario.id = :usuarioId AND m.fechaCreacion <= :fecha "
+            + "AND (m.fechaCreacion < :fecha OR m.id < :id) ORDER BY m.fechaCreacion DESC, m.id DESC")
+    List<Materia> findPaginaDespuesDe(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDateTime fecha,
+            @Param("id") Long id, Limit limit);
+
+    // Materias creadas o modificadas después de la fecha indicada (sincronización incremental)
+    @Query("SELECT m FROM Materia m WHERE m.usuario.id = :usuarioId AND m.fechaModificacion > :desde "
+            + "ORDER BY m.fechaModificacion ASC, m.id ASC")
+    List<Materia> findModificadasDesde(@Param("usuarioId") Long usuarioId, @Param("desde") LocalDateTime desde);
+}
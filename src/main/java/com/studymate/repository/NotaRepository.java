@@ -1,25 +1,193 @@
 package com.studymate.repository;
 
+import com.studymate.dto.NotaBusquedaDTO;
+import com.studymate.dto.NotaDetalleDTO;
+import com.studymate.dto.NotaResumenDTO;
+import com.studymate.dto.SugerenciaDTO;
 import com.studymate.model.Nota;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface NotaRepository extends JpaRepository<Nota, Long> {
 
+    // Fila devuelta por la búsqueda de texto completo nativa
+    interface ResultadoBusqueda {
+        Long getId();
+        String getTitulo();
+        Long getMateriaId();
+        String getMateriaNombre();
+        Double getRango();
+        LocalDateTime getFechaModificacion();
+        String getFragmento();
+    }
+
+    // Número de notas de una materia (materiaId null para las generales)
+    interface ConteoPorMateria {
+        Long getMateriaId();
+        Long getNotas();
+    }
+
+    // Las notas anteriores a la columna extracto la reciben de CompresionNotasService; mientras, se recorta el contenido
+    String SELECT_RESUMEN = "SELECT new com.studymate.dto.NotaResumenDTO(n.id, n.titulo, "
+            + "COALESCE(n.extracto, SUBSTRING(n.contenido, 1, " + Nota.LONGITUD_EXTRACTO + ")), "
+            + "m.id, m.nombre, n.fechaCreacion, n.fechaModificacion) FROM Nota n LEFT JOIN n.materia m ";
+
+    // Buscar una nota junto con su materia en una sola consulta
+    @EntityGraph("Nota.materia")
+    Optional<Nota> findConMateriaById(Long id);
+
+    // Nota del usuario junto con su materia: comprobación de propiedad y carga en una sola consulta
+    @EntityGraph("Nota.materia")
+    Optional<Nota> findConMateriaByIdAndUsuarioId(Long id, Long usuarioId);
+
+    // Nota del usuario sin su materia, para modificar solo el contenido
+    Optional<Nota> findByIdAndUsuarioId(Long id, Long usuarioId);
+
+    // Elimina la nota si es del usuario, sin cargarla; devuelve 0 si no existe o es de otro usuario
+    @Modifying
+    @Query("DELETE FROM Nota n WHERE n.id = :id AND n.usuario.id = :usuarioId")
+    int eliminarPorIdYUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
     // Buscar todas las notas de un usuario
+    @EntityGraph("Nota.materia")
     List<Nota> findByUsuarioId(Long usuarioId);
 
     // Buscar notas de una materia específica
+    @EntityGraph("Nota.materia")
     List<Nota> findByMateriaIdAndUsuarioId(Long materiaId, Long usuarioId);
 
     // Buscar notas generales (sin materia)
     List<Nota> findByUsuarioIdAndMateriaIsNull(Long usuarioId);
 
-    // Buscar notas por título (búsqueda)
-    List<Nota> findByUsuarioIdAndTituloContainingIgnoreCase(Long usuarioId, String titulo);
-}
\ No newline at end of file
+    // Resumen de todas las notas de un usuario (listado completo)
+    @Query(SELECT_RESUMEN + "WHERE n.usuario.id = :usuarioId ORDER BY n.fechaCreacion DESC, n.id DESC")
+    List<NotaResumenDTO> findResumenByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Primera página de notas de un usuario, más recientes primero
+    @Query(SELECT_RESUMEN + "WHERE n.usuario.id = :usuarioId ORDER BY n.fechaCreacion DESC, n.id DESC")
+    List<NotaResumenDTO> findPrimeraPagina(@Param("usuarioId") Long usuarioId, Limit limit);
+
+    // Página siguiente a la posición (fecha_creacion, id) del cursor
+    @Query(SELECT_RESUMEN + "WHERE n.usuario.id = :usuarioId AND n.fechaCreacion <= :fecha "
+            + "AND (n.fechaCreacion < :fecha OR n.id < :id) ORDER BY n.fechaCreacion DESC, n.id DESC")
+    List<NotaResumenDTO> findPaginaDespuesDe(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDateTime fecha,
+            @Param("id") Long id, Limit limit);
+
+    // Búsqueda de texto completo en PostgreSQL (columna tsvector busqueda con índice GIN).
+    // El fragmento resaltado solo se calcula para las filas de la página; es texto sin escapar con las
+    // coincidencias entre los delimitadores de :opciones
+    @Query(value = "SELECT r.id AS id, r.titulo AS titulo, r.materia_id AS materiaId, m.nombre AS materiaNombre, "
+            + "CAST(r.rango AS double precision) AS rango, r.fecha_modificacion AS fechaModificacion, "
+            + "ts_headline('spanish', coalesce(r.contenido, ''), r.consulta, :opciones) AS fragmento "
+            + "FROM (SELECT n.id, n.titulo, n.contenido, n.materia_id, n.fecha_modificacion, q.consulta, "
+            + "ts_rank_cd(n.busqueda, q.consulta) AS rango "
+            + "FROM notas n, websearch_to_tsquery('spanish', :texto) AS q(consulta) "
+            + "WHERE n.usuario_id = :usuarioId AND n.busqueda @@ q.consulta "
+            + "ORDER BY rango DESC, n.id DESC LIMIT :limite OFFSET :desplazamiento) r "
+            + "LEFT JOIN materias m ON m.id = r.materia_id "
+            + "ORDER BY r.rango DESC, r.id DESC", nativeQuery = true)
+    List<ResultadoBusqueda> buscarTextoCompleto(@Param("usuarioId") Long usuarioId, @Param("texto") String texto,
+            @Param("opciones") String opciones, @Param("limite") int limite,
+            @Param("desplazamiento") long desplazamiento);
+
+    // Búsqueda básica para bases de datos sin texto completo (H2): coincidencia en título o contenido,
+    // priorizando las que coinciden en el título. En :patron, %, _ y \ del texto buscado van escapados con \
+    @Query("SELECT new com.studymate.dto.NotaBusquedaDTO(n.id, n.titulo, n.contenido, m.id, m.nombre, "
+            + "CASE WHEN LOWER(n.titulo) LIKE :patron ESCAPE '\\' THEN 1.0 ELSE 0.5 END, n.fechaModificacion) "
+            + "FROM Nota n LEFT JOIN n.materia m WHERE n.usuario.id = :usuarioId "
+            + "AND (LOWER(n.titulo) LIKE :patron ESCAPE '\\' OR LOWER(n.contenido) LIKE :patron ESCAPE '\\') "
+            + "ORDER BY CASE WHEN LOWER(n.titulo) LIKE :patron ESCAPE '\\' THEN 0 ELSE 1 END, n.id DESC")
+    Slice<NotaBusquedaDTO> buscarTextoBasico(@Param("usuarioId") Long usuarioId, @Param("patron") String patron,
+            Pageable pageable);
+
+    // Número de notas de cada materia en una sola consulta agregada
+    @Query("SELECT n.materia.id AS materiaId, COUNT(n) AS notas FROM Nota n WHERE n.usuario.id = :usuarioId "
+            + "GROUP BY n.materia.id")
+    List<ConteoPorMateria> contarPorMateria(@Param("usuarioId") Long usuarioId);
+
+    // Id y título de todas las notas del usuario, para el índice de autocompletado
+    @Query("SELECT new com.studymate.dto.SugerenciaDTO(n.id, n.titulo) FROM Nota n WHERE n.usuario.id = :usuarioId")
+    List<SugerenciaDTO> findSugerenciasByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Nota completa con contenido, solo si pertenece al usuario
+    @Query("SELECT new com.studymate.dto.NotaDetalleDTO(n.id, n.titulo, n.contenido, m.id, m.nombre, "
+            + "n.fechaCreacion, n.fechaModificacion, n.version) FROM Nota n LEFT JOIN n.materia m "
+            + "WHERE n.id = :id AND n.usuario.id = :usuarioId")
+    Optional<NotaDetalleDTO> findDetalleByIdAndUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // Notas completas creadas o modificadas después de la fecha indicada (sincronización incremental)
+    @Query("SELECT new com.studymate.dto.NotaDetalleDTO(n.id, n.titulo, n.contenido, m.id, m.nombre, "
+            + "n.fechaCreacion, n.fechaModificacion, n.version) FROM Nota n LEFT JOIN n.materia m "
+            + "WHERE n.usuario.id = :usuarioId AND n.fechaModificacion > :desde "
+            + "ORDER BY n.fechaModificacion ASC, n.id ASC")
+    List<NotaDetalleDTO> findModificadasDesde(@Param("usuarioId") Long usuarioId,
+            @Param("desde") LocalDateTime desde);
+
+    // Todas las notas del usuario agrupadas por materia, leídas con un cursor del servidor para la
+    // exportación; al ser DTOs no quedan en el contexto de persistencia
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT new com.studymate.dto.NotaDetalleDTO(n.id, n.titulo, n.contenido, m.id, m.nombre, "
+            + "n.fechaCreacion, n.fechaModificacion, n.version) FROM Nota n LEFT JOIN n.materia m "
+            + "WHERE n.usuario.id = :usuarioId ORDER BY m.nombre, n.id")
+    Stream<NotaDetalleDTO> streamDetalleByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Ids de las notas de una materia, para procesarlas por lotes sin cargarlas
+    @Query("SELECT n.id FROM Nota n WHERE n.materia.id = :materiaId")
+    List<Long> findIdsByMateriaId(@Param("materiaId") Long materiaId, Limit limit);
+
+    // Elimina las notas indicadas sin cargarlas
+    @Modifying
+    @Query("DELETE FROM Nota n WHERE n.id IN :ids")
+    int eliminarPorIds(@Param("ids") Collection<Long> ids);
+
+    // Deja las notas indicadas sin materia (pasan a generales)
+    @Modifying
+    @Query("UPDATE Nota n SET n.materia = null, n.fechaModificacion = :ahora WHERE n.id IN :ids")
+    int desvincularMateria(@Param("ids") Collection<Long> ids, @Param("ahora") LocalDateTime ahora);
+
+    // Bloquea un lote de notas sin extracto; las ya bloqueadas por otra instancia se saltan
+    @Query(value = "SELECT id FROM notas WHERE extracto IS NULL AND contenido IS NOT NULL "
+            + "ORDER BY id LIMIT :lote FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> bloquearSinExtracto(@Param("lote") int lote);
+
+    // Si notas.contenido se comprime con LZ4 (PostgreSQL 14 o posterior compilado con soporte LZ4, ver V10)
+    @Query(value = "SELECT COUNT(*) > 0 FROM pg_attribute WHERE attrelid = 'notas'::regclass "
+            + "AND attname = 'contenido' AND attcompression = 'l'", nativeQuery = true)
+    boolean contenidoComprimidoConLz4();
+
+    // Rellena el extracto y reescribe los contenidos de más de :umbral bytes, que así se vuelven a comprimir
+    // con el método actual de la columna. No cambia fecha_modificacion: para los clientes la nota es la misma.
+    // Solo afecta a la tabla notas: sin declararlo Hibernate vaciaría toda la caché de segundo nivel en cada lote
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notas"))
+    @Query(value = "UPDATE notas SET extracto = LEFT(contenido, " + Nota.LONGITUD_EXTRACTO + "), "
+            + "contenido = CASE WHEN OCTET_LENGTH(contenido) > :umbral THEN contenido || '' ELSE contenido END "
+            + "WHERE id IN :ids", nativeQuery = true)
+    int completarExtractoYRecomprimir(@Param("ids") Collection<Long> ids, @Param("umbral") int umbral);
+
+    // Escribe el estado acumulado por la escritura diferida si la nota sigue en la versión en que se basa;
+    // devuelve 0 si otra escritura se ha adelantado o la nota ya no existe
+    @Modifying
+    @Query("UPDATE Nota n SET n.titulo = :titulo, n.contenido = :contenido, n.extracto = :extracto, "
+            + "n.fechaModificacion = :ahora, n.version = :version WHERE n.id = :id AND n.version = :versionBase")
+    int escribirDiferida(@Param("id") Long id, @Param("titulo") String titulo, @Param("contenido") String contenido,
+            @Param("extracto") String extracto, @Param("ahora") LocalDateTime ahora, @Param("version") Long version,
+            @Param("versionBase") Long versionBase);
+}
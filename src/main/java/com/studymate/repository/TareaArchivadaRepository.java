@@ -0,0 +1,55 @@
+package com.studymate.repository;
+
+import com.studymate.dto.TareaArchivadaDTO;
+import com.studymate.model.TareaArchivada;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TareaArchivadaRepository extends JpaRepository<TareaArchivada, Long> {
+
+    String SELECT_RESUMEN = "SELECT new com.studymate.dto.TareaArchivadaDTO(t.id, t.titulo, t.descripcion, t.fechaLimite, "
+            + "t.prioridad, m.id, m.nombre, t.fechaCreacion, t.fechaCompletada, t.fechaArchivado) "
+            + "FROM TareaArchivada t LEFT JOIN t.materia m ";
+
+    // Primera página de tareas archivadas de un usuario, completadas más recientemente primero
+    @Query(SELECT_RESUMEN + "WHERE t.usuario.id = :usuarioId ORDER BY t.fechaCompletada DESC, t.id DESC")
+    List<TareaArchivadaDTO> findPrimeraPagina(@Param("usuarioId") Long usuarioId, Limit limit);
+
+    // Página siguiente a la posición (fecha_completada, id) del cursor
+    @Query(SELECT_RESUMEN + "WHERE t.usuario.id = :usuarioId AND t.fechaCompletada <= :fecha "
+            + "AND (t.fechaCompletada < :fecha OR t.id < :id) ORDER BY t.fechaCompletada DESC, t.id DESC")
+    List<TareaArchivadaDTO> findPaginaDespuesDe(@Param("usuarioId") Long usuarioId,
+            @Param("fecha") LocalDateTime fecha, @Param("id") Long id, Limit limit);
+
+    // Bloquea un lote de tareas completadas antes de la fecha; las ya bloqueadas por otra instancia se saltan
+    @Query(value = "SELECT id FROM tareas WHERE completada = TRUE AND fecha_completada < :limite "
+            + "ORDER BY fecha_completada, id LIMIT :lote FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> bloquearCompletadasAntesDe(@Param("limite") LocalDateTime limite, @Param("lote") int lote);
+
+    // Copia al archivo las tareas indicadas, conservando su id. En HQL, y no SQL nativo, para que Hibernate
+    // solo invalide la tabla tareas_archivo y no toda la caché de segundo nivel
+    @Modifying
+    @Query("INSERT INTO TareaArchivada (id, titulo, descripcion, fechaLimite, prioridad, fechaCreacion, "
+            + "fechaCompletada, fechaArchivado, usuario, materia) "
+            + "SELECT t.id, t.titulo, t.descripcion, t.fechaLimite, t.prioridad, t.fechaCreacion, t.fechaCompletada, "
+            + ":ahora, t.usuario, t.materia FROM Tarea t WHERE t.id IN :ids")
+    int copiarDesdeTareas(@Param("ids") Collection<Long> ids, @Param("ahora") LocalDateTime ahora);
+
+    // Bloquea un lote de tareas archivadas completadas antes de la fecha, para purgarlas
+    @Query(value = "SELECT id FROM tareas_archivo WHERE fecha_completada < :limite "
+            + "ORDER BY fecha_completada, id LIMIT :lote FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> bloquearArchivadasAntesDe(@Param("limite") LocalDateTime limite, @Param("lote") int lote);
+
+    @Modifying
+    @Query("DELETE FROM TareaArchivada t WHERE t.id IN :ids")
+    int eliminarPorIds(@Param("ids") Collection<Long> ids);
+}
@@ -1,33 +1,155 @@
 package com.studymate.repository;
 
+import com.studymate.dto.PlazoTareaDTO;
+import com.studymate.dto.TareaResumenDTO;
 import com.studymate.model.Tarea;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TareaRepository extends JpaRepository<Tarea, Long> {
 
+    // Conteos de tareas de una materia (materiaId null para las generales)
+    interface ConteoPorMateria {
+        Long getMateriaId();
+        Long getPendientes();
+        Long getCompletadas();
+        Long getVencidas();
+    }
+
+    String SELECT_RESUMEN = "SELECT new com.studymate.dto.TareaResumenDTO(t.id, t.titulo, t.descripcion, t.fechaLimite, "
+            + "t.completada, t.prioridad, m.id, m.nombre, t.fechaCreacion) FROM Tarea t LEFT JOIN t.materia m ";
+
+    // Buscar una tarea junto con su materia en una sola consulta
+    @EntityGraph("Tarea.materia")
+    Optional<Tarea> findConMateriaById(Long id);
+
+    // Tarea del usuario junto con su materia: comprobación de propiedad y carga en una sola consulta
+    @EntityGraph("Tarea.materia")
+    Optional<Tarea> findConMateriaByIdAndUsuarioId(Long id, Long usuarioId);
+
+    // Elimina la tarea si es del usuario, sin cargarla; devuelve 0 si no existe o es de otro usuario
+    @Modifying
+    @Query("DELETE FROM Tarea t WHERE t.id = :id AND t.usuario.id = :usuarioId")
+    int eliminarPorIdYUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
     // Buscar todas las tareas de un usuario
+    @EntityGraph("Tarea.materia")
     List<Tarea> findByUsuarioId(Long usuarioId);
 
     // Buscar tareas de una materia específica
+    @EntityGraph("Tarea.materia")
     List<Tarea> findByMateriaIdAndUsuarioId(Long materiaId, Long usuarioId);
 
     // Buscar tareas generales (sin materia)
     List<Tarea> findByUsuarioIdAndMateriaIsNull(Long usuarioId);
 
     // Buscar tareas pendientes
+    @EntityGraph("Tarea.materia")
     List<Tarea> findByUsuarioIdAndCompletadaFalse(Long usuarioId);
 
     // Buscar tareas por fecha límite
+    @EntityGraph("Tarea.materia")
     List<Tarea> findByUsuarioIdAndFechaLimiteBetween(Long usuarioId, LocalDateTime inicio, LocalDateTime fin);
 
     // Buscar tareas urgentes (no completadas y fecha límite próxima)
+    @EntityGraph("Tarea.materia")
     @Query("SELECT t FROM Tarea t WHERE t.usuario.id = :usuarioId AND t.completada = false AND t.fechaLimite <= :fecha")
     List<Tarea> findTareasUrgentes(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDateTime fecha);
+
+    // Plazos de las tareas pendientes de todos los usuarios con fecha límite hasta :hasta, a partir de la
+    // posición (fecha_limite, id) indicada; recorre idx_tareas_pendientes_fecha_limite por lotes
+    @Query("SELECT new com.studymate.dto.PlazoTareaDTO(t.id, t.usuario.id, t.titulo, t.fechaLimite) FROM Tarea t "
+            + "WHERE t.completada = false AND t.fechaLimite <= :hasta "
+            + "AND (t.fechaLimite > :fecha OR (t.fechaLimite = :fecha AND t.id > :id)) "
+            + "ORDER BY t.fechaLimite, t.id")
+    List<PlazoTareaDTO> findPlazosPendientesDespuesDe(@Param("fecha") LocalDateTime fecha, @Param("id") Long id,
+            @Param("hasta") LocalDateTime hasta, Limit limit);
+
+    // Resumen de todas las tareas de un usuario (listado completo)
+    @Query(SELECT_RESUMEN + "WHERE t.usuario.id = :usuarioId ORDER BY t.fechaCreacion DESC, t.id DESC")
+    List<TareaResumenDTO> findResumenByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Primera página de tareas de un usuario, más recientes primero
+    @Query(SELECT_RESUMEN + "WHERE t.usuario.id = :usuarioId ORDER BY t.fechaCreacion DESC, t.id DESC")
+    List<TareaResumenDTO> findPrimeraPagina(@Param("usuarioId") Long usuarioId, Limit limit);
+
+    // Página siguiente a la posición (fecha_creacion, id) del cursor
+    @Query(SELECT_RESUMEN + "WHERE t.usuario.id = :usuarioId AND t.fechaCreacion <= :fecha "
+            + "AND (t.fechaCreacion < :fecha OR t.id < :id) ORDER BY t.fechaCreacion DESC, t.id DESC")
+    List<TareaResumenDTO> findPaginaDespuesDe(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDateTime fecha,
+            @Param("id") Long id, Limit limit);
+
+    // Tareas pendientes, completadas y vencidas de cada materia en una sola consulta agregada
+    @Query("SELECT t.materia.id AS materiaId, "
+            + "SUM(CASE WHEN t.completada = true THEN 0 ELSE 1 END) AS pendientes, "
+            + "SUM(CASE WHEN t.completada = true THEN 1 ELSE 0 END) AS completadas, "
+            + "SUM(CASE WHEN t.completada = true THEN 0 WHEN t.fechaLimite < :ahora THEN 1 ELSE 0 END) AS vencidas "
+            + "FROM Tarea t WHERE t.usuario.id = :usuarioId GROUP BY t.materia.id")
+    List<ConteoPorMateria> contarPorMateria(@Param("usuarioId") Long usuarioId, @Param("ahora") LocalDateTime ahora);
+
+    // Próximas entregas pendientes, de la más cercana a la más lejana
+    @Query(SELECT_RESUMEN + "WHERE t.usuario.id = :usuarioId AND t.completada = false AND t.fechaLimite >= :desde "
+            + "ORDER BY t.fechaLimite ASC, t.id ASC")
+    List<TareaResumenDTO> findProximasEntregas(@Param("usuarioId") Long usuarioId, @Param("desde") LocalDateTime desde,
+            Limit limit);
+
+    // Resumen de las tareas urgentes (pendientes con fecha límite hasta la indicada, incluidas las vencidas)
+    @Query(SELECT_RESUMEN + "WHERE t.usuario.id = :usuarioId AND t.completada = false AND t.fechaLimite <= :fecha "
+            + "ORDER BY t.fechaLimite ASC, t.id ASC")
+    List<TareaResumenDTO> findResumenUrgentes(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDateTime fecha);
+
+    // Tareas creadas o modificadas después de la fecha indicada (sincronización incremental)
+    @Query(SELECT_RESUMEN + "WHERE t.usuario.id = :usuarioId AND t.fechaModificacion > :desde "
+            + "ORDER BY t.fechaModificacion ASC, t.id ASC")
+    List<TareaResumenDTO> findModificadasDesde(@Param("usuarioId") Long usuarioId,
+            @Param("desde") LocalDateTime desde);
+
+    // Todas las tareas del usuario leídas con un cursor del servidor, para la exportación
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RESUMEN + "WHERE t.usuario.id = :usuarioId ORDER BY t.id")
+    Stream<TareaResumenDTO> streamResumenByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Ids de la lista que pertenecen al usuario
+    @Query("SELECT t.id FROM Tarea t WHERE t.usuario.id = :usuarioId AND t.id IN :ids")
+    List<Long> findIdsByUsuarioIdAndIdIn(@Param("usuarioId") Long usuarioId, @Param("ids") Collection<Long> ids);
+
+    // Marca como completadas en una sola sentencia las tareas indicadas del usuario
+    @Modifying
+    @Query("UPDATE Tarea t SET t.completada = true, t.fechaCompletada = :ahora, t.fechaModificacion = :ahora "
+            + "WHERE t.usuario.id = :usuarioId AND t.id IN :ids AND t.completada = false")
+    int completarPorIds(@Param("usuarioId") Long usuarioId, @Param("ids") Collection<Long> ids,
+            @Param("ahora") LocalDateTime ahora);
+
+    // Usuarios propietarios de las tareas indicadas
+    @Query("SELECT DISTINCT t.usuario.id FROM Tarea t WHERE t.id IN :ids")
+    List<Long> findUsuarioIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Elimina las tareas indicadas sin cargarlas (archivador y eliminación de materias)
+    @Modifying
+    @Query("DELETE FROM Tarea t WHERE t.id IN :ids")
+    int eliminarPorIds(@Param("ids") Collection<Long> ids);
+
+    // Ids de las tareas de una materia, para procesarlas por lotes sin cargarlas
+    @Query("SELECT t.id FROM Tarea t WHERE t.materia.id = :materiaId")
+    List<Long> findIdsByMateriaId(@Param("materiaId") Long materiaId, Limit limit);
+
+    // Deja las tareas indicadas sin materia (pasan a generales)
+    @Modifying
+    @Query("UPDATE Tarea t SET t.materia = null, t.fechaModificacion = :ahora WHERE t.id IN :ids")
+    int desvincularMateria(@Param("ids") Collection<Long> ids, @Param("ahora") LocalDateTime ahora);
 }
\ No newline at end of file
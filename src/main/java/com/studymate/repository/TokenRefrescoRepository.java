@@ -0,0 +1,32 @@
+package com.studymate.repository;
+
+import com.studymate.model.TokenRefresco;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface TokenRefrescoRepository extends JpaRepository<TokenRefresco, Long> {
+
+    // Buscar token por hash bloqueando la fila para serializar rotaciones concurrentes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM TokenRefresco t JOIN FETCH t.usuario WHERE t.tokenHash = :tokenHash")
+    Optional<TokenRefresco> findByTokenHashForUpdate(@Param("tokenHash") String tokenHash);
+
+    // Revocar todos los tokens de una familia (reutilización detectada o logout)
+    @Modifying
+    @Query("UPDATE TokenRefresco t SET t.revocado = true WHERE t.familia = :familia AND t.revocado = false")
+    int revocarFamilia(@Param("familia") String familia);
+
+    // Eliminar tokens ya expirados
+    @Modifying
+    @Query("DELETE FROM TokenRefresco t WHERE t.fechaExpiracion < :fecha")
+    int eliminarExpirados(@Param("fecha") LocalDateTime fecha);
+}
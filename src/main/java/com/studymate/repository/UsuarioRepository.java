@@ -1,12 +1,18 @@
 package com.studymate.repository;
 
 import com.studymate.model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
@@ -19,4 +25,18 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
     // Buscar usuario activo por email
     Optional<Usuario> findByEmailAndActivoTrue(String email);
+
+    // Página de usuarios activos con id mayor que el indicado
+    @Query("SELECT u FROM Usuario u WHERE u.activo = true AND u.id > :despuesDe ORDER BY u.id")
+    List<Usuario> findActivosDespuesDe(@Param("despuesDe") Long despuesDe, Limit limit);
+
+    // Todos los usuarios activos leídos por lotes desde un cursor del servidor, sin pasar por la
+    // caché de segundo nivel para no desalojar a los usuarios con sesión. Requiere una transacción abierta.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT u FROM Usuario u WHERE u.activo = true ORDER BY u.id")
+    Stream<Usuario> streamActivos();
 }
@@ -0,0 +1,351 @@
+package com.studymate.service;
+
+import com.studymate.config.ActividadConfig;
+import com.studymate.config.PaginacionConfig;
+import com.studymate.dto.ActividadDTO;
+import com.studymate.dto.PaginaDTO;
+import com.studymate.model.Actividad;
+import com.studymate.repository.ActividadRepository;
+import com.studymate.util.Cursor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Registro de actividad por usuario. Las entradas se guardan en la tabla actividades, que solo
+ * recibe inserciones: se acumulan en una cola acotada y se escriben por lotes cada segundo, en
+ * lugar de una sentencia por actividad. Las más recientes de cada usuario activo se mantienen
+ * además en un anillo de tamaño fijo, del que sale la primera página sin consultar la base de
+ * datos; el resto se pagina por cursor sobre (fecha, id).
+ * Si la base de datos no está disponible, las filas de un lote fallido se guardan y se reintentan en
+ * la siguiente escritura. Solo se descartan las que la base de datos rechaza por sí mismas (usuario
+ * ya eliminado) o las que no caben en memoria, y se cuentan en studymate.actividades.descartadas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActividadService {
+
+    private static final String INSERTAR =
+            "INSERT INTO actividades (id, usuario_id, tipo, descripcion, fecha) VALUES (?, ?, ?, ?, ?)";
+    // Incremento de actividades_id_seq: cada nextval reserva un bloque de ids
+    private static final int BLOQUE_IDS = 50;
+    private static final int MAX_TIPO = 50;
+    private static final int MAX_DESCRIPCION = 500;
+    private static final Comparator<ActividadDTO> MAS_RECIENTE_PRIMERO = Comparator
+            .comparing(ActividadDTO::getFecha).thenComparing(ActividadDTO::getId).reversed();
+
+    private final ActividadRepository actividadRepository;
+    private final ActividadConfig config;
+    private final PaginacionConfig paginacionConfig;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private BlockingQueue<Actividad> pendientes;
+    // Filas de lotes que fallaron sin ser culpa suya, protegidas con el monitor de escritura
+    private final Deque<Actividad> reintentos = new ArrayDeque<>();
+    private Counter rechazadas;
+    private Counter sinEspacio;
+    // Anillos de los usuarios usados más recientemente; se protegen con el monitor del propio mapa
+    private Map<Long, Anillo> anillos;
+    // Una sola escritura a la vez: quien lee de la base de datos espera a que termine la que esté en curso
+    private final Object escritura = new Object();
+    // Bloque de ids reservado, protegido con el monitor del servicio
+    private long siguienteId = 1;
+    private long finBloque = 0;
+
+    // Entradas más recientes de un usuario, de la más antigua a la más nueva
+    private static final class Anillo {
+        private final ActividadDTO[] entradas;
+        private int inicio;
+        private int tamano;
+        // Incluye lo más reciente de la base de datos, no solo lo registrado en este nodo
+        private boolean cargado;
+        private long cargadoEn;
+        // Contiene toda la actividad del usuario: la carga trajo menos filas que la capacidad y no se ha descartado ninguna
+        private boolean completo;
+
+        Anillo(int capacidad) {
+            this.entradas = new ActividadDTO[capacidad];
+        }
+
+        void anadir(ActividadDTO actividad) {
+            if (tamano == entradas.length) {
+                entradas[inicio] = actividad;
+                inicio = (inicio + 1) % entradas.length;
+                completo = false;
+            } else {
+                entradas[(inicio + tamano) % entradas.length] = actividad;
+                tamano++;
+            }
+        }
+
+        // Las n más recientes, de la más nueva a la más antigua
+        List<ActividadDTO> recientes(int n) {
+            List<ActividadDTO> lista = new ArrayList<>(Math.min(n, tamano));
+            for (int i = tamano - 1; i >= 0 && lista.size() < n; i--) {
+                lista.add(entradas[(inicio + i) % entradas.length]);
+            }
+            return lista;
+        }
+    }
+
+    @PostConstruct
+    void iniciar() {
+        pendientes = new ArrayBlockingQueue<>(config.getCapacidadCola());
+        String descripcion = "Actividades no escritas: rechazadas por la base de datos o sin espacio para reintentarlas";
+        rechazadas = Counter.builder("studymate.actividades.descartadas").tag("motivo", "rechazada")
+                .description(descripcion).register(meterRegistry);
+        sinEspacio = Counter.builder("studymate.actividades.descartadas").tag("motivo", "sin-espacio")
+                .description(descripcion).register(meterRegistry);
+        anillos = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Anillo> masAntiguo) {
+                return size() > config.getMaxUsuariosEnMemoria();
+            }
+        };
+    }
+
+    /**
+     * Registra una actividad del usuario. Queda visible al momento en su anillo y se escribe en
+     * la base de datos con el siguiente lote.
+     *
+     * @throws IllegalArgumentException si falta el tipo o la descripción, o superan su longitud máxima
+     */
+    public ActividadDTO registrar(Long usuarioId, String tipo, String descripcion) {
+        if (tipo == null || tipo.isBlank() || descripcion == null || descripcion.isBlank()) {
+            throw new IllegalArgumentException("Tipo y descripción son obligatorios");
+        }
+        if (tipo.length() > MAX_TIPO || descripcion.length() > MAX_DESCRIPCION) {
+            throw new IllegalArgumentException("El tipo admite " + MAX_TIPO + " caracteres y la descripción "
+                    + MAX_DESCRIPCION);
+        }
+        ActividadDTO actividad;
+        // Id y fecha a la vez: dentro de un nodo el orden por fecha coincide con el de ids. La fecha
+        // se trunca a la precisión de la columna para que los cursores del anillo y de la tabla coincidan
+        synchronized (this) {
+            actividad = new ActividadDTO(reservarId(), tipo, descripcion,
+                    LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        }
+        synchronized (anillos) {
+            anillos.computeIfAbsent(usuarioId, id -> new Anillo(config.getTamanoAnillo())).anadir(actividad);
+        }
+        Actividad fila = new Actividad(actividad.getId(), usuarioId, tipo, descripcion, actividad.getFecha());
+        if (!pendientes.offer(fila)) {
+            // Cola llena: la base de datos no da abasto y quien registra escribe la suya
+            synchronized (escritura) {
+                reintentar(escribir(List.of(fila)));
+            }
+        }
+        return actividad;
+    }
+
+    /**
+     * Actividad del usuario paginada por cursor, de la más reciente a la más antigua
+     *
+     * @param usuarioId ID del usuario
+     * @param cursor    Cursor devuelto en la página anterior, o null para la primera
+     * @param tamano    Tamaño de página solicitado
+     */
+    public PaginaDTO<ActividadDTO> listar(Long usuarioId, String cursor, Integer tamano) {
+        int tamanoPagina = paginacionConfig.resolverTamano(tamano);
+        if (cursor == null || cursor.isBlank()) {
+            List<ActividadDTO> recientes = recientes(usuarioId, tamanoPagina + 1);
+            if (recientes != null) {
+                return PaginaDTO.desdeFilas(recientes, tamanoPagina, a -> Cursor.codificar(a.getFecha(), a.getId()));
+            }
+        }
+        Cursor posicion = cursor == null || cursor.isBlank() ? null : Cursor.decodificar(cursor);
+        // Lo que siga en la cola tiene que estar en la base de datos antes de leerla
+        escribirPendientes();
+        Limit limite = Limit.of(tamanoPagina + 1);
+        // En la primaria: las escrituras por lotes no abren la ventana de lectura propia de las réplicas
+        List<ActividadDTO> filas = transactionTemplate.execute(estado -> posicion == null
+                ? actividadRepository.findRecientes(usuarioId, limite)
+                : actividadRepository.findAnterioresA(usuarioId, posicion.getFecha(), posicion.getId(), limite));
+        return PaginaDTO.desdeFilas(filas, tamanoPagina, a -> Cursor.codificar(a.getFecha(), a.getId()));
+    }
+
+    /**
+     * Escribe por lotes las actividades pendientes
+     */
+    @Scheduled(fixedDelayString = "${studymate.actividad.intervalo-escritura-ms:1000}")
+    public void escribirPendientes() {
+        synchronized (escritura) {
+            List<Actividad> lote = new ArrayList<>(config.getTamanoLote());
+            while (siguienteLote(lote)) {
+                List<Actividad> fallidas = escribir(lote);
+                lote.clear();
+                if (!fallidas.isEmpty()) {
+                    // La base de datos no responde: se reintenta en la siguiente pasada sin vaciar más la cola
+                    reintentar(fallidas);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Escribe lo pendiente antes de parar
+     */
+    @PreDestroy
+    void detener() {
+        escribirPendientes();
+        synchronized (escritura) {
+            int perdidas = reintentos.size() + pendientes.size();
+            if (perdidas > 0) {
+                log.error("{} actividades sin escribir al detener el servicio", perdidas);
+            }
+        }
+    }
+
+    // Llena el lote con lo que falló antes o, si no queda, con la cola; false si no hay nada que escribir
+    private boolean siguienteLote(List<Actividad> lote) {
+        while (lote.size() < config.getTamanoLote() && !reintentos.isEmpty()) {
+            lote.add(reintentos.pollFirst());
+        }
+        if (lote.isEmpty()) {
+            pendientes.drainTo(lote, config.getTamanoLote());
+        }
+        return !lote.isEmpty();
+    }
+
+    // Vuelven a la cabeza de los reintentos, en su orden; lo que pase de la capacidad de la cola se descarta
+    private void reintentar(List<Actividad> fallidas) {
+        for (int i = fallidas.size() - 1; i >= 0; i--) {
+            reintentos.addFirst(fallidas.get(i));
+        }
+        while (reintentos.size() > config.getCapacidadCola()) {
+            Actividad actividad = reintentos.pollLast();
+            sinEspacio.increment();
+            log.warn("Actividad {} del usuario {} descartada: no caben más reintentos", actividad.getId(),
+                    actividad.getUsuarioId());
+        }
+    }
+
+    // Las n entradas más recientes desde el anillo, cargándolo si hace falta; null si no las tiene todas
+    private List<ActividadDTO> recientes(Long usuarioId, int n) {
+        synchronized (anillos) {
+            Anillo anillo = anillos.get(usuarioId);
+            if (vigente(anillo)) {
+                return anillo.tamano >= n || anillo.completo ? anillo.recientes(n) : null;
+            }
+        }
+        if (n > config.getTamanoAnillo()) {
+            return null;
+        }
+        List<ActividadDTO> filas = transactionTemplate.execute(estado ->
+                actividadRepository.findRecientes(usuarioId, Limit.of(config.getTamanoAnillo())));
+        synchronized (anillos) {
+            Anillo anillo = anillos.computeIfAbsent(usuarioId, id -> new Anillo(config.getTamanoAnillo()));
+            if (!vigente(anillo)) {
+                // Se combinan con lo registrado en este nodo, que puede no estar escrito todavía
+                TreeSet<ActividadDTO> combinadas = new TreeSet<>(MAS_RECIENTE_PRIMERO);
+                combinadas.addAll(filas);
+                combinadas.addAll(anillo.recientes(anillo.tamano));
+                List<ActividadDTO> recientes = combinadas.stream().limit(config.getTamanoAnillo()).toList();
+                Anillo cargado = new Anillo(config.getTamanoAnillo());
+                for (int i = recientes.size() - 1; i >= 0; i--) {
+                    cargado.anadir(recientes.get(i));
+                }
+                cargado.cargado = true;
+                cargado.cargadoEn = System.currentTimeMillis();
+                cargado.completo = filas.size() < config.getTamanoAnillo()
+                        && combinadas.size() <= config.getTamanoAnillo();
+                anillos.put(usuarioId, cargado);
+                anillo = cargado;
+            }
+            return anillo.tamano >= n || anillo.completo ? anillo.recientes(n) : null;
+        }
+    }
+
+    // Cargado hace menos de la vigencia: lo registrado en otros nodos entra al volver a cargarlo
+    private boolean vigente(Anillo anillo) {
+        return anillo != null && anillo.cargado
+                && System.currentTimeMillis() - anillo.cargadoEn < config.getVigenciaAnilloMs();
+    }
+
+    // Escribe el lote y devuelve las filas que hay que reintentar, las que fallan por un error que no es suyo
+    private List<Actividad> escribir(List<Actividad> lote) {
+        try {
+            insertar(lote);
+            return List.of();
+        } catch (DataIntegrityViolationException e) {
+            // Una fila que falla (usuario ya eliminado) no debe hacer perder las demás del lote
+            log.warn("Error al escribir {} actividades por lotes, se escriben una a una: {}", lote.size(),
+                    e.getMessage());
+            List<Actividad> fallidas = new ArrayList<>();
+            for (Actividad actividad : lote) {
+                try {
+                    insertar(List.of(actividad));
+                } catch (DataIntegrityViolationException error) {
+                    rechazadas.increment();
+                    log.warn("Actividad {} del usuario {} descartada: {}", actividad.getId(),
+                            actividad.getUsuarioId(), error.getMessage());
+                } catch (DataAccessException error) {
+                    fallidas.add(actividad);
+                }
+            }
+            return fallidas;
+        } catch (DataAccessException e) {
+            log.warn("Error al escribir {} actividades, se reintentan en la siguiente escritura: {}", lote.size(),
+                    e.getMessage());
+            return new ArrayList<>(lote);
+        }
+    }
+
+    // En una transacción: si el lote falla no queda ninguna fila escrita y se puede repetir fila a fila
+    private void insertar(List<Actividad> lote) {
+        transactionTemplate.executeWithoutResult(estado ->
+                jdbcTemplate.batchUpdate(INSERTAR, lote, lote.size(), (ps, actividad) -> {
+                    ps.setLong(1, actividad.getId());
+                    ps.setLong(2, actividad.getUsuarioId());
+                    ps.setString(3, actividad.getTipo());
+                    ps.setString(4, actividad.getDescripcion());
+                    ps.setTimestamp(5, Timestamp.valueOf(actividad.getFecha()));
+                }));
+    }
+
+    // Siguiente id del bloque reservado; al agotarse se reserva otro con un solo nextval
+    private long reservarId() {
+        if (siguienteId > finBloque) {
+            long fin = nextval();
+            // El primer valor de la secuencia es 1: el bloque que cierra no tendría ids positivos
+            if (fin < BLOQUE_IDS) {
+                fin = nextval();
+            }
+            siguienteId = fin - BLOQUE_IDS + 1;
+            finBloque = fin;
+        }
+        return siguienteId++;
+    }
+
+    private long nextval() {
+        return jdbcTemplate.queryForObject("SELECT nextval('actividades_id_seq')", Long.class);
+    }
+}
@@ -0,0 +1,113 @@
+package com.studymate.service;
+
+import com.studymate.config.ArchivoTareasConfig;
+import com.studymate.config.ProgramacionConfig;
+import com.studymate.repository.TareaArchivadaRepository;
+import com.studymate.repository.TareaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Mueve las tareas completadas hace más de N días a tareas_archivo y purga las archivadas
+ * que superan el periodo de conservación. Trabaja en lotes pequeños, cada uno en su propia
+ * transacción y con una pausa entre ellos; las filas se bloquean con SKIP LOCKED, así que
+ * varias instancias pueden ejecutarlo a la vez sin pisarse.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArchivoTareasService {
+
+    private final TareaRepository tareaRepository;
+    private final TareaArchivadaRepository tareaArchivadaRepository;
+    private final ArchivoTareasConfig config;
+    private final TransactionTemplate transactionTemplate;
+    private final VersionColeccionesService versionColecciones;
+    private final SincronizacionService sincronizacionService;
+
+    /**
+     * Ejecución periódica del archivo y la purga
+     */
+    @Scheduled(cron = "${studymate.archivo.cron:0 15 3 * * *}", scheduler = ProgramacionConfig.PROGRAMADOR_LOTES)
+    public void ejecutarProgramado() {
+        if (!config.isHabilitado()) {
+            return;
+        }
+        int archivadas = archivarCompletadas();
+        int purgadas = purgarArchivadas();
+        if (archivadas > 0 || purgadas > 0) {
+            log.info("Archivo de tareas: {} archivadas, {} purgadas", archivadas, purgadas);
+        }
+    }
+
+    /**
+     * Archiva las tareas completadas antes del plazo configurado
+     * 
+     * @return Tareas movidas al archivo
+     */
+    public int archivarCompletadas() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(config.getDiasHastaArchivar());
+        return procesarEnLotes(() -> {
+            List<Long> usuarioIds = new ArrayList<>();
+            int movidas = transactionTemplate.execute(estado -> {
+                List<Long> ids = tareaArchivadaRepository.bloquearCompletadasAntesDe(limite, config.getTamanoLote());
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                usuarioIds.addAll(tareaRepository.findUsuarioIdsByIdIn(ids));
+                tareaArchivadaRepository.copiarDesdeTareas(ids, LocalDateTime.now());
+                // Para los clientes sincronizados una tarea archivada es una tarea eliminada
+                sincronizacionService.registrarTareasEliminadas(ids);
+                return tareaRepository.eliminarPorIds(ids);
+            });
+            // Fuera de la transacción del lote, para no bloquear usuarios mientras se retienen tareas
+            versionColecciones.incrementar(usuarioIds);
+            return movidas;
+        });
+    }
+
+    /**
+     * Elimina las tareas archivadas fuera del periodo de conservación, si hay uno configurado
+     * 
+     * @return Tareas archivadas eliminadas
+     */
+    public int purgarArchivadas() {
+        if (config.getDiasConservacion() <= 0) {
+            return 0;
+        }
+        LocalDateTime limite = LocalDateTime.now().minusDays(config.getDiasConservacion());
+        return procesarEnLotes(() -> transactionTemplate.execute(estado -> {
+            List<Long> ids = tareaArchivadaRepository.bloquearArchivadasAntesDe(limite, config.getTamanoLote());
+            return ids.isEmpty() ? 0 : tareaArchivadaRepository.eliminarPorIds(ids);
+        }));
+    }
+
+    /**
+     * Repite el lote hasta que venga incompleto o se alcance el máximo por ejecución
+     */
+    private int procesarEnLotes(IntSupplier lote) {
+        int total = 0;
+        for (int i = 0; i < config.getMaxLotesPorEjecucion(); i++) {
+            int procesadas = lote.getAsInt();
+            total += procesadas;
+            if (procesadas < config.getTamanoLote()) {
+                break;
+            }
+            try {
+                Thread.sleep(config.getPausaEntreLotesMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return total;
+    }
+}
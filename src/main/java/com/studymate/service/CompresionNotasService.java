@@ -0,0 +1,107 @@
+package com.studymate.service;
+
+import com.studymate.config.CompresionNotasConfig;
+import com.studymate.config.ProgramacionConfig;
+import com.studymate.repository.NotaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.List;
+
+/**
+ * Migra en segundo plano las notas creadas antes de la columna extracto: la rellena y reescribe
+ * los contenidos grandes para que PostgreSQL los vuelva a comprimir con LZ4 (las notas nuevas ya
+ * se guardan así). Trabaja en lotes pequeños con SKIP LOCKED, como el archivador de tareas, y deja
+ * de consultar en cuanto no queda ninguna nota por migrar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CompresionNotasService {
+
+    private final NotaRepository notaRepository;
+    private final CompresionNotasConfig config;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+
+    private volatile boolean terminada;
+    private volatile Boolean postgres;
+
+    /**
+     * Ejecución periódica de la migración
+     */
+    @Scheduled(fixedDelayString = "${studymate.compresion-notas.intervalo-ms:60000}", initialDelay = 30000,
+            scheduler = ProgramacionConfig.PROGRAMADOR_LOTES)
+    public void ejecutarProgramado() {
+        if (!config.isHabilitado() || terminada) {
+            return;
+        }
+        int migradas = migrarPendientes();
+        if (migradas > 0) {
+            log.info("Compresión de notas: {} notas migradas{}", migradas, terminada ? ", migración terminada" : "");
+        }
+    }
+
+    /**
+     * Migra lotes de notas hasta que no quede ninguna o se alcance el máximo por ejecución
+     *
+     * @return Notas migradas
+     */
+    public int migrarPendientes() {
+        // Sin LZ4 reescribir el contenido solo lo volvería a comprimir con pglz: basta con el extracto
+        int umbral = lz4Disponible() ? config.getUmbralBytes() : Integer.MAX_VALUE;
+        int total = 0;
+        for (int i = 0; i < config.getMaxLotesPorEjecucion(); i++) {
+            int migradas = transactionTemplate.execute(estado -> {
+                List<Long> ids = notaRepository.bloquearSinExtracto(config.getTamanoLote());
+                return ids.isEmpty() ? 0 : notaRepository.completarExtractoYRecomprimir(ids, umbral);
+            });
+            total += migradas;
+            if (migradas < config.getTamanoLote()) {
+                terminada = true;
+                break;
+            }
+            try {
+                Thread.sleep(config.getPausaEntreLotesMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return total;
+    }
+
+    private boolean lz4Disponible() {
+        // pg_attribute solo existe en PostgreSQL: en otras bases de datos la consulta fallaría en cada ejecución
+        if (!esPostgres()) {
+            return false;
+        }
+        try {
+            return notaRepository.contenidoComprimidoConLz4();
+        } catch (DataAccessException e) {
+            // Versiones sin compresión configurable por columna
+            return false;
+        }
+    }
+
+    private boolean esPostgres() {
+        if (postgres == null) {
+            try {
+                postgres = "PostgreSQL".equals(JdbcUtils.extractDatabaseMetaData(dataSource,
+                        DatabaseMetaData::getDatabaseProductName));
+            } catch (MetaDataAccessException e) {
+                log.warn("No se pudo identificar la base de datos: {}", e.getMessage());
+                return false;
+            }
+        }
+        return postgres;
+    }
+}
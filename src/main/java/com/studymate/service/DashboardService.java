@@ -0,0 +1,82 @@
+package com.studymate.service;
+
+import com.studymate.dto.DashboardDTO;
+import com.studymate.dto.ResumenMateriaDTO;
+import com.studymate.dto.TareaResumenDTO;
+import com.studymate.repository.MateriaRepository;
+import com.studymate.repository.NotaRepository;
+import com.studymate.repository.TareaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio del panel principal. Calcula los conteos con consultas agregadas (GROUP BY)
+ * en lugar de cargar todas las tareas y notas del usuario.
+ */
+@Service
+@RequiredArgsConstructor
+public class DashboardService {
+
+    private static final int PROXIMAS_ENTREGAS = 5;
+
+    private final MateriaRepository materiaRepository;
+    private final TareaRepository tareaRepository;
+    private final NotaRepository notaRepository;
+
+    /**
+     * Obtiene el panel principal del usuario
+     * 
+     * @param usuarioId ID del usuario
+     * @return Conteos por materia, totales, próximas entregas y tareas urgentes
+     */
+    @Transactional(readOnly = true)
+    public DashboardDTO obtenerDashboard(Long usuarioId) {
+        LocalDateTime ahora = LocalDateTime.now();
+
+        // Las materias sin tareas ni notas también aparecen, con los conteos a cero
+        Map<Long, ResumenMateriaDTO> porMateria = new LinkedHashMap<>();
+        for (ResumenMateriaDTO materia : materiaRepository.findResumenByUsuarioId(usuarioId)) {
+            porMateria.put(materia.getMateriaId(), materia);
+        }
+        ResumenMateriaDTO generales = new ResumenMateriaDTO(null, "General", null, 0, 0, 0, 0);
+
+        for (TareaRepository.ConteoPorMateria conteo : tareaRepository.contarPorMateria(usuarioId, ahora)) {
+            ResumenMateriaDTO fila = porMateria.getOrDefault(conteo.getMateriaId(), generales);
+            fila.setTareasPendientes(valor(conteo.getPendientes()));
+            fila.setTareasCompletadas(valor(conteo.getCompletadas()));
+            fila.setTareasVencidas(valor(conteo.getVencidas()));
+        }
+        for (NotaRepository.ConteoPorMateria conteo : notaRepository.contarPorMateria(usuarioId)) {
+            porMateria.getOrDefault(conteo.getMateriaId(), generales).setNotas(valor(conteo.getNotas()));
+        }
+
+        List<ResumenMateriaDTO> materias = new ArrayList<>(porMateria.values());
+        if (generales.getTareasPendientes() + generales.getTareasCompletadas() + generales.getNotas() > 0) {
+            materias.add(generales);
+        }
+
+        List<TareaResumenDTO> proximasEntregas = tareaRepository.findProximasEntregas(usuarioId, ahora,
+                Limit.of(PROXIMAS_ENTREGAS));
+        List<TareaResumenDTO> urgentes = tareaRepository.findResumenUrgentes(usuarioId,
+                ahora.plusDays(TareaService.DIAS_URGENCIA));
+
+        return new DashboardDTO(materias,
+                materias.stream().mapToLong(ResumenMateriaDTO::getTareasPendientes).sum(),
+                materias.stream().mapToLong(ResumenMateriaDTO::getTareasCompletadas).sum(),
+                materias.stream().mapToLong(ResumenMateriaDTO::getTareasVencidas).sum(),
+                materias.stream().mapToLong(ResumenMateriaDTO::getNotas).sum(),
+                proximasEntregas, urgentes);
+    }
+
+    private long valor(Long conteo) {
+        return conteo != null ? conteo : 0;
+    }
+}
@@ -0,0 +1,481 @@
+package com.studymate.service;
+
+import com.studymate.config.EscrituraDiferidaNotasConfig;
+import com.studymate.model.Materia;
+import com.studymate.model.Nota;
+import com.studymate.model.OperacionCambio;
+import com.studymate.model.TipoEntidad;
+import com.studymate.repository.NotaRepository;
+import com.studymate.util.ContextoUsuario;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Escritura diferida de las notas. El autoguardado envía una modificación por cada ráfaga de
+ * tecleo; en lugar de un UPDATE por cada una, el estado de la nota se acumula en memoria y se
+ * escribe una sola vez cuando deja de editarse durante la ventana configurada o lleva demasiado
+ * tiempo pendiente. También se escribe antes de cualquier lectura de las notas del usuario, al
+ * superarse el límite de memoria y al parar. El UPDATE comprueba la versión en la que se basa lo
+ * acumulado: si la nota se ha modificado en otro nodo entretanto, lo pendiente se descarta en
+ * lugar de pisarla. Si falla por cualquier otro motivo la nota sigue pendiente y se reintenta.
+ * Todas las escrituras ocurren fuera de las transacciones de los llamantes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EscrituraDiferidaNotasService {
+
+    private final NotaRepository notaRepository;
+    private final VersionColeccionesService versionColecciones;
+    private final EventosService eventosService;
+    private final EscrituraDiferidaNotasConfig config;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Estado de una nota tal como lo ven los clientes; la versión cuenta también las
+     * modificaciones que aún no se han escrito
+     */
+    public record Estado(String titulo, String contenido, Materia materia, long version,
+            LocalDateTime fechaCreacion, LocalDateTime fechaModificacion) {
+
+        public static Estado de(Nota nota) {
+            return new Estado(nota.getTitulo(), nota.getContenido(), nota.getMateria(), nota.getVersion(),
+                    nota.getFechaCreacion(), nota.getFechaModificacion());
+        }
+
+        public Long materiaId() {
+            return materia == null ? null : materia.getId();
+        }
+
+        /**
+         * Mismo estado con otro título y contenido
+         */
+        public Estado conTexto(String titulo, String contenido) {
+            return new Estado(titulo, contenido, materia, version, fechaCreacion, fechaModificacion);
+        }
+
+        /**
+         * Nota sin sesión con este estado, para las respuestas
+         */
+        public Nota aNota(Long id) {
+            Nota nota = new Nota();
+            nota.setId(id);
+            nota.setTitulo(titulo);
+            nota.setContenido(contenido);
+            nota.setMateria(materia);
+            nota.setVersion(version);
+            nota.setFechaCreacion(fechaCreacion);
+            nota.setFechaModificacion(fechaModificacion);
+            return nota;
+        }
+
+        // Aproximado: dos bytes por carácter
+        long bytes() {
+            return 2L * ((titulo == null ? 0 : titulo.length()) + (contenido == null ? 0 : contenido.length()));
+        }
+    }
+
+    // Por qué se escribe una nota pendiente; es la etiqueta de la métrica de volcados
+    private enum Motivo {
+        VENTANA, LECTURA, CAPACIDAD, PARADA
+    }
+
+    // Nota con modificaciones en memoria. Sin estado mientras quien la creó la carga de la base de datos
+    private static final class Pendiente {
+        private final Long notaId;
+        private final Long usuarioId;
+        private final long creadaMs = System.currentTimeMillis();
+        private long versionBase;
+        private Estado estado;
+        private long modificadaMs;
+        private int modificaciones;
+        private int fallos;
+        private boolean volcando;
+
+        Pendiente(Long notaId, Long usuarioId) {
+            this.notaId = notaId;
+            this.usuarioId = usuarioId;
+        }
+
+        // Otro hilo la está cargando o escribiendo: hay que esperar a que termine
+        boolean ocupada() {
+            return estado == null || volcando;
+        }
+    }
+
+    // Todo el estado se protege con el monitor del servicio; las notas en orden de llegada, la primera es la más antigua
+    private final Map<Long, Pendiente> pendientes = new LinkedHashMap<>();
+    private final Map<Long, Set<Long>> porUsuario = new HashMap<>();
+    private long bytesPendientes;
+
+    private Counter diferidas;
+    private Counter coalescidas;
+    private Counter descartadas;
+    private Counter fallidos;
+    private final Map<Motivo, Counter> volcados = new EnumMap<>(Motivo.class);
+
+    @PostConstruct
+    void iniciar() {
+        // diferida: la nota pasa a estar pendiente; coalescida: se une a una pendiente, un UPDATE menos
+        String descripcion = "Modificaciones de notas acumuladas en memoria en lugar de escribirse";
+        diferidas = Counter.builder("studymate.notas.escrituras").tag("resultado", "diferida")
+                .description(descripcion).register(meterRegistry);
+        coalescidas = Counter.builder("studymate.notas.escrituras").tag("resultado", "coalescida")
+                .description(descripcion).register(meterRegistry);
+        descartadas = Counter.builder("studymate.notas.volcados.descartados")
+                .description("Notas pendientes que no se escriben por haberse modificado o eliminado en otro nodo")
+                .register(meterRegistry);
+        fallidos = Counter.builder("studymate.notas.volcados.fallidos")
+                .description("Escrituras de notas pendientes que han fallado; la nota sigue pendiente y se reintenta")
+                .register(meterRegistry);
+        for (Motivo motivo : Motivo.values()) {
+            volcados.put(motivo, Counter.builder("studymate.notas.volcados")
+                    .tag("motivo", motivo.name().toLowerCase(Locale.ROOT))
+                    .description("Notas pendientes escritas en la base de datos")
+                    .register(meterRegistry));
+        }
+        Gauge.builder("studymate.notas.pendientes", this, EscrituraDiferidaNotasService::notasPendientes)
+                .description("Notas con modificaciones en memoria").register(meterRegistry);
+        Gauge.builder("studymate.notas.pendientes.bytes", this, EscrituraDiferidaNotasService::bytesPendientes)
+                .description("Tamaño aproximado de las notas pendientes").register(meterRegistry);
+    }
+
+    public boolean isHabilitada() {
+        return config.isHabilitado();
+    }
+
+    /**
+     * Aplica una modificación a una nota en memoria. Si la nota ya tiene modificaciones pendientes
+     * se aplica sobre ellas sin consultar la base de datos; si no, se carga con {@code cargar}.
+     *
+     * @param notaId    ID de la nota
+     * @param usuarioId ID del usuario propietario
+     * @param cargar    Carga el estado actual de la base de datos comprobando la propiedad
+     * @param cambio    Calcula el estado nuevo a partir del actual; devuelve el mismo si no hay
+     *                  cambios, o null si la modificación no se puede diferir
+     * @return Estado resultante, con la versión que verá el cliente, o null si la modificación no
+     *         se puede diferir: en ese caso lo pendiente ya está escrito y el llamante la aplica directamente
+     */
+    public Estado escribir(Long notaId, Long usuarioId, Supplier<Estado> cargar, UnaryOperator<Estado> cambio) {
+        comprobarSinTransaccion();
+        hacerSitio();
+        Pendiente pendiente;
+        synchronized (this) {
+            pendiente = esperarDisponible(notaId);
+            if (pendiente != null) {
+                if (!pendiente.usuarioId.equals(usuarioId)) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nota no encontrada");
+                }
+                Estado nuevo = cambio.apply(pendiente.estado);
+                if (nuevo == pendiente.estado) {
+                    return nuevo;
+                }
+                if (nuevo != null) {
+                    modificar(pendiente, nuevo);
+                    coalescidas.increment();
+                    return pendiente.estado;
+                }
+            } else {
+                // Reservada mientras se carga: otra modificación de la misma nota espera en lugar de cargarla también
+                pendiente = new Pendiente(notaId, usuarioId);
+                pendientes.put(notaId, pendiente);
+            }
+        }
+        if (pendiente.estado != null) {
+            // No diferible: lo pendiente se escribe antes para que el llamante parta de la base de datos
+            volcarYEsperar(List.of(pendiente), Motivo.LECTURA);
+            return null;
+        }
+
+        Estado cargado;
+        try {
+            cargado = cargar.get();
+        } catch (RuntimeException e) {
+            liberar(pendiente);
+            throw e;
+        }
+        synchronized (this) {
+            Estado nuevo;
+            try {
+                nuevo = cambio.apply(cargado);
+            } catch (RuntimeException e) {
+                liberar(pendiente);
+                throw e;
+            }
+            if (nuevo == null || nuevo == cargado) {
+                liberar(pendiente);
+                return nuevo;
+            }
+            pendiente.versionBase = cargado.version();
+            pendiente.estado = cargado;
+            bytesPendientes += cargado.bytes();
+            porUsuario.computeIfAbsent(usuarioId, id -> new HashSet<>()).add(notaId);
+            modificar(pendiente, nuevo);
+            diferidas.increment();
+            return pendiente.estado;
+        }
+    }
+
+    /**
+     * Escribe las modificaciones pendientes de una nota, esperando si ya se están escribiendo.
+     * Se llama antes de leerla o modificarla directamente en la base de datos, fuera de cualquier transacción.
+     *
+     * @throws ResponseStatusException 503 si no se han podido escribir; siguen pendientes
+     */
+    public void volcarNota(Long notaId) {
+        comprobarSinTransaccion();
+        Pendiente pendiente;
+        synchronized (this) {
+            pendiente = esperarDisponible(notaId);
+        }
+        if (pendiente != null) {
+            volcarYEsperar(List.of(pendiente), Motivo.LECTURA);
+        }
+    }
+
+    /**
+     * Escribe las modificaciones pendientes de todas las notas del usuario. Se llama antes de
+     * cualquier lectura de sus notas, fuera de cualquier transacción.
+     *
+     * @throws ResponseStatusException 503 si no se han podido escribir; siguen pendientes
+     */
+    public void volcarUsuario(Long usuarioId) {
+        comprobarSinTransaccion();
+        List<Pendiente> lista;
+        synchronized (this) {
+            Set<Long> ids = porUsuario.get(usuarioId);
+            if (ids == null) {
+                return;
+            }
+            lista = ids.stream().map(pendientes::get).toList();
+        }
+        volcarYEsperar(lista, Motivo.LECTURA);
+    }
+
+    /**
+     * Escribe las notas que llevan la ventana sin modificarse o han alcanzado el retraso máximo,
+     * y vuelve a intentar las que fallaron
+     */
+    @Scheduled(fixedDelayString = "${studymate.escritura-diferida-notas.intervalo-volcado-ms:500}")
+    public void volcarVencidas() {
+        long ahora = System.currentTimeMillis();
+        List<Pendiente> vencidas = new ArrayList<>();
+        synchronized (this) {
+            for (Pendiente pendiente : pendientes.values()) {
+                if (!pendiente.ocupada() && (pendiente.fallos > 0
+                        || ahora - pendiente.modificadaMs >= config.getVentanaMs()
+                        || ahora - pendiente.creadaMs >= config.getRetrasoMaximoMs())) {
+                    vencidas.add(pendiente);
+                }
+            }
+        }
+        for (Pendiente pendiente : vencidas) {
+            volcar(pendiente, Motivo.VENTANA, false);
+        }
+    }
+
+    /**
+     * Escribe todo lo pendiente antes de parar
+     */
+    @PreDestroy
+    void detener() {
+        List<Pendiente> todas;
+        synchronized (this) {
+            todas = pendientes.values().stream().filter(p -> p.estado != null).toList();
+        }
+        for (Pendiente pendiente : todas) {
+            if (!volcar(pendiente, Motivo.PARADA, true)) {
+                log.error("Nota {}: se pierden {} modificaciones sin escribir al parar", pendiente.notaId,
+                        pendiente.modificaciones);
+            }
+        }
+    }
+
+    public synchronized int notasPendientes() {
+        return pendientes.size();
+    }
+
+    public synchronized long bytesPendientes() {
+        return bytesPendientes;
+    }
+
+    private void modificar(Pendiente pendiente, Estado nuevo) {
+        bytesPendientes += nuevo.bytes() - pendiente.estado.bytes();
+        // Cada modificación cuenta como una versión, igual que si se hubiera escrito
+        pendiente.estado = new Estado(nuevo.titulo(), nuevo.contenido(), nuevo.materia(),
+                pendiente.estado.version() + 1, nuevo.fechaCreacion(), LocalDateTime.now());
+        pendiente.modificadaMs = System.currentTimeMillis();
+        pendiente.modificaciones++;
+    }
+
+    // Con el buffer lleno, quien modifica escribe antes las notas más antiguas. Si no se pueden
+    // escribir (base de datos caída) la modificación se rechaza: la memoria no crece sin límite
+    private void hacerSitio() {
+        List<Pendiente> excedente = new ArrayList<>();
+        synchronized (this) {
+            int notas = pendientes.size();
+            long bytes = bytesPendientes;
+            for (Pendiente antigua : pendientes.values()) {
+                if (notas < config.getMaxNotas() && bytes < config.getMaxBytes()) {
+                    break;
+                }
+                if (!antigua.ocupada()) {
+                    excedente.add(antigua);
+                    notas--;
+                    bytes -= antigua.estado.bytes();
+                }
+            }
+        }
+        for (Pendiente pendiente : excedente) {
+            volcar(pendiente, Motivo.CAPACIDAD, false);
+        }
+        synchronized (this) {
+            if (pendientes.size() > config.getMaxNotas() || bytesPendientes > config.getMaxBytes()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "No se pueden guardar más modificaciones de notas por ahora");
+            }
+        }
+    }
+
+    private void volcarYEsperar(Collection<Pendiente> lista, Motivo motivo) {
+        for (Pendiente pendiente : lista) {
+            if (!volcar(pendiente, motivo, true)) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "No se han podido guardar las modificaciones pendientes de la nota " + pendiente.notaId);
+            }
+        }
+    }
+
+    /**
+     * Escribe una nota pendiente en su propia transacción. Si la escritura falla la nota sigue
+     * pendiente, con sus modificaciones, y el planificador lo vuelve a intentar.
+     *
+     * @param esperarSiOcupada Si otro hilo la está escribiendo, esperar a que termine en lugar de volver
+     * @return false si la nota sigue pendiente porque la escritura ha fallado
+     */
+    private boolean volcar(Pendiente pendiente, Motivo motivo, boolean esperarSiOcupada) {
+        Estado estado;
+        synchronized (this) {
+            while (esperarSiOcupada && pendiente.volcando) {
+                esperar();
+            }
+            if (pendientes.get(pendiente.notaId) != pendiente) {
+                return true;
+            }
+            if (pendiente.ocupada()) {
+                return true;
+            }
+            pendiente.volcando = true;
+            estado = pendiente.estado;
+        }
+        // Abre la ventana de lectura propia del usuario aunque se escriba desde el planificador
+        Long usuarioPeticion = ContextoUsuario.actual();
+        ContextoUsuario.establecer(pendiente.usuarioId);
+        try {
+            boolean escrita = Boolean.TRUE.equals(
+                    transactionTemplate.execute(s -> escribirEnBaseDeDatos(pendiente, estado)));
+            liberar(pendiente);
+            volcados.get(motivo).increment();
+            if (!escrita) {
+                descartadas.increment();
+            }
+            return true;
+        } catch (RuntimeException e) {
+            fallidos.increment();
+            synchronized (this) {
+                pendiente.volcando = false;
+                pendiente.fallos++;
+                notifyAll();
+            }
+            log.warn("Error al escribir la nota {} (intento {}), sigue pendiente con {} modificaciones: {}",
+                    pendiente.notaId, pendiente.fallos, pendiente.modificaciones, e.getMessage());
+            return false;
+        } finally {
+            if (usuarioPeticion == null) {
+                ContextoUsuario.limpiar();
+            } else {
+                ContextoUsuario.establecer(usuarioPeticion);
+            }
+        }
+    }
+
+    private boolean escribirEnBaseDeDatos(Pendiente pendiente, Estado estado) {
+        // fecha_modificacion es la del UPDATE y no la de la última modificación: la sincronización
+        // incremental no debe recibir una fecha anterior a cursores que ya ha entregado
+        int filas = notaRepository.escribirDiferida(pendiente.notaId, estado.titulo(), estado.contenido(),
+                Nota.extraer(estado.contenido()), LocalDateTime.now(), estado.version(), pendiente.versionBase);
+        if (filas == 0) {
+            log.warn("Nota {} modificada en otro nodo o eliminada: se descartan {} modificaciones pendientes",
+                    pendiente.notaId, pendiente.modificaciones);
+            return false;
+        }
+        long version = versionColecciones.incrementar(pendiente.usuarioId);
+        eventosService.publicar(pendiente.usuarioId, TipoEntidad.NOTA, pendiente.notaId,
+                OperacionCambio.MODIFICACION, version);
+        return true;
+    }
+
+    // Dentro de una transacción, esperar a otra escritura o abrir la del volcado retendría dos
+    // conexiones del pool por petición: con varias a la vez el pool se agota
+    private void comprobarSinTransaccion() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Las notas pendientes se escriben fuera de cualquier transacción");
+        }
+    }
+
+    // Quita la nota y despierta a quien espere por ella
+    private synchronized void liberar(Pendiente pendiente) {
+        if (pendientes.remove(pendiente.notaId, pendiente) && pendiente.estado != null) {
+            bytesPendientes -= pendiente.estado.bytes();
+            Set<Long> ids = porUsuario.get(pendiente.usuarioId);
+            if (ids != null && ids.remove(pendiente.notaId) && ids.isEmpty()) {
+                porUsuario.remove(pendiente.usuarioId);
+            }
+        }
+        notifyAll();
+    }
+
+    // Con el monitor tomado: la nota pendiente una vez que nadie la carga ni la escribe, o null si no hay
+    private Pendiente esperarDisponible(Long notaId) {
+        Pendiente pendiente;
+        while ((pendiente = pendientes.get(notaId)) != null && pendiente.ocupada()) {
+            esperar();
+        }
+        return pendiente;
+    }
+
+    private void esperar() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando la escritura de una nota", e);
+        }
+    }
+}
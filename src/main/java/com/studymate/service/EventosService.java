@@ -0,0 +1,322 @@
+package com.studymate.service;
+
+import com.studymate.config.EventosConfig;
+import com.studymate.dto.EventoCambioDTO;
+import com.studymate.dto.RecordatorioDTO;
+import com.studymate.model.OperacionCambio;
+import com.studymate.model.TipoEntidad;
+import com.studymate.util.Transacciones;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Eventos en tiempo real por usuario mediante Server-Sent Events. Los servicios publican los
+ * cambios de tareas, notas y materias y se envían al confirmarse la transacción. Cada usuario
+ * tiene un registro corto de sus últimos eventos para que un cliente que se reconecta con
+ * Last-Event-ID reciba lo que se perdió; si ya no está en el registro recibe "reinicio" y debe
+ * sincronizar con /sync. Cada conexión tiene un buffer acotado: un cliente lento no retiene
+ * memoria ni hilos, se le cierra la conexión y reanuda desde su último evento.
+ * Los eventos son locales a este nodo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventosService {
+
+    public static final String EVENTO_CAMBIO = "cambio";
+    public static final String EVENTO_RECORDATORIO = "recordatorio";
+    public static final String EVENTO_REINICIO = "reinicio";
+    // Espera sugerida al cliente antes de reconectar
+    private static final long RECONEXION_MS = 3000;
+
+    private final EventosConfig config;
+
+    // Ids crecientes también entre reinicios: un Last-Event-ID anterior al arranque pide reinicio
+    private final AtomicLong secuencia = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final Map<Long, Registro> registros = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Conexion>> conexiones = new ConcurrentHashMap<>();
+    private final AtomicInteger totalConexiones = new AtomicInteger();
+    // Último id de los registros ya descartados por inactividad
+    private final AtomicLong olvidadoHasta = new AtomicLong(secuencia.get());
+    private ExecutorService envios;
+
+    // Evento ya numerado, tal como se guarda para reanudar
+    private record Evento(long id, String nombre, Object datos, long momento) {
+    }
+
+    // Últimos eventos de un usuario; se modifica con su propio monitor
+    private static final class Registro {
+        private final ArrayDeque<Evento> eventos = new ArrayDeque<>();
+        // Los eventos con id hasta este ya no se pueden repetir
+        private long descartadoHasta;
+        private boolean eliminado;
+
+        Registro(long descartadoHasta) {
+            this.descartadoHasta = descartadoHasta;
+        }
+
+        void descartarPrimero() {
+            descartadoHasta = eventos.removeFirst().id();
+        }
+    }
+
+    private static final class Conexion {
+        private final Long usuarioId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pendientes;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private final AtomicBoolean cerrada = new AtomicBoolean();
+
+        Conexion(Long usuarioId, SseEmitter emitter, int capacidad) {
+            this.usuarioId = usuarioId;
+            this.emitter = emitter;
+            this.pendientes = new ArrayBlockingQueue<>(capacidad);
+        }
+    }
+
+    @PostConstruct
+    void iniciar() {
+        AtomicInteger hilos = new AtomicInteger();
+        envios = Executors.newFixedThreadPool(config.getHilosEnvio(), tarea -> {
+            Thread hilo = new Thread(tarea, "eventos-envio-" + hilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @PreDestroy
+    void detener() {
+        conexiones.values().forEach(delUsuario -> delUsuario.forEach(this::cerrar));
+        envios.shutdown();
+    }
+
+    /**
+     * Abre el canal de eventos de un usuario, reanudando desde el último evento que recibió
+     *
+     * @param usuarioId    ID del usuario
+     * @param ultimoEvento Cabecera Last-Event-ID, null en la primera conexión
+     * @param timeoutMs    Duración máxima de la conexión
+     * @return Emisor de la respuesta
+     * @throws ResponseStatusException 503 si el nodo está lleno, 429 si el usuario tiene demasiadas conexiones
+     */
+    public SseEmitter conectar(Long usuarioId, String ultimoEvento, long timeoutMs) {
+        if (totalConexiones.incrementAndGet() > config.getMaxConexiones()) {
+            totalConexiones.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Demasiadas conexiones de eventos");
+        }
+        Conexion conexion = new Conexion(usuarioId, new SseEmitter(timeoutMs), config.getCapacidadBuffer());
+        conexion.emitter.onCompletion(() -> quitar(conexion));
+        conexion.emitter.onTimeout(() -> cerrar(conexion));
+        conexion.emitter.onError(e -> quitar(conexion));
+
+        Long ultimoId = ultimoEvento == null || ultimoEvento.isBlank() ? null : parsearId(ultimoEvento);
+        conRegistro(usuarioId, registro -> {
+            Set<Conexion> delUsuario = conexiones.computeIfAbsent(usuarioId, id -> ConcurrentHashMap.newKeySet());
+            if (delUsuario.size() >= config.getMaxConexionesPorUsuario()) {
+                totalConexiones.decrementAndGet();
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Demasiadas conexiones de eventos abiertas");
+            }
+            delUsuario.add(conexion);
+            // Primer envío: confirma la conexión a los proxies e indica la espera de reconexión
+            encolar(conexion, SseEmitter.event().comment("conectado").reconnectTime(RECONEXION_MS));
+            if (ultimoId == null) {
+                return;
+            }
+            // Bajo el monitor del registro: ningún evento nuevo se cuela entre la repetición y los siguientes
+            List<Evento> perdidos = registro.eventos.stream().filter(e -> e.id() > ultimoId).toList();
+            // Si no caben en el buffer es más barato que el cliente sincronice que repetirlos
+            if (ultimoId < registro.descartadoHasta || perdidos.size() >= config.getCapacidadBuffer() - 1) {
+                encolar(conexion, SseEmitter.event().name(EVENTO_REINICIO).data("{}", MediaType.APPLICATION_JSON));
+            } else {
+                perdidos.forEach(e -> encolar(conexion, construir(e)));
+            }
+        });
+        return conexion.emitter;
+    }
+
+    /**
+     * Publica al confirmar la transacción el cambio de una entidad del usuario
+     */
+    public void publicar(Long usuarioId, TipoEntidad tipo, Long id, OperacionCambio operacion, long version) {
+        publicar(usuarioId, tipo, List.of(id), operacion, version);
+    }
+
+    /**
+     * Publica al confirmar la transacción el mismo cambio en varias entidades del usuario
+     */
+    public void publicar(Long usuarioId, TipoEntidad tipo, Collection<Long> ids, OperacionCambio operacion,
+            long version) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> copia = List.copyOf(ids);
+        Transacciones.despuesDelCommit(() -> conRegistro(usuarioId, registro -> {
+            for (Long id : copia) {
+                emitir(usuarioId, registro, EVENTO_CAMBIO, new EventoCambioDTO(tipo, id, operacion, version));
+            }
+        }));
+    }
+
+    /**
+     * Envía un recordatorio de fecha límite a las conexiones del usuario
+     */
+    public void enviarRecordatorio(RecordatorioDTO recordatorio) {
+        conRegistro(recordatorio.getUsuarioId(),
+                registro -> emitir(recordatorio.getUsuarioId(), registro, EVENTO_RECORDATORIO, recordatorio));
+    }
+
+    /**
+     * Conexiones abiertas en este nodo
+     */
+    public int conexionesAbiertas() {
+        return totalConexiones.get();
+    }
+
+    /**
+     * Latido para las conexiones inactivas y limpieza de los eventos caducados
+     */
+    @Scheduled(fixedRateString = "${studymate.eventos.heartbeat-ms:15000}")
+    public void latido() {
+        conexiones.values().forEach(delUsuario -> delUsuario.forEach(
+                conexion -> encolar(conexion, SseEmitter.event().comment("ping"))));
+
+        long caducidad = System.currentTimeMillis() - config.getRetencionRepeticionMs();
+        for (Long usuarioId : registros.keySet()) {
+            registros.computeIfPresent(usuarioId, (id, registro) -> {
+                synchronized (registro) {
+                    while (!registro.eventos.isEmpty() && registro.eventos.peekFirst().momento() < caducidad) {
+                        registro.descartarPrimero();
+                    }
+                    if (!registro.eventos.isEmpty() || conexiones.containsKey(id)) {
+                        return registro;
+                    }
+                    // Sin eventos ni conexiones: se elimina y se recuerda hasta dónde había llegado
+                    registro.eliminado = true;
+                    olvidadoHasta.accumulateAndGet(registro.descartadoHasta, Math::max);
+                    return null;
+                }
+            });
+        }
+    }
+
+    // Ejecuta la acción con el registro del usuario bloqueado, creándolo si no existe
+    private void conRegistro(Long usuarioId, Consumer<Registro> accion) {
+        while (true) {
+            Registro registro = registros.computeIfAbsent(usuarioId, id -> new Registro(olvidadoHasta.get()));
+            synchronized (registro) {
+                // La limpieza lo ha eliminado entre medias: se usa uno nuevo
+                if (!registro.eliminado) {
+                    accion.accept(registro);
+                    return;
+                }
+            }
+        }
+    }
+
+    // Numera el evento, lo guarda para reanudar y lo encola en las conexiones del usuario
+    private void emitir(Long usuarioId, Registro registro, String nombre, Object datos) {
+        Evento evento = new Evento(secuencia.incrementAndGet(), nombre, datos, System.currentTimeMillis());
+        registro.eventos.addLast(evento);
+        while (registro.eventos.size() > config.getEventosRepeticion()) {
+            registro.descartarPrimero();
+        }
+        Set<Conexion> delUsuario = conexiones.get(usuarioId);
+        if (delUsuario != null) {
+            delUsuario.forEach(conexion -> encolar(conexion, construir(evento)));
+        }
+    }
+
+    private SseEmitter.SseEventBuilder construir(Evento evento) {
+        return SseEmitter.event().id(String.valueOf(evento.id())).name(evento.nombre())
+                .data(evento.datos(), MediaType.APPLICATION_JSON);
+    }
+
+    // No bloquea: si el buffer está lleno el cliente va demasiado lento y se le cierra la conexión
+    private void encolar(Conexion conexion, SseEmitter.SseEventBuilder evento) {
+        if (conexion.cerrada.get()) {
+            return;
+        }
+        if (!conexion.pendientes.offer(evento)) {
+            log.debug("Conexión de eventos del usuario {} cerrada por buffer lleno", conexion.usuarioId);
+            cerrar(conexion);
+            return;
+        }
+        if (conexion.enviando.compareAndSet(false, true)) {
+            envios.execute(() -> drenar(conexion));
+        }
+    }
+
+    // Un solo hilo a la vez escribe en cada conexión, en el orden en que se encolaron los eventos
+    private void drenar(Conexion conexion) {
+        do {
+            try {
+                SseEmitter.SseEventBuilder evento;
+                while ((evento = conexion.pendientes.poll()) != null) {
+                    conexion.emitter.send(evento);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado
+                conexion.pendientes.clear();
+                cerrar(conexion);
+            } finally {
+                conexion.enviando.set(false);
+            }
+            // Lo encolado mientras se liberaba el envío lo recoge este mismo hilo
+        } while (!conexion.pendientes.isEmpty() && conexion.enviando.compareAndSet(false, true));
+    }
+
+    private void cerrar(Conexion conexion) {
+        if (conexion.cerrada.compareAndSet(false, true)) {
+            quitar(conexion);
+            try {
+                conexion.emitter.complete();
+            } catch (IllegalStateException e) {
+                // Ya completado
+            }
+        }
+    }
+
+    private void quitar(Conexion conexion) {
+        conexion.cerrada.set(true);
+        conexiones.computeIfPresent(conexion.usuarioId, (id, delUsuario) -> {
+            if (delUsuario.remove(conexion)) {
+                totalConexiones.decrementAndGet();
+            }
+            return delUsuario.isEmpty() ? null : delUsuario;
+        });
+    }
+
+    // Un Last-Event-ID que no es nuestro se trata como perdido: el cliente recibe reinicio
+    private long parsearId(String ultimoEvento) {
+        try {
+            return Long.parseLong(ultimoEvento.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
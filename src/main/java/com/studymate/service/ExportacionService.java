@@ -0,0 +1,98 @@
+package com.studymate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studymate.dto.NotaDetalleDTO;
+import com.studymate.dto.TareaResumenDTO;
+import com.studymate.repository.NotaRepository;
+import com.studymate.repository.TareaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exportación de los datos de un usuario en un ZIP: una nota en Markdown por fichero, agrupadas
+ * por materia, y las tareas en tareas.json. Se escribe a medida que se lee de la base de datos,
+ * así que la memoria no depende del número de notas.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportacionService {
+
+    // Carpeta de las notas sin materia
+    private static final String CARPETA_GENERALES = "General";
+    private static final int LONGITUD_MAXIMA_NOMBRE = 80;
+
+    private final NotaRepository notaRepository;
+    private final TareaRepository tareaRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Escribe el ZIP con las notas y tareas del usuario
+     *
+     * @param usuarioId ID del usuario
+     * @param salida    Flujo de la respuesta; no se cierra
+     */
+    @Transactional(readOnly = true)
+    public void exportarDatos(Long usuarioId, OutputStream salida) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(salida, StandardCharsets.UTF_8);
+        try (Stream<NotaDetalleDTO> notas = notaRepository.streamDetalleByUsuarioId(usuarioId)) {
+            for (Iterator<NotaDetalleDTO> it = notas.iterator(); it.hasNext();) {
+                NotaDetalleDTO nota = it.next();
+                zip.putNextEntry(new ZipEntry("notas/" + carpeta(nota) + "/" + nota.getId() + "-"
+                        + nombreFichero(nota.getTitulo()) + ".md"));
+                zip.write(markdown(nota).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+
+        zip.putNextEntry(new ZipEntry("tareas.json"));
+        // El generador escribe directamente en la entrada; no debe cerrar el ZIP al terminar
+        JsonGenerator json = objectMapper.createGenerator(zip).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.writeStartArray();
+        try (Stream<TareaResumenDTO> tareas = tareaRepository.streamResumenByUsuarioId(usuarioId)) {
+            for (Iterator<TareaResumenDTO> it = tareas.iterator(); it.hasNext();) {
+                json.writeObject(it.next());
+            }
+        }
+        json.writeEndArray();
+        json.close();
+        zip.closeEntry();
+        zip.finish();
+    }
+
+    private String markdown(NotaDetalleDTO nota) {
+        StringBuilder md = new StringBuilder();
+        md.append("# ").append(nota.getTitulo()).append("\n\n");
+        if (nota.getMateriaNombre() != null) {
+            md.append("- Materia: ").append(nota.getMateriaNombre()).append('\n');
+        }
+        md.append("- Creada: ").append(nota.getFechaCreacion()).append('\n');
+        md.append("- Modificada: ").append(nota.getFechaModificacion()).append("\n\n");
+        if (nota.getContenido() != null) {
+            md.append(nota.getContenido()).append('\n');
+        }
+        return md.toString();
+    }
+
+    private String carpeta(NotaDetalleDTO nota) {
+        return nota.getMateriaNombre() != null ? nombreFichero(nota.getMateriaNombre()) : CARPETA_GENERALES;
+    }
+
+    // Quitar los caracteres no válidos en nombres de fichero de los sistemas habituales
+    private String nombreFichero(String texto) {
+        String nombre = texto == null ? "" : texto.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").strip();
+        if (nombre.isEmpty() || nombre.chars().allMatch(c -> c == '.')) {
+            return "sin-titulo";
+        }
+        return nombre.length() > LONGITUD_MAXIMA_NOMBRE ? nombre.substring(0, LONGITUD_MAXIMA_NOMBRE) : nombre;
+    }
+}
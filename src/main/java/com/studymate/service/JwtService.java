@@ -19,13 +19,24 @@ public class JwtService {
     @Value("${jwt.secret:default-dev-secret}")
     private String secret;
 
-    @Value("${jwt.expiration:86400000}")
+    @Value("${jwt.expiration:900000}")
     private long expirationMs;
 
+    private static final String CLAIM_USUARIO_ID = "uid";
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
+    /**
+     * Extrae el id del usuario incluido en el token de acceso.
+     * Devuelve null para tokens emitidos antes de incluir este claim.
+     */
+    public Long extractUsuarioId(String token) {
+        Number usuarioId = extractClaim(token, claims -> claims.get(CLAIM_USUARIO_ID, Number.class));
+        return usuarioId != null ? usuarioId.longValue() : null;
+    }
+
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
@@ -35,6 +46,20 @@ public class JwtService {
         return generateToken(new HashMap<>(), username);
     }
 
+    /**
+     * Genera un token de acceso de corta duración que lleva el id del usuario,
+     * de modo que las peticiones autenticadas no necesitan consultar la base de datos
+     */
+    public String generateAccessToken(Long usuarioId, String username) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USUARIO_ID, usuarioId);
+        return generateToken(claims, username);
+    }
+
+    public long getExpirationMs() {
+        return expirationMs;
+    }
+
     public String generateToken(Map<String, Object> extraClaims, String username) {
         return Jwts
                 .builder()
@@ -55,6 +80,17 @@ public class JwtService {
         }
     }
 
+    /**
+     * Valida firma y expiración sin consultar el estado del usuario
+     */
+    public boolean isTokenValid(String token) {
+        try {
+            return extractUsername(token) != null && !isTokenExpired(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
     private boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
@@ -1,16 +1,33 @@
 package com.studymate.service;
 
+import com.studymate.config.PaginacionConfig;
+import com.studymate.dto.PaginaDTO;
 import com.studymate.dto.MateriaDTO;
 import com.studymate.model.Materia;
+import com.studymate.model.ModoEliminacionMateria;
+import com.studymate.model.OperacionCambio;
+import com.studymate.model.TipoEntidad;
 import com.studymate.model.Usuario;
 import com.studymate.repository.MateriaRepository;
+import com.studymate.repository.NotaRepository;
+import com.studymate.repository.TareaRepository;
+import com.studymate.util.Cursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 /**
  * Servicio para manejar las operaciones relacionadas con las materias
@@ -19,8 +36,20 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class MateriaService {
 
+    // Tareas o notas que se eliminan o desvinculan por transacción al eliminar una materia
+    private static final int TAMANO_LOTE_ELIMINACION = 1000;
+
     private final MateriaRepository materiaRepository;
+    private final TareaRepository tareaRepository;
+    private final NotaRepository notaRepository;
+    private final TransactionTemplate transactionTemplate;
     private final UsuarioService usuarioService;
+    private final PaginacionConfig paginacionConfig;
+    private final SugerenciasService sugerenciasService;
+    private final VersionColeccionesService versionColecciones;
+    private final SincronizacionService sincronizacionService;
+    private final RecordatoriosService recordatoriosService;
+    private final EventosService eventosService;
 
     /**
      * Crea una nueva materia para un usuario
@@ -29,6 +58,7 @@ public class MateriaService {
      * @param usuarioId  ID del usuario propietario
      * @return Materia creada
      */
+    @Transactional
     public Materia crearMateria(MateriaDTO materiaDTO, Long usuarioId) {
         // Verificar que el usuario existe
         Usuario usuario = usuarioService.buscarPorId(usuarioId)
@@ -45,7 +75,11 @@ public class MateriaService {
         if (materia.getColor() == null || materia.getColor().isBlank()) {
             materia.setColor("#007bff");
         }
-        return materiaRepository.save(materia);
+        Materia guardada = materiaRepository.save(materia);
+        sugerenciasService.materiaGuardada(usuarioId, guardada.getId(), guardada.getNombre());
+        long version = versionColecciones.incrementar(usuarioId);
+        eventosService.publicar(usuarioId, TipoEntidad.MATERIA, guardada.getId(), OperacionCambio.CREACION, version);
+        return guardada;
     }
 
     /**
@@ -54,30 +88,87 @@ public class MateriaService {
      * @param id ID de la materia
      * @return Optional con la materia si existe
      */
+    @Transactional(readOnly = true)
     public Optional<Materia> buscarPorId(Long id) {
         return materiaRepository.findById(id);
     }
 
+    /**
+     * Filtra los ids de materia que pertenecen al usuario, con una sola consulta
+     * 
+     * @param usuarioId ID del usuario
+     * @param ids       Ids de materia a comprobar
+     * @return Ids que existen y son del usuario
+     */
+    @Transactional(readOnly = true)
+    public Set<Long> filtrarPropias(Long usuarioId, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(materiaRepository.findIdsByUsuarioIdAndIdIn(usuarioId, ids));
+    }
+
+    /**
+     * Referencia a una materia sin cargarla, para asociarla a otra entidad
+     * 
+     * @param id ID de la materia
+     * @return Proxy de la materia
+     */
+    @Transactional(readOnly = true)
+    public Materia referencia(Long id) {
+        return materiaRepository.getReferenceById(id);
+    }
+
     /**
      * Busca todas las materias de un usuario
      * 
      * @param usuarioId ID del usuario
      * @return Lista de materias del usuario
      */
+    @Transactional(readOnly = true)
     public List<Materia> buscarPorUsuario(Long usuarioId) {
         return materiaRepository.findByUsuarioId(usuarioId);
     }
 
+    /**
+     * Busca una página de materias de un usuario ordenadas por fecha de creación descendente
+     * 
+     * @param usuarioId ID del usuario
+     * @param cursor    Cursor devuelto por la página anterior, null para la primera
+     * @param tamano    Tamaño de página solicitado
+     * @return Página de materias con el cursor de la siguiente
+     */
+    @Transactional(readOnly = true)
+    public PaginaDTO<Materia> buscarPaginaPorUsuario(Long usuarioId, String cursor, Integer tamano) {
+        int tamanoPagina = paginacionConfig.resolverTamano(tamano);
+        Limit limite = Limit.of(tamanoPagina + 1);
+        List<Materia> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = materiaRepository.findPrimeraPagina(usuarioId, limite);
+        } else {
+            Cursor posicion = Cursor.decodificar(cursor);
+            filas = materiaRepository.findPaginaDespuesDe(usuarioId, posicion.getFecha(), posicion.getId(), limite);
+        }
+        return PaginaDTO.desdeFilas(filas, tamanoPagina, f -> Cursor.codificar(f.getFechaCreacion(), f.getId()));
+    }
+
     /**
      * Actualiza una materia existente
      * 
      * @param materiaDTO Datos actualizados de la materia
      * @return Materia actualizada
      */
+    @Transactional
     public Materia actualizarMateria(MateriaDTO materiaDTO) {
         Materia existente = materiaRepository.findById(materiaDTO.getId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Materia no encontrada"));
 
+        // El nombre es único por usuario (uk_materias_usuario_nombre)
+        if (materiaRepository.existsByNombreAndUsuarioIdAndIdNot(materiaDTO.getNombre(),
+                existente.getUsuario().getId(), existente.getId())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Ya existe una materia con ese nombre");
+        }
+
         // Actualizar solo campos editables, preservar el usuario y demás relaciones
         existente.setNombre(materiaDTO.getNombre());
         existente.setCodigo(materiaDTO.getCodigo());
@@ -88,25 +179,74 @@ public class MateriaService {
         existente.setHorario(materiaDTO.getHorario());
         existente.setActiva(materiaDTO.getActiva() != null ? materiaDTO.getActiva() : true);
 
-        return materiaRepository.save(existente);
+        Materia guardada = materiaRepository.save(existente);
+        sugerenciasService.materiaGuardada(guardada.getUsuario().getId(), guardada.getId(), guardada.getNombre());
+        // Las tareas y notas de la materia muestran su nombre
+        Long usuarioId = guardada.getUsuario().getId();
+        long version = versionColecciones.incrementar(usuarioId);
+        eventosService.publicar(usuarioId, TipoEntidad.MATERIA, guardada.getId(), OperacionCambio.MODIFICACION,
+                version);
+        return guardada;
     }
 
     /**
-     * Elimina una materia
+     * Elimina una materia. Sus tareas y notas se eliminan o se dejan como generales según el modo,
+     * con sentencias por lotes de ids y una transacción por lote, sin cargarlas en memoria.
+     * Sin @Transactional: cada lote confirma por separado para no retener bloqueos en materias grandes.
      * 
      * @param id        ID de la materia a eliminar
      * @param usuarioId ID del usuario propietario
+     * @param modo      Qué hacer con las tareas y notas de la materia
      */
-    public void eliminarMateria(Long id, Long usuarioId) {
-        Materia materia = materiaRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Materia no encontrada"));
+    public void eliminarMateria(Long id, Long usuarioId, ModoEliminacionMateria modo) {
+        // Una materia de otro usuario se trata como inexistente
+        if (!materiaRepository.existsByIdAndUsuarioId(id, usuarioId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Materia no encontrada");
+        }
 
-        // Verificar que la materia pertenece al usuario
-        if (!materia.getUsuario().getId().equals(usuarioId)) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No tienes permisos para eliminar esta materia");
+        if (modo == ModoEliminacionMateria.DESVINCULAR) {
+            procesarEnLotes(lote -> tareaRepository.findIdsByMateriaId(id, lote),
+                    ids -> tareaRepository.desvincularMateria(ids, LocalDateTime.now()));
+            procesarEnLotes(lote -> notaRepository.findIdsByMateriaId(id, lote),
+                    ids -> notaRepository.desvincularMateria(ids, LocalDateTime.now()));
+        } else {
+            procesarEnLotes(lote -> tareaRepository.findIdsByMateriaId(id, lote), ids -> {
+                sincronizacionService.registrarTareasEliminadas(ids);
+                recordatoriosService.tareasCanceladas(ids);
+                return tareaRepository.eliminarPorIds(ids);
+            });
+            procesarEnLotes(lote -> notaRepository.findIdsByMateriaId(id, lote), ids -> {
+                sincronizacionService.registrarNotasEliminadas(ids);
+                return notaRepository.eliminarPorIds(ids);
+            });
         }
 
-        materiaRepository.delete(materia);
+        // Lo que se haya añadido a la materia entre tanto queda como general (ON DELETE SET NULL)
+        transactionTemplate.executeWithoutResult(estado -> {
+            materiaRepository.deleteById(id);
+            sincronizacionService.registrarEliminacion(usuarioId, TipoEntidad.MATERIA, id);
+            sugerenciasService.materiaEliminada(usuarioId, id);
+            // Un solo evento: el cliente recarga las tareas y notas de la materia eliminada
+            long version = versionColecciones.incrementar(usuarioId);
+            eventosService.publicar(usuarioId, TipoEntidad.MATERIA, id, OperacionCambio.ELIMINACION, version);
+        });
+    }
+
+    /**
+     * Repite buscar ids y aplicar la sentencia, en una transacción por lote, hasta que el lote venga incompleto
+     */
+    private void procesarEnLotes(Function<Limit, List<Long>> buscarIds, ToIntFunction<List<Long>> sentencia) {
+        Limit lote = Limit.of(TAMANO_LOTE_ELIMINACION);
+        int encontradas;
+        do {
+            encontradas = transactionTemplate.execute(estado -> {
+                List<Long> ids = buscarIds.apply(lote);
+                if (!ids.isEmpty()) {
+                    sentencia.applyAsInt(ids);
+                }
+                return ids.size();
+            });
+        } while (encontradas == TAMANO_LOTE_ELIMINACION);
     }
 
     /**
@@ -1,14 +1,43 @@
 package com.studymate.service;
 
+import com.studymate.config.PaginacionConfig;
+import com.studymate.dto.NotaBusquedaDTO;
+import com.studymate.dto.NotaDeltaDTO;
+import com.studymate.dto.NotaDetalleDTO;
+import com.studymate.dto.PaginaDTO;
+import com.studymate.dto.ResultadoLoteDTO;
+import com.studymate.dto.NotaResumenDTO;
+import com.studymate.dto.OperacionTextoDTO;
+import com.studymate.exception.ConflictoVersionException;
 import com.studymate.model.Nota;
 import com.studymate.model.Usuario;
-import com.studymate.model.Materia;
+import com.studymate.model.OperacionCambio;
+import com.studymate.model.TipoEntidad;
 import com.studymate.repository.NotaRepository;
+import com.studymate.util.Cursor;
+import com.studymate.util.Lotes;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.HtmlUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Servicio para manejar las operaciones relacionadas con las notas
@@ -18,8 +47,28 @@ import java.util.Optional;
 public class NotaService {
 
     private final NotaRepository notaRepository;
-    private final UsuarioService usuarioService;
     private final MateriaService materiaService;
+    private final VerificadorPropiedad verificadorPropiedad;
+    private final PaginacionConfig paginacionConfig;
+    private final SugerenciasService sugerenciasService;
+    private final VersionColeccionesService versionColecciones;
+    private final EventosService eventosService;
+    private final SincronizacionService sincronizacionService;
+    private final EscrituraDiferidaNotasService escrituraDiferida;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+
+    private static final int LONGITUD_FRAGMENTO = 160;
+    // ts_headline marca las coincidencias con estos caracteres de control; se cambian por <mark> tras escapar el HTML
+    private static final String INICIO_COINCIDENCIA = "\u0002";
+    private static final String FIN_COINCIDENCIA = "\u0003";
+    private static final String OPCIONES_FRAGMENTO = "StartSel=" + INICIO_COINCIDENCIA + ", StopSel="
+            + FIN_COINCIDENCIA + ", MaxFragments=2, MaxWords=25, MinWords=8";
+    // Un autoguardado con más operaciones que esto es casi una nota nueva
+    private static final int MAX_OPERACIONES_TEXTO = 1000;
+
+    @Value("${studymate.busqueda.texto-completo:true}")
+    private boolean busquedaTextoCompleto;
 
     /**
      * Crea una nueva nota para un usuario
@@ -28,9 +77,74 @@ public class NotaService {
      * @param usuarioId ID del usuario propietario
      * @return Nota creada
      */
+    @Transactional
     public Nota crearNota(Nota nota, Long usuarioId) {
         configurarNota(nota, usuarioId);
-        return notaRepository.save(nota);
+        Nota guardada = notaRepository.save(nota);
+        sugerenciasService.notaGuardada(usuarioId, guardada.getId(), guardada.getTitulo());
+        long version = versionColecciones.incrementar(usuarioId);
+        eventosService.publicar(usuarioId, TipoEntidad.NOTA, guardada.getId(), OperacionCambio.CREACION, version);
+        return guardada;
+    }
+
+    /**
+     * Crea varias notas en una sola transacción. Cada nota se valida por separado:
+     * las válidas se insertan en lotes JDBC y las inválidas se devuelven con su error.
+     * 
+     * @param notas     Notas a crear
+     * @param usuarioId ID del usuario propietario
+     * @return Resultado de cada nota en el orden de la petición
+     */
+    @Transactional
+    public List<ResultadoLoteDTO> crearNotas(List<Nota> notas, Long usuarioId) {
+        Lotes.validarTamano(notas);
+        Usuario usuario = verificadorPropiedad.usuario(usuarioId);
+
+        // Una sola consulta para comprobar todas las materias referenciadas
+        Set<Long> materiasPropias = materiaService.filtrarPropias(usuarioId, notas.stream()
+                .filter(n -> n != null && n.getMateria() != null && n.getMateria().getId() != null)
+                .map(n -> n.getMateria().getId())
+                .collect(Collectors.toSet()));
+
+        List<ResultadoLoteDTO> resultados = new ArrayList<>(notas.size());
+        List<Nota> validas = new ArrayList<>(notas.size());
+        for (int i = 0; i < notas.size(); i++) {
+            Nota nota = notas.get(i);
+            String error = Lotes.validarElemento(validator, nota);
+            if (error == null && nota.getMateria() != null && nota.getMateria().getId() != null
+                    && !materiasPropias.contains(nota.getMateria().getId())) {
+                error = "Materia no encontrada";
+            }
+            if (error != null) {
+                resultados.add(ResultadoLoteDTO.error(i, null, error));
+                continue;
+            }
+            nota.setId(null);
+            nota.setUsuario(usuario);
+            nota.setMateria(nota.getMateria() != null && nota.getMateria().getId() != null
+                    ? materiaService.referencia(nota.getMateria().getId())
+                    : null);
+            validas.add(nota);
+            resultados.add(null);
+        }
+
+        notaRepository.saveAll(validas);
+        if (!validas.isEmpty()) {
+            long version = versionColecciones.incrementar(usuarioId);
+            eventosService.publicar(usuarioId, TipoEntidad.NOTA, validas.stream().map(Nota::getId).toList(),
+                    OperacionCambio.CREACION, version);
+        }
+
+        // Completar los huecos con los ids asignados, en el mismo orden
+        int siguiente = 0;
+        for (int i = 0; i < resultados.size(); i++) {
+            if (resultados.get(i) == null) {
+                Nota guardada = validas.get(siguiente++);
+                sugerenciasService.notaGuardada(usuarioId, guardada.getId(), guardada.getTitulo());
+                resultados.set(i, ResultadoLoteDTO.ok(i, guardada.getId()));
+            }
+        }
+        return resultados;
     }
 
     /**
@@ -39,18 +153,54 @@ public class NotaService {
      * @param id ID de la nota
      * @return Optional con la nota si existe
      */
+    @Transactional(readOnly = true)
     public Optional<Nota> buscarPorId(Long id) {
-        return notaRepository.findById(id);
+        return notaRepository.findConMateriaById(id);
+    }
+
+    /**
+     * Obtiene una nota completa, con su contenido, si pertenece al usuario
+     * 
+     * @param id        ID de la nota
+     * @param usuarioId ID del usuario
+     * @return Optional con la nota si existe y es del usuario
+     */
+    @Transactional(readOnly = true)
+    public Optional<NotaDetalleDTO> buscarDetalle(Long id, Long usuarioId) {
+        return notaRepository.findDetalleByIdAndUsuarioId(id, usuarioId);
     }
 
     /**
      * Busca todas las notas de un usuario
      * 
      * @param usuarioId ID del usuario
-     * @return Lista de notas del usuario
+     * @return Resumen de las notas del usuario
+     */
+    @Transactional(readOnly = true)
+    public List<NotaResumenDTO> buscarPorUsuario(Long usuarioId) {
+        return notaRepository.findResumenByUsuarioId(usuarioId);
+    }
+
+    /**
+     * Busca una página de notas de un usuario ordenadas por fecha de creación descendente
+     * 
+     * @param usuarioId ID del usuario
+     * @param cursor    Cursor devuelto por la página anterior, null para la primera
+     * @param tamano    Tamaño de página solicitado
+     * @return Página de notas con el cursor de la siguiente
      */
-    public List<Nota> buscarPorUsuario(Long usuarioId) {
-        return notaRepository.findByUsuarioId(usuarioId);
+    @Transactional(readOnly = true)
+    public PaginaDTO<NotaResumenDTO> buscarPaginaPorUsuario(Long usuarioId, String cursor, Integer tamano) {
+        int tamanoPagina = paginacionConfig.resolverTamano(tamano);
+        Limit limite = Limit.of(tamanoPagina + 1);
+        List<NotaResumenDTO> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = notaRepository.findPrimeraPagina(usuarioId, limite);
+        } else {
+            Cursor posicion = Cursor.decodificar(cursor);
+            filas = notaRepository.findPaginaDespuesDe(usuarioId, posicion.getFecha(), posicion.getId(), limite);
+        }
+        return PaginaDTO.desdeFilas(filas, tamanoPagina, f -> Cursor.codificar(f.getFechaCreacion(), f.getId()));
     }
 
     /**
@@ -60,6 +210,7 @@ public class NotaService {
      * @param usuarioId ID del usuario
      * @return Lista de notas de la materia
      */
+    @Transactional(readOnly = true)
     public List<Nota> buscarPorMateria(Long materiaId, Long usuarioId) {
         return notaRepository.findByMateriaIdAndUsuarioId(materiaId, usuarioId);
     }
@@ -70,19 +221,91 @@ public class NotaService {
      * @param usuarioId ID del usuario
      * @return Lista de notas generales
      */
+    @Transactional(readOnly = true)
     public List<Nota> buscarNotasGenerales(Long usuarioId) {
         return notaRepository.findByUsuarioIdAndMateriaIsNull(usuarioId);
     }
 
     /**
-     * Busca notas por título
+     * Busca notas por texto en título y contenido, ordenadas por relevancia.
+     * En PostgreSQL usa la columna tsvector con índice GIN; en otras bases de datos
+     * (H2 en los tests) recurre a una búsqueda por coincidencia de texto.
      * 
      * @param usuarioId ID del usuario
-     * @param titulo    Título a buscar
-     * @return Lista de notas que coinciden
+     * @param texto     Texto a buscar
+     * @param pagina    Número de página empezando en 0
+     * @param tamano    Tamaño de página solicitado
+     * @return Página de resultados; el cursor es el número de la siguiente página
      */
-    public List<Nota> buscarPorTitulo(Long usuarioId, String titulo) {
-        return notaRepository.findByUsuarioIdAndTituloContainingIgnoreCase(usuarioId, titulo);
+    @Transactional(readOnly = true)
+    public PaginaDTO<NotaBusquedaDTO> buscarTexto(Long usuarioId, String texto, int pagina, Integer tamano) {
+        if (texto == null || texto.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El texto de búsqueda es obligatorio");
+        }
+        if (pagina < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La página no puede ser negativa");
+        }
+        int tamanoPagina = paginacionConfig.resolverTamano(tamano);
+        String consulta = texto.trim();
+        if (busquedaTextoCompleto) {
+            List<NotaBusquedaDTO> filas = notaRepository.buscarTextoCompleto(usuarioId, consulta,
+                    OPCIONES_FRAGMENTO, tamanoPagina + 1, (long) pagina * tamanoPagina).stream()
+                    .map(r -> new NotaBusquedaDTO(r.getId(), r.getTitulo(), marcarCoincidencias(r.getFragmento()),
+                            r.getMateriaId(), r.getMateriaNombre(), r.getRango(), r.getFechaModificacion()))
+                    .toList();
+            return PaginaDTO.desdeFilas(filas, tamanoPagina, f -> String.valueOf(pagina + 1));
+        } else {
+            String termino = consulta.toLowerCase(Locale.ROOT);
+            Slice<NotaBusquedaDTO> slice = notaRepository.buscarTextoBasico(usuarioId,
+                    "%" + escaparLike(termino) + "%", PageRequest.of(pagina, tamanoPagina));
+            slice.forEach(f -> f.setFragmento(resaltar(f.getFragmento(), termino)));
+            return new PaginaDTO<>(slice.getContent(), slice.hasNext() ? String.valueOf(pagina + 1) : null,
+                    slice.hasNext());
+        }
+    }
+
+    /**
+     * Recorta el contenido alrededor de la primera coincidencia y la marca con &lt;mark&gt;,
+     * imitando el fragmento que genera ts_headline en PostgreSQL. El contenido se escapa como HTML:
+     * las únicas etiquetas del fragmento son las de la marca
+     */
+    private String resaltar(String contenido, String termino) {
+        if (contenido == null || contenido.isEmpty()) {
+            return "";
+        }
+        int posicion = contenido.toLowerCase(Locale.ROOT).indexOf(termino);
+        if (posicion < 0) {
+            return escaparHtml(contenido.substring(0, Math.min(contenido.length(), LONGITUD_FRAGMENTO)));
+        }
+        int inicio = Math.max(0, posicion - LONGITUD_FRAGMENTO / 2);
+        int fin = Math.min(contenido.length(), posicion + termino.length() + LONGITUD_FRAGMENTO / 2);
+        return escaparHtml(contenido.substring(inicio, posicion))
+                + "<mark>" + escaparHtml(contenido.substring(posicion, posicion + termino.length())) + "</mark>"
+                + escaparHtml(contenido.substring(posicion + termino.length(), fin));
+    }
+
+    /**
+     * Escapa como HTML el fragmento de ts_headline y cambia sus delimitadores por &lt;mark&gt;
+     */
+    private static String marcarCoincidencias(String fragmento) {
+        if (fragmento == null) {
+            return "";
+        }
+        return escaparHtml(fragmento)
+                .replace(INICIO_COINCIDENCIA, "<mark>")
+                .replace(FIN_COINCIDENCIA, "</mark>");
+    }
+
+    private static String escaparHtml(String texto) {
+        // Con la codificación solo se escapan &lt; &gt; &amp; y las comillas, no las tildes
+        return HtmlUtils.htmlEscape(texto, StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * Escapa los comodines de LIKE para que el texto buscado coincida literalmente
+     */
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     /**
@@ -93,22 +316,170 @@ public class NotaService {
      * @return Nota actualizada
      */
     public Nota actualizarNota(Nota nota, Long usuarioId) {
-        // Obtener la nota existente para verificar permisos
-        Nota notaExistente = notaRepository.findById(nota.getId())
-                .orElseThrow(() -> new RuntimeException("Nota no encontrada"));
+        Long materiaId = nota.getMateria() != null ? nota.getMateria().getId() : null;
+        if (escrituraDiferida.isHabilitada()) {
+            // El autoguardado solo cambia título y contenido: se acumula en memoria. Cambiar la materia
+            // no se difiere y sigue por la escritura directa
+            EscrituraDiferidaNotasService.Estado estado = escrituraDiferida.escribir(nota.getId(), usuarioId,
+                    () -> transactionTemplate.execute(s -> cargarEstado(nota.getId(), usuarioId)),
+                    actual -> {
+                        if (!Objects.equals(materiaId, actual.materiaId())) {
+                            return null;
+                        }
+                        if (nota.getTitulo() != null && nota.getTitulo().length() > Nota.LONGITUD_TITULO) {
+                            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                    "El título admite " + Nota.LONGITUD_TITULO + " caracteres");
+                        }
+                        if (Objects.equals(nota.getTitulo(), actual.titulo())
+                                && Objects.equals(nota.getContenido(), actual.contenido())) {
+                            return actual;
+                        }
+                        return actual.conTexto(nota.getTitulo(), nota.getContenido());
+                    });
+            if (estado != null) {
+                sugerenciasService.notaGuardada(usuarioId, nota.getId(), estado.titulo());
+                return estado.aNota(nota.getId());
+            }
+        }
+        // La transacción se abre después: la escritura diferida puede tener que escribir y esperar
+        return transactionTemplate.execute(s -> actualizarEnBaseDeDatos(nota, materiaId, usuarioId));
+    }
+
+    private Nota actualizarEnBaseDeDatos(Nota nota, Long materiaId, Long usuarioId) {
+        // Una sola consulta comprueba la propiedad y carga la nota con su materia
+        Nota notaExistente = notaRepository.findConMateriaByIdAndUsuarioId(nota.getId(), usuarioId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nota no encontrada"));
 
-        // Verificar que la nota pertenece al usuario
-        if (!notaExistente.getUsuario().getId().equals(usuarioId)) {
-            throw new RuntimeException("No tienes permisos para editar esta nota");
+        // Solo se comprueba la materia si cambia
+        if (materiaId == null) {
+            notaExistente.setMateria(null);
+        } else if (notaExistente.getMateria() == null || !materiaId.equals(notaExistente.getMateria().getId())) {
+            notaExistente.setMateria(verificadorPropiedad.materiaInicializada(materiaId, usuarioId));
         }
 
-        // Configurar la nota con el usuario y materia correspondientes
-        configurarNota(nota, usuarioId);
+        // Actualizar solo campos editables; la fecha de creación se conserva. PUT no comprueba la versión
+        notaExistente.setTitulo(nota.getTitulo());
+        notaExistente.setContenido(nota.getContenido());
 
-        // Preservar campos que no deben cambiar
-        nota.setFechaCreacion(notaExistente.getFechaCreacion());
+        sugerenciasService.notaGuardada(usuarioId, notaExistente.getId(), notaExistente.getTitulo());
+        long version = versionColecciones.incrementar(usuarioId);
+        eventosService.publicar(usuarioId, TipoEntidad.NOTA, notaExistente.getId(), OperacionCambio.MODIFICACION,
+                version);
+        return notaExistente;
+    }
 
-        return notaRepository.save(nota);
+    /**
+     * Aplica un JSON Merge Patch (RFC 7386) a una nota. Admite titulo, contenido y materiaId;
+     * un campo ausente no cambia y materiaId null la deja como nota general.
+     * 
+     * @param id              ID de la nota
+     * @param usuarioId       ID del usuario propietario
+     * @param cambios         Documento del merge patch
+     * @param versionEsperada Versión en la que se basa el cliente, o null para no comprobarla
+     * @return Nota modificada, con su versión nueva
+     * @throws ConflictoVersionException si la nota ya no está en la versión esperada
+     */
+    public Nota aplicarMergePatch(Long id, Long usuarioId, Map<String, Object> cambios, Long versionEsperada) {
+        // Se aplica sobre la base de datos: antes, y fuera de la transacción, se escribe lo pendiente en memoria
+        escrituraDiferida.volcarNota(id);
+        return transactionTemplate.execute(s -> mergePatchEnBaseDeDatos(id, usuarioId, cambios, versionEsperada));
+    }
+
+    private Nota mergePatchEnBaseDeDatos(Long id, Long usuarioId, Map<String, Object> cambios, Long versionEsperada) {
+        Nota nota = notaRepository.findConMateriaByIdAndUsuarioId(id, usuarioId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nota no encontrada"));
+        comprobarVersion(nota.getVersion(), versionEsperada);
+
+        for (Map.Entry<String, Object> cambio : cambios.entrySet()) {
+            Object valor = cambio.getValue();
+            switch (cambio.getKey()) {
+                case "titulo" -> {
+                    if (!(valor instanceof String titulo) || titulo.isBlank()) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El título es obligatorio");
+                    }
+                    if (titulo.length() > Nota.LONGITUD_TITULO) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "El título admite " + Nota.LONGITUD_TITULO + " caracteres");
+                    }
+                    nota.setTitulo(titulo);
+                }
+                case "contenido" -> {
+                    if (valor != null && !(valor instanceof String)) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El contenido debe ser texto");
+                    }
+                    nota.setContenido((String) valor);
+                }
+                case "materiaId" -> {
+                    if (valor == null) {
+                        nota.setMateria(null);
+                    } else if (!(valor instanceof Number materiaId)) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "materiaId debe ser numérico");
+                    } else if (nota.getMateria() == null || nota.getMateria().getId() != materiaId.longValue()) {
+                        nota.setMateria(verificadorPropiedad.materiaInicializada(materiaId.longValue(), usuarioId));
+                    }
+                }
+                default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Campo no modificable: " + cambio.getKey());
+            }
+        }
+
+        // El UPDATE se ejecuta aquí para devolver la versión nueva; si otra escritura se adelanta falla
+        // con ObjectOptimisticLockingFailureException
+        notaRepository.saveAndFlush(nota);
+        if (cambios.containsKey("titulo")) {
+            sugerenciasService.notaGuardada(usuarioId, nota.getId(), nota.getTitulo());
+        }
+        long version = versionColecciones.incrementar(usuarioId);
+        eventosService.publicar(usuarioId, TipoEntidad.NOTA, nota.getId(), OperacionCambio.MODIFICACION, version);
+        return nota;
+    }
+
+    /**
+     * Aplica operaciones de texto al contenido de una nota, para que el autoguardado envíe solo
+     * lo que ha cambiado desde la versión que tiene el cliente
+     * 
+     * @param id        ID de la nota
+     * @param usuarioId ID del usuario propietario
+     * @param delta     Versión base y operaciones, en orden
+     * @return Nota modificada, con su versión nueva
+     * @throws ConflictoVersionException si la nota ya no está en la versión base
+     */
+    public Nota aplicarDelta(Long id, Long usuarioId, NotaDeltaDTO delta) {
+        if (delta.getVersion() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La versión base es obligatoria");
+        }
+        List<OperacionTextoDTO> operaciones = delta.getOperaciones() == null ? List.of() : delta.getOperaciones();
+        if (operaciones.size() > MAX_OPERACIONES_TEXTO) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Como máximo " + MAX_OPERACIONES_TEXTO + " operaciones; envía el contenido completo");
+        }
+        if (escrituraDiferida.isHabilitada()) {
+            // La versión se comprueba contra la que ve el cliente, que incluye lo pendiente en memoria
+            return escrituraDiferida.escribir(id, usuarioId,
+                    () -> transactionTemplate.execute(s -> cargarEstado(id, usuarioId)), actual -> {
+                comprobarVersion(actual.version(), delta.getVersion());
+                return operaciones.isEmpty()
+                        ? actual
+                        : actual.conTexto(actual.titulo(), aplicarOperaciones(actual.contenido(), operaciones));
+            }).aNota(id);
+        }
+        return transactionTemplate.execute(s -> deltaEnBaseDeDatos(id, usuarioId, delta.getVersion(), operaciones));
+    }
+
+    private Nota deltaEnBaseDeDatos(Long id, Long usuarioId, Long versionBase, List<OperacionTextoDTO> operaciones) {
+        // Sin la materia: solo cambia el contenido
+        Nota nota = notaRepository.findByIdAndUsuarioId(id, usuarioId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nota no encontrada"));
+        comprobarVersion(nota.getVersion(), versionBase);
+        if (operaciones.isEmpty()) {
+            return nota;
+        }
+        nota.setContenido(aplicarOperaciones(nota.getContenido(), operaciones));
+
+        notaRepository.saveAndFlush(nota);
+        long version = versionColecciones.incrementar(usuarioId);
+        eventosService.publicar(usuarioId, TipoEntidad.NOTA, nota.getId(), OperacionCambio.MODIFICACION, version);
+        return nota;
     }
 
     /**
@@ -118,41 +489,68 @@ public class NotaService {
      * @param usuarioId ID del usuario propietario
      */
     public void eliminarNota(Long id, Long usuarioId) {
-        Nota nota = notaRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Nota no encontrada"));
+        escrituraDiferida.volcarNota(id);
+        transactionTemplate.executeWithoutResult(s -> eliminarEnBaseDeDatos(id, usuarioId));
+    }
 
-        // Verificar que la nota pertenece al usuario
-        if (!nota.getUsuario().getId().equals(usuarioId)) {
-            throw new RuntimeException("No tienes permisos para eliminar esta nota");
+    private void eliminarEnBaseDeDatos(Long id, Long usuarioId) {
+        // La condición de propiedad va en el propio DELETE: sin consulta previa
+        if (notaRepository.eliminarPorIdYUsuarioId(id, usuarioId) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nota no encontrada");
         }
-
-        notaRepository.delete(nota);
+        sincronizacionService.registrarEliminacion(usuarioId, TipoEntidad.NOTA, id);
+        sugerenciasService.notaEliminada(usuarioId, id);
+        long version = versionColecciones.incrementar(usuarioId);
+        eventosService.publicar(usuarioId, TipoEntidad.NOTA, id, OperacionCambio.ELIMINACION, version);
     }
 
     /**
-     * Configura una nota con el usuario y materia correspondientes
+     * Configura una nota con el usuario y materia correspondientes, como referencias
      * 
      * @param nota      Nota a configurar
      * @param usuarioId ID del usuario propietario
      */
     private void configurarNota(Nota nota, Long usuarioId) {
-        Usuario usuario = usuarioService.buscarPorId(usuarioId)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        nota.setUsuario(usuario);
+        nota.setUsuario(verificadorPropiedad.usuario(usuarioId));
 
-        // Si tiene materia, verificar que existe y pertenece al usuario
+        // Si tiene materia, verificar que pertenece al usuario
         if (nota.getMateria() != null && nota.getMateria().getId() != null) {
-            Materia materia = materiaService.buscarPorId(nota.getMateria().getId())
-                    .orElseThrow(() -> new RuntimeException("Materia no encontrada"));
-
-            if (!materia.getUsuario().getId().equals(usuarioId)) {
-                throw new RuntimeException("La materia no pertenece al usuario");
-            }
-
-            nota.setMateria(materia);
+            nota.setMateria(verificadorPropiedad.materiaInicializada(nota.getMateria().getId(), usuarioId));
         } else {
             // Si no hay materia, asegurar que sea null
             nota.setMateria(null);
         }
     }
-}
\ No newline at end of file
+
+    private void comprobarVersion(Long versionActual, Long versionEsperada) {
+        if (versionEsperada != null && !versionEsperada.equals(versionActual)) {
+            throw new ConflictoVersionException(versionActual);
+        }
+    }
+
+    private EscrituraDiferidaNotasService.Estado cargarEstado(Long id, Long usuarioId) {
+        return notaRepository.findConMateriaByIdAndUsuarioId(id, usuarioId)
+                .map(EscrituraDiferidaNotasService.Estado::de)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nota no encontrada"));
+    }
+
+    /**
+     * Aplica las operaciones en orden sobre el contenido
+     * 
+     * @throws ResponseStatusException 400 si alguna queda fuera del texto
+     */
+    private static String aplicarOperaciones(String contenido, List<OperacionTextoDTO> operaciones) {
+        StringBuilder texto = new StringBuilder(contenido == null ? "" : contenido);
+        for (OperacionTextoDTO operacion : operaciones) {
+            int posicion = operacion.getPosicion();
+            int eliminar = operacion.getEliminar();
+            // Se compara con lo que queda tras la posición: posicion + eliminar puede desbordar int
+            if (posicion < 0 || eliminar < 0 || posicion > texto.length() || eliminar > texto.length() - posicion) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Operación fuera del contenido: posición " + posicion + ", eliminar " + eliminar);
+            }
+            texto.replace(posicion, posicion + eliminar, operacion.getInsertar() == null ? "" : operacion.getInsertar());
+        }
+        return texto.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package com.studymate.service;
+
+import com.studymate.dto.RecordatorioDTO;
+
+/**
+ * Destino de los recordatorios que vencen. Cada bean que implemente esta interfaz recibe
+ * todos los recordatorios, en el hilo del planificador: no debe bloquearlo.
+ */
+public interface NotificadorRecordatorios {
+
+    void notificar(RecordatorioDTO recordatorio);
+}
@@ -0,0 +1,22 @@
+package com.studymate.service;
+
+import com.studymate.dto.RecordatorioDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Escribe los recordatorios en el log
+ */
+@Component
+@Slf4j
+public class NotificadorRecordatoriosLog implements NotificadorRecordatorios {
+
+    @Override
+    public void notificar(RecordatorioDTO recordatorio) {
+        log.info("Recordatorio para el usuario {}: la tarea {} \"{}\" vence el {} (aviso {} antes)",
+                recordatorio.getUsuarioId(), recordatorio.getTareaId(), recordatorio.getTitulo(),
+                recordatorio.getFechaLimite(), Duration.ofSeconds(recordatorio.getAntelacionSegundos()));
+    }
+}
@@ -0,0 +1,20 @@
+package com.studymate.service;
+
+import com.studymate.dto.RecordatorioDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Envía los recordatorios a las conexiones de /eventos del usuario como eventos "recordatorio"
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificadorRecordatoriosSse implements NotificadorRecordatorios {
+
+    private final EventosService eventosService;
+
+    @Override
+    public void notificar(RecordatorioDTO recordatorio) {
+        eventosService.enviarRecordatorio(recordatorio);
+    }
+}
@@ -0,0 +1,247 @@
+package com.studymate.service;
+
+import com.studymate.config.RecordatoriosConfig;
+import com.studymate.dto.PlazoTareaDTO;
+import com.studymate.dto.RecordatorioDTO;
+import com.studymate.model.Tarea;
+import com.studymate.repository.TareaRepository;
+import com.studymate.util.RuedaTemporal;
+import com.studymate.util.Transacciones;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recordatorios de fecha límite de las tareas pendientes, a las antelaciones configuradas.
+ * Solo se mantiene en memoria el horizonte próximo (por defecto 24 h) en una rueda temporal
+ * jerárquica; el siguiente tramo se carga periódicamente con una consulta por índice y los
+ * cambios de las tareas se aplican al confirmarse. Al arrancar se vuelve a cargar el horizonte,
+ * así que un reinicio no pierde los recordatorios futuros.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecordatoriosService {
+
+    // Segundos, minutos, horas y días: alcance de 32 días con ticks de 1 s
+    private static final int[] RANURAS_POR_NIVEL = {60, 60, 24, 32};
+    private static final int TAMANO_LOTE_CARGA = 1000;
+
+    private final TareaRepository tareaRepository;
+    private final RecordatoriosConfig config;
+    private final List<NotificadorRecordatorios> notificadores;
+
+    // Todo el estado se protege con el monitor del servicio; las operaciones sobre la rueda son O(1)
+    private RuedaTemporal<RecordatorioDTO> rueda;
+    // Recordatorios programados de cada tarea, uno por antelación (null si no está programado)
+    private final Map<Long, RuedaTemporal.Entrada<RecordatorioDTO>[]> porTarea = new HashMap<>();
+    // Los recordatorios hasta este instante ya están en la rueda; los posteriores los trae la carga
+    private LocalDateTime cargadoHasta;
+
+    /**
+     * Crea la rueda y carga el primer horizonte al arrancar
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!config.isHabilitado()) {
+            return;
+        }
+        // La rueda solo admite vencimientos dentro de su alcance
+        long alcanceMs = config.getTickMs();
+        for (int ranuras : RANURAS_POR_NIVEL) {
+            alcanceMs *= ranuras;
+        }
+        if (config.getHorizonte().toMillis() >= alcanceMs) {
+            throw new IllegalStateException("studymate.recordatorios.horizonte debe ser menor que "
+                    + Duration.ofMillis(alcanceMs));
+        }
+        synchronized (this) {
+            rueda = new RuedaTemporal<>(config.getTickMs(), RANURAS_POR_NIVEL, System.currentTimeMillis());
+            cargadoHasta = LocalDateTime.now();
+        }
+        ampliarHorizonte();
+    }
+
+    /**
+     * Carga los recordatorios que entran en el horizonte desde la última carga
+     */
+    @Scheduled(fixedDelayString = "${studymate.recordatorios.intervalo-carga-ms:600000}",
+            initialDelayString = "${studymate.recordatorios.intervalo-carga-ms:600000}")
+    public void ampliarHorizonte() {
+        LocalDateTime desde;
+        LocalDateTime hasta = LocalDateTime.now().plus(config.getHorizonte());
+        synchronized (this) {
+            if (rueda == null || !hasta.isAfter(cargadoHasta)) {
+                return;
+            }
+            // Se avanza antes de consultar: lo que cambie durante la carga lo programa la propia modificación
+            desde = cargadoHasta;
+            cargadoHasta = hasta;
+        }
+        int cargados = 0;
+        for (int i = 0; i < config.getAntelaciones().size(); i++) {
+            Duration antelacion = config.getAntelaciones().get(i);
+            // Recordatorio en (desde, hasta] equivale a fecha límite en (desde + antelación, hasta + antelación]
+            LocalDateTime fecha = desde.plus(antelacion);
+            Long id = Long.MAX_VALUE;
+            List<PlazoTareaDTO> lote;
+            do {
+                lote = tareaRepository.findPlazosPendientesDespuesDe(fecha, id, hasta.plus(antelacion),
+                        Limit.of(TAMANO_LOTE_CARGA));
+                synchronized (this) {
+                    for (PlazoTareaDTO plazo : lote) {
+                        programar(plazo, i);
+                    }
+                }
+                if (!lote.isEmpty()) {
+                    PlazoTareaDTO ultimo = lote.get(lote.size() - 1);
+                    fecha = ultimo.getFechaLimite();
+                    id = ultimo.getTareaId();
+                }
+                cargados += lote.size();
+            } while (lote.size() == TAMANO_LOTE_CARGA);
+        }
+        log.debug("Recordatorios: {} cargados hasta {}, {} programados", cargados, hasta, programados());
+    }
+
+    /**
+     * Envía los recordatorios vencidos a los notificadores
+     */
+    @Scheduled(fixedRateString = "${studymate.recordatorios.tick-ms:1000}")
+    public void avanzar() {
+        List<RecordatorioDTO> vencidos;
+        synchronized (this) {
+            if (rueda == null) {
+                return;
+            }
+            vencidos = rueda.avanzar(System.currentTimeMillis());
+            for (RecordatorioDTO recordatorio : vencidos) {
+                olvidar(recordatorio);
+            }
+        }
+        // Fuera del monitor: un notificador lento no bloquea las modificaciones de tareas
+        for (RecordatorioDTO recordatorio : vencidos) {
+            for (NotificadorRecordatorios notificador : notificadores) {
+                try {
+                    notificador.notificar(recordatorio);
+                } catch (RuntimeException e) {
+                    log.warn("Error al enviar el recordatorio de la tarea {}: {}", recordatorio.getTareaId(),
+                            e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reprograma los recordatorios de una tarea creada o modificada al confirmar la transacción.
+     * Una tarea completada o sin fecha límite se queda sin recordatorios.
+     */
+    public void tareaGuardada(Tarea tarea) {
+        if (!config.isHabilitado()) {
+            return;
+        }
+        // Copia de los datos actuales: la entidad puede cambiar antes del commit
+        Long tareaId = tarea.getId();
+        PlazoTareaDTO plazo = Boolean.TRUE.equals(tarea.getCompletada()) || tarea.getFechaLimite() == null
+                ? null
+                : new PlazoTareaDTO(tareaId, tarea.getUsuario().getId(), tarea.getTitulo(), tarea.getFechaLimite());
+        Transacciones.despuesDelCommit(() -> {
+            synchronized (this) {
+                if (rueda == null) {
+                    return;
+                }
+                cancelar(tareaId);
+                if (plazo != null) {
+                    for (int i = 0; i < config.getAntelaciones().size(); i++) {
+                        programar(plazo, i);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Cancela los recordatorios de tareas completadas o eliminadas al confirmar la transacción
+     */
+    public void tareasCanceladas(Collection<Long> tareaIds) {
+        if (!config.isHabilitado() || tareaIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(tareaIds);
+        Transacciones.despuesDelCommit(() -> {
+            synchronized (this) {
+                if (rueda != null) {
+                    ids.forEach(this::cancelar);
+                }
+            }
+        });
+    }
+
+    /**
+     * Recordatorios programados en la rueda
+     */
+    public synchronized int programados() {
+        return rueda == null ? 0 : rueda.tamano();
+    }
+
+    // Programa el recordatorio de la antelación indicada si cae entre ahora y lo ya cargado,
+    // sustituyendo al que hubiera para la misma tarea y antelación
+    @SuppressWarnings("unchecked")
+    private void programar(PlazoTareaDTO plazo, int indiceAntelacion) {
+        Duration antelacion = config.getAntelaciones().get(indiceAntelacion);
+        LocalDateTime momento = plazo.getFechaLimite().minus(antelacion);
+        if (!momento.isAfter(LocalDateTime.now()) || momento.isAfter(cargadoHasta)) {
+            return;
+        }
+        RuedaTemporal.Entrada<RecordatorioDTO>[] entradas = porTarea.computeIfAbsent(plazo.getTareaId(),
+                id -> new RuedaTemporal.Entrada[config.getAntelaciones().size()]);
+        if (entradas[indiceAntelacion] != null) {
+            rueda.cancelar(entradas[indiceAntelacion]);
+        }
+        RecordatorioDTO recordatorio = new RecordatorioDTO(plazo.getTareaId(), plazo.getUsuarioId(),
+                plazo.getTitulo(), plazo.getFechaLimite(), antelacion.toSeconds());
+        entradas[indiceAntelacion] = rueda.programar(
+                momento.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), recordatorio);
+    }
+
+    private void cancelar(Long tareaId) {
+        RuedaTemporal.Entrada<RecordatorioDTO>[] entradas = porTarea.remove(tareaId);
+        if (entradas != null) {
+            for (RuedaTemporal.Entrada<RecordatorioDTO> entrada : entradas) {
+                if (entrada != null) {
+                    rueda.cancelar(entrada);
+                }
+            }
+        }
+    }
+
+    // Quita de porTarea la entrada de un recordatorio ya vencido
+    private void olvidar(RecordatorioDTO recordatorio) {
+        RuedaTemporal.Entrada<RecordatorioDTO>[] entradas = porTarea.get(recordatorio.getTareaId());
+        if (entradas == null) {
+            return;
+        }
+        boolean quedan = false;
+        for (int i = 0; i < entradas.length; i++) {
+            if (entradas[i] != null && !entradas[i].isProgramada()) {
+                entradas[i] = null;
+            }
+            quedan |= entradas[i] != null;
+        }
+        if (!quedan) {
+            porTarea.remove(recordatorio.getTareaId());
+        }
+    }
+}
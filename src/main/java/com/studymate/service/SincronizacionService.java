@@ -0,0 +1,114 @@
+package com.studymate.service;
+
+import com.studymate.config.SincronizacionConfig;
+import com.studymate.dto.SincronizacionDTO;
+import com.studymate.model.Eliminacion;
+import com.studymate.model.TipoEntidad;
+import com.studymate.repository.EliminacionRepository;
+import com.studymate.repository.MateriaRepository;
+import com.studymate.repository.NotaRepository;
+import com.studymate.repository.TareaRepository;
+import com.studymate.util.CursorSincronizacion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Sincronización incremental para clientes sin conexión: devuelve lo creado, modificado o
+ * eliminado desde un cursor, con consultas por (usuario_id, fecha_modificacion) cuyo coste
+ * depende del volumen de cambios y no del total de datos del usuario
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SincronizacionService {
+
+    // Fecha anterior a cualquier dato: sincronizar desde aquí es una copia completa
+    private static final LocalDateTime ORIGEN = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final TareaRepository tareaRepository;
+    private final NotaRepository notaRepository;
+    private final MateriaRepository materiaRepository;
+    private final EliminacionRepository eliminacionRepository;
+    private final SincronizacionConfig config;
+
+    /**
+     * Cambios del usuario desde el cursor indicado
+     * 
+     * @param usuarioId ID del usuario
+     * @param cursor    Cursor de la sincronización anterior, null para una copia completa
+     * @return Cambios y cursor para la siguiente sincronización
+     */
+    @Transactional(readOnly = true)
+    public SincronizacionDTO obtenerCambios(Long usuarioId, String cursor) {
+        LocalDateTime ahora = LocalDateTime.now();
+        String siguienteCursor = CursorSincronizacion.codificar(ahora.minusNanos(config.getMargenMs() * 1_000_000));
+
+        LocalDateTime desde = cursor == null || cursor.isBlank() ? null : CursorSincronizacion.decodificar(cursor);
+        // Sin cursor, o con uno anterior a las eliminaciones que se conservan: copia completa
+        if (desde == null || desde.isBefore(ahora.minusDays(config.getDiasConservacionEliminaciones()))) {
+            return new SincronizacionDTO(
+                    tareaRepository.findModificadasDesde(usuarioId, ORIGEN),
+                    notaRepository.findModificadasDesde(usuarioId, ORIGEN),
+                    materiaRepository.findModificadasDesde(usuarioId, ORIGEN),
+                    List.of(), siguienteCursor, true);
+        }
+        return new SincronizacionDTO(
+                tareaRepository.findModificadasDesde(usuarioId, desde),
+                notaRepository.findModificadasDesde(usuarioId, desde),
+                materiaRepository.findModificadasDesde(usuarioId, desde),
+                eliminacionRepository.findDesde(usuarioId, desde),
+                siguienteCursor, false);
+    }
+
+    /**
+     * Registra la eliminación de una tarea o una nota
+     * 
+     * @param usuarioId ID del usuario propietario
+     * @param tipo      Tipo de la entidad eliminada
+     * @param id        ID de la entidad eliminada
+     */
+    @Transactional
+    public void registrarEliminacion(Long usuarioId, TipoEntidad tipo, Long id) {
+        eliminacionRepository.save(new Eliminacion(null, usuarioId, tipo, id, LocalDateTime.now()));
+    }
+
+    /**
+     * Registra la eliminación de las tareas indicadas. Debe llamarse antes de borrarlas.
+     * 
+     * @param ids IDs de las tareas
+     */
+    @Transactional
+    public void registrarTareasEliminadas(Collection<Long> ids) {
+        eliminacionRepository.registrarTareas(ids, LocalDateTime.now());
+    }
+
+    /**
+     * Registra la eliminación de las notas indicadas. Debe llamarse antes de borrarlas.
+     * 
+     * @param ids IDs de las notas
+     */
+    @Transactional
+    public void registrarNotasEliminadas(Collection<Long> ids) {
+        eliminacionRepository.registrarNotas(ids, LocalDateTime.now());
+    }
+
+    /**
+     * Elimina periódicamente los registros de eliminaciones fuera del periodo de conservación
+     */
+    @Scheduled(cron = "${studymate.sync.cron-purga:0 45 3 * * *}")
+    @Transactional
+    public void purgarEliminaciones() {
+        int purgadas = eliminacionRepository.eliminarAnterioresA(
+                LocalDateTime.now().minusDays(config.getDiasConservacionEliminaciones()));
+        if (purgadas > 0) {
+            log.info("Purgados {} registros de eliminaciones", purgadas);
+        }
+    }
+}
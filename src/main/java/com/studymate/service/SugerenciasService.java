@@ -0,0 +1,161 @@
+package com.studymate.service;
+
+import com.studymate.config.SugerenciasConfig;
+import com.studymate.dto.SugerenciaDTO;
+import com.studymate.repository.MateriaRepository;
+import com.studymate.repository.NotaRepository;
+import com.studymate.util.IndicePrefijos;
+import com.studymate.util.Transacciones;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.ref.SoftReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Servicio de autocompletado de títulos de notas y nombres de materias.
+ * Mantiene en memoria un índice de prefijos por usuario que se construye la primera vez
+ * que se consulta y se actualiza con cada alta, edición o borrado hecho en este nodo.
+ * Los cambios hechos en otros nodos no llegan aquí: pasada la vigencia
+ * (studymate.sugerencias.vigencia-indice-ms) el índice se vuelve a cargar de la base de datos.
+ * Los índices se guardan en referencias blandas (SoftReference) para que la JVM pueda liberarlos
+ * si falta memoria; en ese caso se reconstruyen en la siguiente consulta.
+ */
+@Service
+@RequiredArgsConstructor
+public class SugerenciasService {
+
+    private static final int LIMITE_POR_DEFECTO = 10;
+    private static final int LIMITE_MAXIMO = 50;
+
+    private final NotaRepository notaRepository;
+    private final MateriaRepository materiaRepository;
+    private final SugerenciasConfig config;
+
+    private final Map<Long, Entrada> indicesNotas = new ConcurrentHashMap<>();
+    private final Map<Long, Entrada> indicesMaterias = new ConcurrentHashMap<>();
+
+    /**
+     * Sugiere notas del usuario cuyo título empieza por el prefijo
+     * 
+     * @param usuarioId ID del usuario
+     * @param prefijo   Texto escrito por el usuario (sin distinguir mayúsculas ni acentos)
+     * @param limite    Número máximo de sugerencias
+     * @return Sugerencias ordenadas alfabéticamente
+     */
+    @Transactional(readOnly = true)
+    public List<SugerenciaDTO> sugerirNotas(Long usuarioId, String prefijo, Integer limite) {
+        IndicePrefijos indice = entrada(indicesNotas, usuarioId)
+                .obtener(() -> notaRepository.findSugerenciasByUsuarioId(usuarioId), config.getVigenciaIndiceMs());
+        return indice.buscar(prefijo, resolverLimite(limite));
+    }
+
+    /**
+     * Sugiere materias del usuario cuyo nombre empieza por el prefijo
+     * 
+     * @param usuarioId ID del usuario
+     * @param prefijo   Texto escrito por el usuario (sin distinguir mayúsculas ni acentos)
+     * @param limite    Número máximo de sugerencias
+     * @return Sugerencias ordenadas alfabéticamente
+     */
+    @Transactional(readOnly = true)
+    public List<SugerenciaDTO> sugerirMaterias(Long usuarioId, String prefijo, Integer limite) {
+        IndicePrefijos indice = entrada(indicesMaterias, usuarioId)
+                .obtener(() -> materiaRepository.findSugerenciasByUsuarioId(usuarioId), config.getVigenciaIndiceMs());
+        return indice.buscar(prefijo, resolverLimite(limite));
+    }
+
+    public void notaGuardada(Long usuarioId, Long notaId, String titulo) {
+        modificar(indicesNotas, usuarioId, indice -> indice.conElemento(notaId, titulo));
+    }
+
+    public void notaEliminada(Long usuarioId, Long notaId) {
+        modificar(indicesNotas, usuarioId, indice -> indice.sinElemento(notaId));
+    }
+
+    public void materiaGuardada(Long usuarioId, Long materiaId, String nombre) {
+        modificar(indicesMaterias, usuarioId, indice -> indice.conElemento(materiaId, nombre));
+    }
+
+    /**
+     * Al borrar una materia también se borran sus notas, así que se descarta el índice de notas
+     */
+    public void materiaEliminada(Long usuarioId, Long materiaId) {
+        modificar(indicesMaterias, usuarioId, indice -> indice.sinElemento(materiaId));
+        Transacciones.despuesDelCommit(() -> {
+            Entrada entrada = indicesNotas.get(usuarioId);
+            if (entrada != null) {
+                entrada.descartar();
+            }
+        });
+    }
+
+    private void modificar(Map<Long, Entrada> indices, Long usuarioId, UnaryOperator<IndicePrefijos> cambio) {
+        Transacciones.despuesDelCommit(() -> {
+            // Si el índice aún no se ha construido no hay nada que actualizar
+            Entrada entrada = indices.get(usuarioId);
+            if (entrada != null) {
+                entrada.modificar(cambio);
+            }
+        });
+    }
+
+
+    private Entrada entrada(Map<Long, Entrada> indices, Long usuarioId) {
+        return indices.computeIfAbsent(usuarioId, id -> new Entrada());
+    }
+
+    private int resolverLimite(Integer limite) {
+        if (limite == null || limite <= 0) {
+            return LIMITE_POR_DEFECTO;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    /**
+     * Índice de un usuario. La construcción y las modificaciones se serializan por usuario
+     * para que una modificación no se pierda mientras se carga el índice desde la base de datos.
+     */
+    private static class Entrada {
+
+        private volatile SoftReference<IndicePrefijos> referencia = new SoftReference<>(null);
+        private volatile long cargadoEn;
+
+        IndicePrefijos obtener(Supplier<List<SugerenciaDTO>> cargar, long vigenciaMs) {
+            IndicePrefijos indice = referencia.get();
+            if (indice != null && vigente(vigenciaMs)) {
+                return indice;
+            }
+            synchronized (this) {
+                indice = referencia.get();
+                if (indice == null || !vigente(vigenciaMs)) {
+                    indice = IndicePrefijos.construir(cargar.get());
+                    referencia = new SoftReference<>(indice);
+                    cargadoEn = System.currentTimeMillis();
+                }
+                return indice;
+            }
+        }
+
+        // Cargado hace menos de la vigencia: las modificaciones locales no la renuevan
+        private boolean vigente(long vigenciaMs) {
+            return System.currentTimeMillis() - cargadoEn < vigenciaMs;
+        }
+
+        synchronized void modificar(UnaryOperator<IndicePrefijos> cambio) {
+            IndicePrefijos indice = referencia.get();
+            if (indice != null) {
+                referencia = new SoftReference<>(cambio.apply(indice));
+            }
+        }
+
+        synchronized void descartar() {
+            referencia = new SoftReference<>(null);
+        }
+    }
+}
@@ -1,16 +1,35 @@
 package com.studymate.service;
 
+import com.studymate.config.PaginacionConfig;
+import com.studymate.dto.PaginaDTO;
+import com.studymate.dto.ResultadoLoteDTO;
+import com.studymate.dto.TareaArchivadaDTO;
+import com.studymate.dto.TareaResumenDTO;
 import com.studymate.model.Tarea;
 import com.studymate.model.Usuario;
-import com.studymate.model.Materia;
 import com.studymate.model.Prioridad;
+import com.studymate.model.OperacionCambio;
+import com.studymate.model.TipoEntidad;
+import com.studymate.repository.TareaArchivadaRepository;
 import com.studymate.repository.TareaRepository;
+import com.studymate.util.Cursor;
+import com.studymate.util.Lotes;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Servicio para manejar las operaciones relacionadas con las tareas
@@ -20,8 +39,18 @@ import java.util.Optional;
 public class TareaService {
 
     private final TareaRepository tareaRepository;
-    private final UsuarioService usuarioService;
+    private final TareaArchivadaRepository tareaArchivadaRepository;
     private final MateriaService materiaService;
+    private final VerificadorPropiedad verificadorPropiedad;
+    private final PaginacionConfig paginacionConfig;
+    private final Validator validator;
+    private final VersionColeccionesService versionColecciones;
+    private final SincronizacionService sincronizacionService;
+    private final RecordatoriosService recordatoriosService;
+    private final EventosService eventosService;
+
+    // Días hasta la fecha límite para considerar urgente una tarea pendiente
+    public static final int DIAS_URGENCIA = 3;
 
     /**
      * Crea una nueva tarea para un usuario
@@ -30,6 +59,7 @@ public class TareaService {
      * @param usuarioId ID del usuario propietario
      * @return Tarea creada
      */
+    @Transactional
     public Tarea crearTarea(Tarea tarea, Long usuarioId) {
         try {
             System.out.println("=== Creando tarea ===");
@@ -55,6 +85,9 @@ public class TareaService {
             System.out.println("Tarea configurada correctamente");
             Tarea saved = tareaRepository.save(tarea);
             System.out.println("Tarea guardada con ID: " + saved.getId());
+            recordatoriosService.tareaGuardada(saved);
+            long version = versionColecciones.incrementar(usuarioId);
+            eventosService.publicar(usuarioId, TipoEntidad.TAREA, saved.getId(), OperacionCambio.CREACION, version);
             return saved;
         } catch (Exception e) {
             System.err.println("Error al crear tarea: " + e.getMessage());
@@ -63,24 +96,167 @@ public class TareaService {
         }
     }
 
+    /**
+     * Crea varias tareas en una sola transacción. Cada tarea se valida por separado:
+     * las válidas se insertan en lotes JDBC y las inválidas se devuelven con su error.
+     * 
+     * @param tareas    Tareas a crear
+     * @param usuarioId ID del usuario propietario
+     * @return Resultado de cada tarea en el orden de la petición
+     */
+    @Transactional
+    public List<ResultadoLoteDTO> crearTareas(List<Tarea> tareas, Long usuarioId) {
+        Lotes.validarTamano(tareas);
+        Usuario usuario = verificadorPropiedad.usuario(usuarioId);
+
+        // Una sola consulta para comprobar todas las materias referenciadas
+        Set<Long> materiasPropias = materiaService.filtrarPropias(usuarioId, tareas.stream()
+                .filter(t -> t != null && t.getMateria() != null && t.getMateria().getId() != null)
+                .map(t -> t.getMateria().getId())
+                .collect(Collectors.toSet()));
+
+        List<ResultadoLoteDTO> resultados = new ArrayList<>(tareas.size());
+        List<Tarea> validas = new ArrayList<>(tareas.size());
+        for (int i = 0; i < tareas.size(); i++) {
+            Tarea tarea = tareas.get(i);
+            String error = Lotes.validarElemento(validator, tarea);
+            if (error == null && tarea.getMateria() != null && tarea.getMateria().getId() != null
+                    && !materiasPropias.contains(tarea.getMateria().getId())) {
+                error = "Materia no encontrada";
+            }
+            if (error != null) {
+                resultados.add(ResultadoLoteDTO.error(i, null, error));
+                continue;
+            }
+            tarea.setId(null);
+            tarea.setUsuario(usuario);
+            tarea.setMateria(tarea.getMateria() != null && tarea.getMateria().getId() != null
+                    ? materiaService.referencia(tarea.getMateria().getId())
+                    : null);
+            if (tarea.getPrioridad() == null) {
+                tarea.setPrioridad(Prioridad.MEDIA);
+            }
+            if (tarea.getCompletada() == null) {
+                tarea.setCompletada(false);
+            }
+            validas.add(tarea);
+            resultados.add(null);
+        }
+
+        tareaRepository.saveAll(validas);
+        validas.forEach(recordatoriosService::tareaGuardada);
+        if (!validas.isEmpty()) {
+            long version = versionColecciones.incrementar(usuarioId);
+            eventosService.publicar(usuarioId, TipoEntidad.TAREA, validas.stream().map(Tarea::getId).toList(),
+                    OperacionCambio.CREACION, version);
+        }
+
+        // Completar los huecos con los ids asignados, en el mismo orden
+        int siguiente = 0;
+        for (int i = 0; i < resultados.size(); i++) {
+            if (resultados.get(i) == null) {
+                resultados.set(i, ResultadoLoteDTO.ok(i, validas.get(siguiente++).getId()));
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Marca varias tareas como completadas con una sola sentencia UPDATE
+     * 
+     * @param ids       IDs de las tareas
+     * @param usuarioId ID del usuario propietario
+     * @return Resultado de cada id en el orden de la petición
+     */
+    @Transactional
+    public List<ResultadoLoteDTO> completarTareas(List<Long> ids, Long usuarioId) {
+        Lotes.validarTamano(ids);
+        Set<Long> distintos = ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> propias = distintos.isEmpty()
+                ? Set.of()
+                : new HashSet<>(tareaRepository.findIdsByUsuarioIdAndIdIn(usuarioId, distintos));
+        if (!propias.isEmpty()) {
+            tareaRepository.completarPorIds(usuarioId, propias, LocalDateTime.now());
+            recordatoriosService.tareasCanceladas(propias);
+            long version = versionColecciones.incrementar(usuarioId);
+            eventosService.publicar(usuarioId, TipoEntidad.TAREA, propias, OperacionCambio.MODIFICACION, version);
+        }
+
+        List<ResultadoLoteDTO> resultados = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            resultados.add(propias.contains(id)
+                    ? ResultadoLoteDTO.ok(i, id)
+                    : ResultadoLoteDTO.error(i, id, "Tarea no encontrada"));
+        }
+        return resultados;
+    }
+
     /**
      * Busca una tarea por su ID
      * 
      * @param id ID de la tarea
      * @return Optional con la tarea si existe
      */
+    @Transactional(readOnly = true)
     public Optional<Tarea> buscarPorId(Long id) {
-        return tareaRepository.findById(id);
+        return tareaRepository.findConMateriaById(id);
     }
 
     /**
      * Busca todas las tareas de un usuario
      * 
      * @param usuarioId ID del usuario
-     * @return Lista de tareas del usuario
+     * @return Resumen de las tareas del usuario
+     */
+    @Transactional(readOnly = true)
+    public List<TareaResumenDTO> buscarPorUsuario(Long usuarioId) {
+        return tareaRepository.findResumenByUsuarioId(usuarioId);
+    }
+
+    /**
+     * Busca una página de tareas de un usuario ordenadas por fecha de creación descendente
+     * 
+     * @param usuarioId ID del usuario
+     * @param cursor    Cursor devuelto por la página anterior, null para la primera
+     * @param tamano    Tamaño de página solicitado
+     * @return Página de tareas con el cursor de la siguiente
      */
-    public List<Tarea> buscarPorUsuario(Long usuarioId) {
-        return tareaRepository.findByUsuarioId(usuarioId);
+    @Transactional(readOnly = true)
+    public PaginaDTO<TareaResumenDTO> buscarPaginaPorUsuario(Long usuarioId, String cursor, Integer tamano) {
+        int tamanoPagina = paginacionConfig.resolverTamano(tamano);
+        Limit limite = Limit.of(tamanoPagina + 1);
+        List<TareaResumenDTO> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = tareaRepository.findPrimeraPagina(usuarioId, limite);
+        } else {
+            Cursor posicion = Cursor.decodificar(cursor);
+            filas = tareaRepository.findPaginaDespuesDe(usuarioId, posicion.getFecha(), posicion.getId(), limite);
+        }
+        return PaginaDTO.desdeFilas(filas, tamanoPagina, f -> Cursor.codificar(f.getFechaCreacion(), f.getId()));
+    }
+
+    /**
+     * Busca una página de tareas archivadas de un usuario, completadas más recientemente primero
+     * 
+     * @param usuarioId ID del usuario
+     * @param cursor    Cursor devuelto por la página anterior, null para la primera
+     * @param tamano    Tamaño de página solicitado
+     * @return Página de tareas archivadas con el cursor de la siguiente
+     */
+    @Transactional(readOnly = true)
+    public PaginaDTO<TareaArchivadaDTO> buscarArchivadas(Long usuarioId, String cursor, Integer tamano) {
+        int tamanoPagina = paginacionConfig.resolverTamano(tamano);
+        Limit limite = Limit.of(tamanoPagina + 1);
+        List<TareaArchivadaDTO> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = tareaArchivadaRepository.findPrimeraPagina(usuarioId, limite);
+        } else {
+            Cursor posicion = Cursor.decodificar(cursor);
+            filas = tareaArchivadaRepository.findPaginaDespuesDe(usuarioId, posicion.getFecha(), posicion.getId(),
+                    limite);
+        }
+        return PaginaDTO.desdeFilas(filas, tamanoPagina, f -> Cursor.codificar(f.getFechaCompletada(), f.getId()));
     }
 
     /**
@@ -90,6 +266,7 @@ public class TareaService {
      * @param usuarioId ID del usuario
      * @return Lista de tareas de la materia
      */
+    @Transactional(readOnly = true)
     public List<Tarea> buscarPorMateria(Long materiaId, Long usuarioId) {
         return tareaRepository.findByMateriaIdAndUsuarioId(materiaId, usuarioId);
     }
@@ -100,6 +277,7 @@ public class TareaService {
      * @param usuarioId ID del usuario
      * @return Lista de tareas generales
      */
+    @Transactional(readOnly = true)
     public List<Tarea> buscarTareasGenerales(Long usuarioId) {
         return tareaRepository.findByUsuarioIdAndMateriaIsNull(usuarioId);
     }
@@ -110,6 +288,7 @@ public class TareaService {
      * @param usuarioId ID del usuario
      * @return Lista de tareas pendientes
      */
+    @Transactional(readOnly = true)
     public List<Tarea> buscarTareasPendientes(Long usuarioId) {
         return tareaRepository.findByUsuarioIdAndCompletadaFalse(usuarioId);
     }
@@ -120,8 +299,9 @@ public class TareaService {
      * @param usuarioId ID del usuario
      * @return Lista de tareas urgentes
      */
+    @Transactional(readOnly = true)
     public List<Tarea> buscarTareasUrgentes(Long usuarioId) {
-        LocalDateTime fechaLimite = LocalDateTime.now().plusDays(3); // 3 días
+        LocalDateTime fechaLimite = LocalDateTime.now().plusDays(DIAS_URGENCIA);
         return tareaRepository.findTareasUrgentes(usuarioId, fechaLimite);
     }
 
@@ -132,10 +312,14 @@ public class TareaService {
      * @param usuarioId ID del usuario propietario
      * @return Tarea actualizada
      */
+    @Transactional
     public Tarea marcarCompletada(Long id, Long usuarioId) {
         Tarea tarea = obtenerTareaConPermisos(id, usuarioId);
         tarea.setCompletada(true);
-        return tareaRepository.save(tarea);
+        recordatoriosService.tareasCanceladas(List.of(id));
+        long version = versionColecciones.incrementar(usuarioId);
+        eventosService.publicar(usuarioId, TipoEntidad.TAREA, id, OperacionCambio.MODIFICACION, version);
+        return tarea;
     }
 
     /**
@@ -145,27 +329,31 @@ public class TareaService {
      * @param usuarioId ID del usuario propietario
      * @return Tarea actualizada
      */
+    @Transactional
     public Tarea actualizarTarea(Tarea tarea, Long usuarioId) {
-        // Obtener la tarea existente para verificar permisos
+        // Una sola consulta comprueba la propiedad y carga la tarea con su materia
         Tarea tareaExistente = obtenerTareaConPermisos(tarea.getId(), usuarioId);
-        
-        // Configurar la tarea con el usuario y materia correspondientes
-        configurarTarea(tarea, usuarioId);
-        
-        // Validar prioridad
-        if (tarea.getPrioridad() == null) {
-            tarea.setPrioridad(Prioridad.MEDIA);
-        }
-        
-        // Validar completada
-        if (tarea.getCompletada() == null) {
-            tarea.setCompletada(false);
+
+        // Solo se comprueba la materia si cambia
+        Long materiaId = tarea.getMateria() != null ? tarea.getMateria().getId() : null;
+        if (materiaId == null) {
+            tareaExistente.setMateria(null);
+        } else if (tareaExistente.getMateria() == null || !materiaId.equals(tareaExistente.getMateria().getId())) {
+            tareaExistente.setMateria(verificadorPropiedad.materiaInicializada(materiaId, usuarioId));
         }
-        
-        // Preservar campos que no deben cambiar
-        tarea.setFechaCreacion(tareaExistente.getFechaCreacion());
-        
-        return tareaRepository.save(tarea);
+
+        // Actualizar solo campos editables; fechas de creación y completada se conservan
+        tareaExistente.setTitulo(tarea.getTitulo());
+        tareaExistente.setDescripcion(tarea.getDescripcion());
+        tareaExistente.setFechaLimite(tarea.getFechaLimite());
+        tareaExistente.setPrioridad(tarea.getPrioridad() != null ? tarea.getPrioridad() : Prioridad.MEDIA);
+        tareaExistente.setCompletada(tarea.getCompletada() != null ? tarea.getCompletada() : false);
+
+        recordatoriosService.tareaGuardada(tareaExistente);
+        long version = versionColecciones.incrementar(usuarioId);
+        eventosService.publicar(usuarioId, TipoEntidad.TAREA, tareaExistente.getId(), OperacionCambio.MODIFICACION,
+                version);
+        return tareaExistente;
     }
 
     /**
@@ -174,32 +362,30 @@ public class TareaService {
      * @param id        ID de la tarea a eliminar
      * @param usuarioId ID del usuario propietario
      */
+    @Transactional
     public void eliminarTarea(Long id, Long usuarioId) {
-        Tarea tarea = obtenerTareaConPermisos(id, usuarioId);
-        tareaRepository.delete(tarea);
+        // La condición de propiedad va en el propio DELETE: sin consulta previa
+        if (tareaRepository.eliminarPorIdYUsuarioId(id, usuarioId) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Tarea no encontrada");
+        }
+        sincronizacionService.registrarEliminacion(usuarioId, TipoEntidad.TAREA, id);
+        recordatoriosService.tareasCanceladas(List.of(id));
+        long version = versionColecciones.incrementar(usuarioId);
+        eventosService.publicar(usuarioId, TipoEntidad.TAREA, id, OperacionCambio.ELIMINACION, version);
     }
 
     /**
-     * Configura una tarea con el usuario y materia correspondientes
+     * Configura una tarea con el usuario y materia correspondientes, como referencias
      * 
      * @param tarea     Tarea a configurar
      * @param usuarioId ID del usuario propietario
      */
     private void configurarTarea(Tarea tarea, Long usuarioId) {
-        Usuario usuario = usuarioService.buscarPorId(usuarioId)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        tarea.setUsuario(usuario);
+        tarea.setUsuario(verificadorPropiedad.usuario(usuarioId));
 
-        // Si tiene materia, verificar que existe y pertenece al usuario
+        // Si tiene materia, verificar que pertenece al usuario
         if (tarea.getMateria() != null && tarea.getMateria().getId() != null) {
-            Materia materia = materiaService.buscarPorId(tarea.getMateria().getId())
-                    .orElseThrow(() -> new RuntimeException("Materia no encontrada"));
-
-            if (!materia.getUsuario().getId().equals(usuarioId)) {
-                throw new RuntimeException("La materia no pertenece al usuario");
-            }
-
-            tarea.setMateria(materia);
+            tarea.setMateria(verificadorPropiedad.materiaInicializada(tarea.getMateria().getId(), usuarioId));
         } else {
             // Si no hay materia, asegurar que sea null
             tarea.setMateria(null);
@@ -207,21 +393,15 @@ public class TareaService {
     }
 
     /**
-     * Verifica que una tarea pertenece al usuario y la retorna
+     * Verifica que una tarea pertenece al usuario y la retorna con su materia
      * 
      * @param tareaId   ID de la tarea
      * @param usuarioId ID del usuario
      * @return Tarea si pertenece al usuario
-     * @throws RuntimeException si no tiene permisos
+     * @throws ResponseStatusException 404 si no existe o es de otro usuario
      */
     private Tarea obtenerTareaConPermisos(Long tareaId, Long usuarioId) {
-        Tarea tarea = tareaRepository.findById(tareaId)
-                .orElseThrow(() -> new RuntimeException("Tarea no encontrada"));
-
-        if (!tarea.getUsuario().getId().equals(usuarioId)) {
-            throw new RuntimeException("No tienes permisos para esta tarea");
-        }
-
-        return tarea;
+        return tareaRepository.findConMateriaByIdAndUsuarioId(tareaId, usuarioId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Tarea no encontrada"));
     }
 }
\ No newline at end of file
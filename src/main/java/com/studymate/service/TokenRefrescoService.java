@@ -0,0 +1,137 @@
+package com.studymate.service;
+
+import com.studymate.model.TokenRefresco;
+import com.studymate.model.Usuario;
+import com.studymate.repository.TokenRefrescoRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Servicio que emite y rota los refresh tokens.
+ * Es el único punto del flujo de autenticación que consulta la base de datos:
+ * los tokens de acceso son de corta duración y se validan sin estado.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRefrescoService {
+
+    private final TokenRefrescoRepository tokenRefrescoRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${jwt.refresh-expiration:1209600000}")
+    private long refreshExpirationMs;
+
+    /**
+     * Resultado de una rotación: el usuario dueño y el nuevo refresh token en claro
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Rotacion {
+        private final Usuario usuario;
+        private final String refreshToken;
+    }
+
+    /**
+     * Emite un refresh token que inicia una nueva familia (login o registro)
+     * 
+     * @param usuario Usuario autenticado
+     * @return Refresh token en claro, solo se devuelve al cliente
+     */
+    @Transactional
+    public String emitir(Usuario usuario) {
+        return emitir(usuario, UUID.randomUUID().toString()).getRefreshToken();
+    }
+
+    /**
+     * Rota un refresh token: lo invalida y emite otro de la misma familia.
+     * Si el token ya había sido usado se revoca la familia completa.
+     * 
+     * @param refreshToken Token presentado por el cliente
+     * @return Usuario y nuevo refresh token
+     */
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public Rotacion rotar(String refreshToken) {
+        String hash = hashear(refreshToken);
+        TokenRefresco actual = tokenRefrescoRepository.findByTokenHashForUpdate(hash)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token inválido"));
+
+        if (Boolean.TRUE.equals(actual.getRevocado())) {
+            // Un token ya rotado vuelve a presentarse: posible robo, se invalida toda la familia
+            int revocados = tokenRefrescoRepository.revocarFamilia(actual.getFamilia());
+            log.warn("Reutilización de refresh token detectada para usuario {} (familia {}, {} tokens revocados)",
+                    actual.getUsuario().getId(), actual.getFamilia(), revocados);
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token reutilizado");
+        }
+
+        if (actual.getFechaExpiracion().isBefore(LocalDateTime.now())) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token expirado");
+        }
+
+        Usuario usuario = actual.getUsuario();
+        if (!Boolean.TRUE.equals(usuario.getActivo())) {
+            tokenRefrescoRepository.revocarFamilia(actual.getFamilia());
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuario inactivo");
+        }
+
+        Rotacion rotacion = emitir(usuario, actual.getFamilia());
+        actual.setRevocado(true);
+        actual.setReemplazadoPor(hashear(rotacion.getRefreshToken()));
+        tokenRefrescoRepository.save(actual);
+        return rotacion;
+    }
+
+    /**
+     * Elimina periódicamente los tokens expirados
+     */
+    @Scheduled(cron = "${jwt.refresh-purga-cron:0 30 4 * * *}")
+    @Transactional
+    public void eliminarExpirados() {
+        int eliminados = tokenRefrescoRepository.eliminarExpirados(LocalDateTime.now());
+        if (eliminados > 0) {
+            log.info("Eliminados {} refresh tokens expirados", eliminados);
+        }
+    }
+
+    private Rotacion emitir(Usuario usuario, String familia) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        TokenRefresco token = new TokenRefresco();
+        token.setTokenHash(hashear(refreshToken));
+        token.setFamilia(familia);
+        token.setUsuario(usuario);
+        token.setRevocado(false);
+        token.setFechaExpiracion(LocalDateTime.now().plus(Duration.ofMillis(refreshExpirationMs)));
+        tokenRefrescoRepository.save(token);
+        return new Rotacion(usuario, refreshToken);
+    }
+
+    private String hashear(String refreshToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(refreshToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -1,21 +1,45 @@
 package com.studymate.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studymate.config.PaginacionConfig;
+import com.studymate.dto.PaginaDTO;
 import com.studymate.dto.UsuarioDTO;
+import com.studymate.model.FormatoExportacion;
 import com.studymate.model.Usuario;
 import com.studymate.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UsuarioService {
 
+    // Usuarios exportados entre vaciados del contexto de persistencia
+    private static final int LOTE_EXPORTACION = 500;
+
     private final UsuarioRepository usuarioRepository;
+    private final PaginacionConfig paginacionConfig;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
 
     // Crear nuevo usuario
+    @Transactional
     public Usuario crearUsuario(UsuarioDTO usuarioDTO) {
         try {
             System.out.println("=== SERVICE: Creando usuario ===");
@@ -43,21 +67,25 @@ public class UsuarioService {
     }
 
     // Buscar usuario por ID
+    @Transactional(readOnly = true)
     public Optional<Usuario> buscarPorId(Long id) {
         return usuarioRepository.findById(id);
     }
 
     // Buscar usuario por email
+    @Transactional(readOnly = true)
     public Optional<Usuario> buscarPorEmail(String email) {
         return usuarioRepository.findByEmailAndActivoTrue(email);
     }
 
     // Verificar si existe usuario por email
+    @Transactional(readOnly = true)
     public boolean existePorEmail(String email) {
         return usuarioRepository.existsByEmail(email);
     }
 
     // Actualizar usuario
+    @Transactional
     public Usuario actualizarUsuario(Usuario usuario) {
         if (!usuarioRepository.existsById(usuario.getId())) {
             throw new RuntimeException("Usuario no encontrado");
@@ -66,6 +94,7 @@ public class UsuarioService {
     }
 
     // Eliminar usuario (desactivar)
+    @Transactional
     public void desactivarUsuario(Long id) {
         Usuario usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
@@ -73,11 +102,60 @@ public class UsuarioService {
         usuarioRepository.save(usuario);
     }
 
-    // Listar todos los usuarios activos
-    public List<Usuario> listarUsuariosActivos() {
-        return usuarioRepository.findAll().stream()
-                .filter(Usuario::getActivo)
-                .toList();
+    // Listar una página de usuarios activos ordenados por id; el cursor es el id del último de la página anterior
+    @Transactional(readOnly = true)
+    public PaginaDTO<Usuario> listarUsuariosActivos(String cursor, Integer tamano) {
+        int tamanoPagina = paginacionConfig.resolverTamano(tamano);
+        long despuesDe = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                despuesDe = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+            }
+        }
+        List<Usuario> filas = usuarioRepository.findActivosDespuesDe(despuesDe, Limit.of(tamanoPagina + 1));
+        return PaginaDTO.desdeFilas(filas, tamanoPagina, u -> String.valueOf(u.getId()));
+    }
+
+    // Escribir todos los usuarios activos en la salida sin cargarlos a la vez: se leen desde un cursor
+    // del servidor y el contexto de persistencia se vacía cada lote, así que la memoria no crece con el total
+    @Transactional(readOnly = true)
+    public void exportarUsuariosActivos(FormatoExportacion formato, OutputStream salida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        if (formato == FormatoExportacion.CSV) {
+            writer.write("id,nombre,apellido,email,fechaRegistro\n");
+        }
+        try (Stream<Usuario> usuarios = usuarioRepository.streamActivos()) {
+            int escritos = 0;
+            for (Iterator<Usuario> it = usuarios.iterator(); it.hasNext();) {
+                Usuario usuario = it.next();
+                writer.write(formato == FormatoExportacion.CSV ? filaCsv(usuario)
+                        : objectMapper.writeValueAsString(usuario));
+                writer.write('\n');
+                if (++escritos % LOTE_EXPORTACION == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    private String filaCsv(Usuario usuario) {
+        return String.join(",", String.valueOf(usuario.getId()), campoCsv(usuario.getNombre()),
+                campoCsv(usuario.getApellido()), campoCsv(usuario.getEmail()),
+                usuario.getFechaRegistro() != null ? usuario.getFechaRegistro().toString() : "");
+    }
+
+    // Entrecomillar los campos con separadores, comillas o saltos de línea (RFC 4180)
+    private String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.contains(",") || valor.contains("\"") || valor.contains("\n") || valor.contains("\r")) {
+            return "\"" + valor.replace("\"", "\"\"") + "\"";
+        }
+        return valor;
     }
 
     // Método auxiliar para convertir DTO a entidad
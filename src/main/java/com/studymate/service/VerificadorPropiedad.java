@@ -0,0 +1,63 @@
+package com.studymate.service;
+
+import com.studymate.model.Materia;
+import com.studymate.model.Usuario;
+import com.studymate.repository.MateriaRepository;
+import com.studymate.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Comprobaciones de propiedad para las escrituras: consultas exists en lugar de cargar la
+ * entidad y navegar sus relaciones, y referencias (proxies) para asignar las asociaciones.
+ * Debe usarse dentro de la transacción del servicio que escribe.
+ */
+@Service
+@RequiredArgsConstructor
+public class VerificadorPropiedad {
+
+    private final UsuarioRepository usuarioRepository;
+    private final MateriaRepository materiaRepository;
+
+    /**
+     * Referencia al usuario autenticado, sin consultarlo: el token ya identifica un usuario existente
+     * 
+     * @param usuarioId ID del usuario
+     * @return Proxy del usuario
+     */
+    public Usuario usuario(Long usuarioId) {
+        return usuarioRepository.getReferenceById(usuarioId);
+    }
+
+    /**
+     * Comprueba con una consulta exists que la materia es del usuario y devuelve una referencia a ella
+     * 
+     * @param materiaId ID de la materia
+     * @param usuarioId ID del usuario
+     * @return Proxy de la materia
+     * @throws ResponseStatusException 404 si no existe o es de otro usuario
+     */
+    public Materia materia(Long materiaId, Long usuarioId) {
+        if (!materiaRepository.existsByIdAndUsuarioId(materiaId, usuarioId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Materia no encontrada");
+        }
+        return materiaRepository.getReferenceById(materiaId);
+    }
+
+    /**
+     * Como {@link #materia}, pero inicializada para devolverla en la respuesta, que se serializa fuera
+     * de la transacción. Materia está en la caché de segundo nivel, así que normalmente no añade consultas.
+     * 
+     * @param materiaId ID de la materia
+     * @param usuarioId ID del usuario
+     * @return Materia cargada
+     */
+    public Materia materiaInicializada(Long materiaId, Long usuarioId) {
+        Materia materia = materia(materiaId, usuarioId);
+        Hibernate.initialize(materia);
+        return materia;
+    }
+}
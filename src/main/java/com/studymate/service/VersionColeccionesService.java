@@ -0,0 +1,70 @@
+package com.studymate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Versión por usuario de sus colecciones de tareas, notas y materias. Cada escritura la
+ * incrementa y los listados la usan como ETag débil para responder 304 a If-None-Match
+ * sin ejecutar la consulta del listado.
+ * 
+ * Se lee y escribe con JdbcTemplate: una actualización de Usuario a través de Hibernate
+ * invalidaría su entrada en la caché de segundo nivel en cada escritura del usuario.
+ */
+@Service
+@RequiredArgsConstructor
+public class VersionColeccionesService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * ETag débil de las colecciones del usuario en su versión actual
+     * 
+     * @param usuarioId ID del usuario
+     * @return ETag con el formato W/"u{usuarioId}-v{version}"
+     */
+    @Transactional(readOnly = true)
+    public String etag(Long usuarioId) {
+        List<Long> versiones = jdbcTemplate.queryForList(
+                "SELECT version_colecciones FROM usuarios WHERE id = ?", Long.class, usuarioId);
+        long version = versiones.isEmpty() ? 0 : versiones.get(0);
+        return "W/\"u" + usuarioId + "-v" + version + "\"";
+    }
+
+    /**
+     * Incrementa la versión tras modificar alguna colección del usuario
+     * 
+     * @param usuarioId ID del usuario
+     * @return Versión nueva, la que llevan los eventos de /eventos
+     */
+    @Transactional
+    public long incrementar(Long usuarioId) {
+        jdbcTemplate.update("UPDATE usuarios SET version_colecciones = version_colecciones + 1 WHERE id = ?",
+                usuarioId);
+        // La fila queda bloqueada hasta el commit: ninguna otra escritura del usuario cambia la versión entre medias
+        List<Long> versiones = jdbcTemplate.queryForList(
+                "SELECT version_colecciones FROM usuarios WHERE id = ?", Long.class, usuarioId);
+        return versiones.isEmpty() ? 0 : versiones.get(0);
+    }
+
+    /**
+     * Incrementa la versión de varios usuarios, en orden de id para no provocar interbloqueos
+     * 
+     * @param usuarioIds IDs de los usuarios
+     */
+    @Transactional
+    public void incrementar(Collection<Long> usuarioIds) {
+        List<Object[]> argumentos = usuarioIds.stream().distinct().sorted()
+                .map(id -> new Object[] { id })
+                .toList();
+        if (!argumentos.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE usuarios SET version_colecciones = version_colecciones + 1 WHERE id = ?",
+                    argumentos);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.studymate.util;
+
+/**
+ * Usuario autenticado de la petición en curso, disponible fuera de los controladores
+ * (por ejemplo en la capa de acceso a datos). Lo fija el filtro JWT y se limpia al terminar la petición.
+ */
+public final class ContextoUsuario {
+
+    private static final ThreadLocal<Long> USUARIO_ACTUAL = new ThreadLocal<>();
+
+    private ContextoUsuario() {
+    }
+
+    public static void establecer(Long usuarioId) {
+        USUARIO_ACTUAL.set(usuarioId);
+    }
+
+    /**
+     * @return ID del usuario de la petición en curso, o null si no hay ninguno
+     */
+    public static Long actual() {
+        return USUARIO_ACTUAL.get();
+    }
+
+    public static void limpiar() {
+        USUARIO_ACTUAL.remove();
+    }
+}
@@ -0,0 +1,55 @@
+package com.studymate.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para paginación keyset sobre (fecha_creacion, id).
+ * El cliente lo recibe como texto base64 y lo devuelve sin interpretarlo.
+ */
+public final class Cursor {
+
+    private final LocalDateTime fecha;
+    private final Long id;
+
+    private Cursor(LocalDateTime fecha, Long id) {
+        this.fecha = fecha;
+        this.id = id;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Codifica la posición de la última fila devuelta
+     */
+    public static String codificar(LocalDateTime fecha, Long id) {
+        String valor = fecha + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido del cliente
+     * 
+     * @throws ResponseStatusException 400 si el cursor no es válido
+     */
+    public static Cursor decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.parseLong(valor.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginación inválido");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.studymate.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Cursor opaco de GET /sync: el instante hasta el que el cliente tiene aplicados los cambios
+ */
+public final class CursorSincronizacion {
+
+    private CursorSincronizacion() {
+    }
+
+    /**
+     * Codifica el instante de la sincronización
+     */
+    public static String codificar(LocalDateTime fecha) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(fecha.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido del cliente
+     * 
+     * @throws ResponseStatusException 400 si el cursor no es válido
+     */
+    public static LocalDateTime decodificar(String cursor) {
+        try {
+            return LocalDateTime.parse(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de sincronización inválido");
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.studymate.util;
+
+import com.studymate.dto.SugerenciaDTO;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Índice inmutable de títulos para autocompletado por prefijo.
+ * Guarda los títulos normalizados (minúsculas y sin acentos) en arrays ordenados
+ * y resuelve cada búsqueda con una búsqueda binaria. Las modificaciones devuelven
+ * un índice nuevo, así las lecturas concurrentes no necesitan bloqueo.
+ */
+public final class IndicePrefijos {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private final String[] claves;
+    private final long[] ids;
+    private final String[] titulos;
+
+    private IndicePrefijos(String[] claves, long[] ids, String[] titulos) {
+        this.claves = claves;
+        this.ids = ids;
+        this.titulos = titulos;
+    }
+
+    /**
+     * Construye el índice a partir de los pares id/título
+     */
+    public static IndicePrefijos construir(List<SugerenciaDTO> elementos) {
+        int n = elementos.size();
+        String[] normalizados = new String[n];
+        Integer[] orden = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            normalizados[i] = normalizar(elementos.get(i).getTitulo());
+            orden[i] = i;
+        }
+        Arrays.sort(orden, Comparator.<Integer, String>comparing(i -> normalizados[i])
+                .thenComparingLong(i -> elementos.get(i).getId()));
+
+        String[] claves = new String[n];
+        long[] ids = new long[n];
+        String[] titulos = new String[n];
+        for (int i = 0; i < n; i++) {
+            SugerenciaDTO elemento = elementos.get(orden[i]);
+            claves[i] = normalizados[orden[i]];
+            ids[i] = elemento.getId();
+            titulos[i] = elemento.getTitulo();
+        }
+        return new IndicePrefijos(claves, ids, titulos);
+    }
+
+    /**
+     * Devuelve hasta limite elementos cuyo título normalizado empieza por el prefijo
+     */
+    public List<SugerenciaDTO> buscar(String prefijo, int limite) {
+        String clave = normalizar(prefijo);
+        List<SugerenciaDTO> resultado = new ArrayList<>(Math.min(limite, claves.length));
+        for (int i = primeraPosicion(clave, Long.MIN_VALUE); i < claves.length && resultado.size() < limite; i++) {
+            if (!claves[i].startsWith(clave)) {
+                break;
+            }
+            resultado.add(new SugerenciaDTO(ids[i], titulos[i]));
+        }
+        return resultado;
+    }
+
+    /**
+     * Devuelve un índice con el elemento añadido, o reemplazado si ya existía ese id
+     */
+    public IndicePrefijos conElemento(long id, String titulo) {
+        IndicePrefijos base = sinElemento(id);
+        String clave = normalizar(titulo);
+        int posicion = base.primeraPosicion(clave, id);
+        int n = base.claves.length;
+
+        String[] nuevasClaves = new String[n + 1];
+        long[] nuevosIds = new long[n + 1];
+        String[] nuevosTitulos = new String[n + 1];
+        System.arraycopy(base.claves, 0, nuevasClaves, 0, posicion);
+        System.arraycopy(base.ids, 0, nuevosIds, 0, posicion);
+        System.arraycopy(base.titulos, 0, nuevosTitulos, 0, posicion);
+        nuevasClaves[posicion] = clave;
+        nuevosIds[posicion] = id;
+        nuevosTitulos[posicion] = titulo;
+        System.arraycopy(base.claves, posicion, nuevasClaves, posicion + 1, n - posicion);
+        System.arraycopy(base.ids, posicion, nuevosIds, posicion + 1, n - posicion);
+        System.arraycopy(base.titulos, posicion, nuevosTitulos, posicion + 1, n - posicion);
+        return new IndicePrefijos(nuevasClaves, nuevosIds, nuevosTitulos);
+    }
+
+    /**
+     * Devuelve un índice sin el elemento con ese id (el mismo índice si no estaba)
+     */
+    public IndicePrefijos sinElemento(long id) {
+        int posicion = -1;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                posicion = i;
+                break;
+            }
+        }
+        if (posicion < 0) {
+            return this;
+        }
+        int n = claves.length;
+        String[] nuevasClaves = new String[n - 1];
+        long[] nuevosIds = new long[n - 1];
+        String[] nuevosTitulos = new String[n - 1];
+        System.arraycopy(claves, 0, nuevasClaves, 0, posicion);
+        System.arraycopy(ids, 0, nuevosIds, 0, posicion);
+        System.arraycopy(titulos, 0, nuevosTitulos, 0, posicion);
+        System.arraycopy(claves, posicion + 1, nuevasClaves, posicion, n - posicion - 1);
+        System.arraycopy(ids, posicion + 1, nuevosIds, posicion, n - posicion - 1);
+        System.arraycopy(titulos, posicion + 1, nuevosTitulos, posicion, n - posicion - 1);
+        return new IndicePrefijos(nuevasClaves, nuevosIds, nuevosTitulos);
+    }
+
+    public int tamano() {
+        return claves.length;
+    }
+
+    /**
+     * Pasa un título a minúsculas, sin acentos y con los espacios colapsados
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinAcentos = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACIOS.matcher(sinAcentos.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    /**
+     * Primera posición cuyo par (clave, id) es mayor o igual que el indicado
+     */
+    private int primeraPosicion(String clave, long id) {
+        int bajo = 0;
+        int alto = claves.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            int comparacion = claves[medio].compareTo(clave);
+            if (comparacion < 0 || (comparacion == 0 && ids[medio] < id)) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+}
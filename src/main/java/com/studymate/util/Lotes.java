@@ -0,0 +1,52 @@
+package com.studymate.util;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Utilidades comunes de las operaciones por lotes
+ */
+public final class Lotes {
+
+    // Máximo de elementos aceptados en una operación por lotes
+    public static final int TAMANO_MAXIMO = 500;
+
+    private Lotes() {
+    }
+
+    /**
+     * Rechaza con 400 los lotes vacíos o demasiado grandes
+     */
+    public static void validarTamano(List<?> elementos) {
+        if (elementos == null || elementos.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El lote está vacío");
+        }
+        if (elementos.size() > TAMANO_MAXIMO) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El lote no puede superar " + TAMANO_MAXIMO + " elementos");
+        }
+    }
+
+    /**
+     * Valida las anotaciones de un elemento del lote
+     * 
+     * @return Mensaje de error, o null si es válido
+     */
+    public static <T> String validarElemento(Validator validator, T elemento) {
+        if (elemento == null) {
+            return "Elemento vacío";
+        }
+        Set<ConstraintViolation<T>> violaciones = validator.validate(elemento);
+        if (violaciones.isEmpty()) {
+            return null;
+        }
+        return violaciones.stream().map(ConstraintViolation::getMessage).sorted()
+                .collect(Collectors.joining("; "));
+    }
+}
@@ -0,0 +1,213 @@
+package com.studymate.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rueda temporal jerárquica para programar muchos vencimientos con coste constante.
+ * Cada nivel divide su alcance en ranuras; el nivel 0 tiene una ranura por tick y cada nivel
+ * superior una ranura por vuelta completa del anterior (segundos, minutos, horas...). Programar
+ * y cancelar son O(1): se calcula la ranura y se enlaza o desenlaza la entrada de su lista.
+ * Al avanzar, cuando un nivel inferior completa una vuelta se redistribuye la ranura del
+ * superior, y las entradas bajan de nivel hasta vencer en el nivel 0.
+ * No es segura entre hilos: quien la use debe sincronizar el acceso.
+ */
+public final class RuedaTemporal<T> {
+
+    /**
+     * Vencimiento programado; sirve para cancelarlo
+     */
+    public static final class Entrada<T> {
+        private final long tick;
+        private final T valor;
+        private Entrada<T> anterior;
+        private Entrada<T> siguiente;
+        private Ranura<T> ranura;
+
+        private Entrada(long tick, T valor) {
+            this.tick = tick;
+            this.valor = valor;
+        }
+
+        public T getValor() {
+            return valor;
+        }
+
+        public boolean isProgramada() {
+            return ranura != null;
+        }
+    }
+
+    // Lista doblemente enlazada de las entradas de una ranura
+    private static final class Ranura<T> {
+        private Entrada<T> primera;
+
+        void enlazar(Entrada<T> entrada) {
+            entrada.ranura = this;
+            entrada.anterior = null;
+            entrada.siguiente = primera;
+            if (primera != null) {
+                primera.anterior = entrada;
+            }
+            primera = entrada;
+        }
+
+        void desenlazar(Entrada<T> entrada) {
+            if (entrada.anterior != null) {
+                entrada.anterior.siguiente = entrada.siguiente;
+            } else {
+                primera = entrada.siguiente;
+            }
+            if (entrada.siguiente != null) {
+                entrada.siguiente.anterior = entrada.anterior;
+            }
+            entrada.anterior = null;
+            entrada.siguiente = null;
+            entrada.ranura = null;
+        }
+
+        // Vacía la ranura y devuelve sus entradas
+        Entrada<T> vaciar() {
+            Entrada<T> lista = primera;
+            primera = null;
+            return lista;
+        }
+    }
+
+    private final long tickMs;
+    private final Ranura<T>[][] niveles;
+    // Ticks que abarca una ranura de cada nivel
+    private final long[] unidades;
+    // Ticks que abarca la rueda completa
+    private final long alcance;
+    private long tickActual;
+    private int tamano;
+
+    /**
+     * @param tickMs          Duración de un tick en milisegundos
+     * @param ranurasPorNivel Ranuras de cada nivel, del más fino al más grueso
+     * @param inicioMs        Instante inicial en milisegundos
+     */
+    @SuppressWarnings("unchecked")
+    public RuedaTemporal(long tickMs, int[] ranurasPorNivel, long inicioMs) {
+        if (tickMs <= 0 || ranurasPorNivel.length == 0) {
+            throw new IllegalArgumentException("Se necesita un tick positivo y al menos un nivel");
+        }
+        this.tickMs = tickMs;
+        this.niveles = new Ranura[ranurasPorNivel.length][];
+        this.unidades = new long[ranurasPorNivel.length];
+        long unidad = 1;
+        for (int i = 0; i < ranurasPorNivel.length; i++) {
+            niveles[i] = new Ranura[ranurasPorNivel[i]];
+            for (int j = 0; j < ranurasPorNivel[i]; j++) {
+                niveles[i][j] = new Ranura<>();
+            }
+            unidades[i] = unidad;
+            unidad = Math.multiplyExact(unidad, ranurasPorNivel[i]);
+        }
+        this.alcance = unidad;
+        this.tickActual = inicioMs / tickMs;
+    }
+
+    /**
+     * Programa un valor para el instante indicado; si ya ha pasado vence en el siguiente avance
+     *
+     * @param vencimientoMs Instante de vencimiento en milisegundos
+     * @param valor         Valor que se devolverá al vencer
+     * @return Entrada para cancelarlo
+     * @throws IllegalArgumentException si el vencimiento queda fuera del alcance de la rueda
+     */
+    public Entrada<T> programar(long vencimientoMs, T valor) {
+        // Redondeo hacia arriba: nunca vence antes de tiempo
+        long tick = Math.max(Math.floorDiv(vencimientoMs + tickMs - 1, tickMs), tickActual + 1);
+        if (tick - tickActual >= alcance) {
+            throw new IllegalArgumentException("Vencimiento fuera del alcance de la rueda");
+        }
+        Entrada<T> entrada = new Entrada<>(tick, valor);
+        colocar(entrada);
+        tamano++;
+        return entrada;
+    }
+
+    /**
+     * Cancela una entrada programada; no hace nada si ya venció o se canceló
+     */
+    public void cancelar(Entrada<T> entrada) {
+        if (entrada.ranura != null) {
+            entrada.ranura.desenlazar(entrada);
+            tamano--;
+        }
+    }
+
+    /**
+     * Avanza la rueda tick a tick hasta el instante indicado
+     *
+     * @param ahoraMs Instante actual en milisegundos
+     * @return Valores vencidos, en orden de vencimiento
+     */
+    public List<T> avanzar(long ahoraMs) {
+        long hasta = Math.floorDiv(ahoraMs, tickMs);
+        List<T> vencidos = new ArrayList<>();
+        while (tickActual < hasta) {
+            tickActual++;
+            // Redistribuir de arriba abajo las ranuras cuyo nivel inferior acaba de dar la vuelta
+            for (int nivel = niveles.length - 1; nivel > 0; nivel--) {
+                if (tickActual % unidades[nivel] == 0) {
+                    redistribuir(niveles[nivel][indice(nivel, tickActual)], vencidos);
+                }
+            }
+            Ranura<T> actual = niveles[0][indice(0, tickActual)];
+            for (Entrada<T> e = actual.vaciar(); e != null;) {
+                Entrada<T> siguiente = e.siguiente;
+                liberar(e);
+                vencidos.add(e.valor);
+                e = siguiente;
+            }
+        }
+        return vencidos;
+    }
+
+    /**
+     * Entradas programadas pendientes de vencer
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    private void redistribuir(Ranura<T> ranura, List<T> vencidos) {
+        for (Entrada<T> e = ranura.vaciar(); e != null;) {
+            Entrada<T> siguiente = e.siguiente;
+            e.anterior = null;
+            e.siguiente = null;
+            e.ranura = null;
+            if (e.tick <= tickActual) {
+                liberar(e);
+                vencidos.add(e.valor);
+            } else {
+                colocar(e);
+            }
+            e = siguiente;
+        }
+    }
+
+    // Nivel más bajo cuyo alcance cubre el vencimiento
+    private void colocar(Entrada<T> entrada) {
+        long restante = entrada.tick - tickActual;
+        int nivel = 0;
+        while (nivel < niveles.length - 1 && restante >= unidades[nivel + 1]) {
+            nivel++;
+        }
+        niveles[nivel][indice(nivel, entrada.tick)].enlazar(entrada);
+    }
+
+    private void liberar(Entrada<T> entrada) {
+        entrada.anterior = null;
+        entrada.siguiente = null;
+        entrada.ranura = null;
+        tamano--;
+    }
+
+    private int indice(int nivel, long tick) {
+        return (int) ((tick / unidades[nivel]) % niveles[nivel].length);
+    }
+}
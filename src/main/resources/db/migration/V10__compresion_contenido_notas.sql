@@ -0,0 +1,21 @@
+-- Contenido de las notas comprimido con LZ4 y extracto para los listados.
+-- El contenido sigue siendo TEXT: la búsqueda de texto completo (V3) y ts_headline lo leen tal cual,
+-- y PostgreSQL lo comprime de forma transparente al guardarlo fuera de la fila (TOAST). LZ4
+-- comprime y descomprime varias veces más rápido que pglz, el método por defecto.
+-- Las filas existentes conservan pglz hasta que CompresionNotasService las reescribe por lotes.
+DO $$
+BEGIN
+    IF current_setting('server_version_num')::int >= 140000 THEN
+        EXECUTE 'ALTER TABLE notas ALTER COLUMN contenido SET COMPRESSION lz4';
+    END IF;
+EXCEPTION WHEN OTHERS THEN
+    -- Servidor compilado sin LZ4: se mantiene pglz
+    RAISE NOTICE 'Compresión LZ4 no disponible para notas.contenido: %', SQLERRM;
+END $$;
+
+-- Primeros 200 caracteres del contenido; los listados ya no descomprimen el contenido completo.
+-- Las notas existentes la reciben en segundo plano
+ALTER TABLE notas ADD COLUMN IF NOT EXISTS extracto VARCHAR(200);
+
+-- Notas pendientes de migrar; queda vacío cuando termina la migración
+CREATE INDEX IF NOT EXISTS idx_notas_sin_extracto ON notas(id) WHERE extracto IS NULL AND contenido IS NOT NULL;
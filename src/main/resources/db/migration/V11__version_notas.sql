@@ -0,0 +1,3 @@
+-- Versión de cada nota para el bloqueo optimista de PATCH /notas/{id}.
+-- Con un valor por defecto constante PostgreSQL añade la columna sin reescribir la tabla
+ALTER TABLE notas ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
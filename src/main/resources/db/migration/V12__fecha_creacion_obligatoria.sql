@@ -0,0 +1,11 @@
+-- fecha_creacion obligatoria en tareas, notas y materias: la paginación por cursor (fecha_creacion, id)
+-- no puede situarse sobre una fila sin fecha, que además nunca cumpliría fecha_creacion <= :fecha.
+-- Las filas anteriores sin fecha toman la de su última modificación (rellenada en V7)
+UPDATE tareas SET fecha_creacion = COALESCE(fecha_modificacion, CURRENT_TIMESTAMP) WHERE fecha_creacion IS NULL;
+ALTER TABLE tareas ALTER COLUMN fecha_creacion SET NOT NULL;
+
+UPDATE notas SET fecha_creacion = COALESCE(fecha_modificacion, CURRENT_TIMESTAMP) WHERE fecha_creacion IS NULL;
+ALTER TABLE notas ALTER COLUMN fecha_creacion SET NOT NULL;
+
+UPDATE materias SET fecha_creacion = COALESCE(fecha_modificacion, CURRENT_TIMESTAMP) WHERE fecha_creacion IS NULL;
+ALTER TABLE materias ALTER COLUMN fecha_creacion SET NOT NULL;
@@ -0,0 +1,66 @@
+-- Esquema inicial de StudyMate
+-- Idempotente: en bases de datos creadas antes con ddl-auto=update solo añade lo que falte
+
+CREATE TABLE IF NOT EXISTS usuarios (
+    id BIGSERIAL PRIMARY KEY,
+    nombre VARCHAR(255) NOT NULL,
+    apellido VARCHAR(255),
+    email VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    fecha_registro TIMESTAMP,
+    activo BOOLEAN DEFAULT TRUE
+);
+
+CREATE TABLE IF NOT EXISTS materias (
+    id BIGSERIAL PRIMARY KEY,
+    nombre VARCHAR(255) NOT NULL,
+    codigo VARCHAR(20),
+    descripcion TEXT,
+    creditos INTEGER,
+    color VARCHAR(7),
+    profesor VARCHAR(100),
+    horario VARCHAR(200),
+    activa BOOLEAN DEFAULT TRUE,
+    usuario_id BIGINT NOT NULL REFERENCES usuarios(id) ON DELETE CASCADE,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE materias ADD COLUMN IF NOT EXISTS activa BOOLEAN DEFAULT TRUE;
+ALTER TABLE materias ADD COLUMN IF NOT EXISTS profesor VARCHAR(100);
+ALTER TABLE materias ADD COLUMN IF NOT EXISTS horario VARCHAR(200);
+
+CREATE TABLE IF NOT EXISTS notas (
+    id BIGSERIAL PRIMARY KEY,
+    titulo VARCHAR(255) NOT NULL,
+    contenido TEXT,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    fecha_modificacion TIMESTAMP,
+    usuario_id BIGINT NOT NULL REFERENCES usuarios(id) ON DELETE CASCADE,
+    materia_id BIGINT REFERENCES materias(id) ON DELETE SET NULL
+);
+
+CREATE TABLE IF NOT EXISTS tareas (
+    id BIGSERIAL PRIMARY KEY,
+    titulo VARCHAR(255) NOT NULL,
+    descripcion TEXT,
+    fecha_limite TIMESTAMP,
+    completada BOOLEAN DEFAULT FALSE,
+    prioridad VARCHAR(20) DEFAULT 'MEDIA',
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    usuario_id BIGINT NOT NULL REFERENCES usuarios(id) ON DELETE CASCADE,
+    materia_id BIGINT REFERENCES materias(id) ON DELETE SET NULL
+);
+
+CREATE TABLE IF NOT EXISTS tokens_refresco (
+    id BIGSERIAL PRIMARY KEY,
+    token_hash VARCHAR(64) NOT NULL UNIQUE,
+    familia VARCHAR(36) NOT NULL,
+    usuario_id BIGINT NOT NULL REFERENCES usuarios(id) ON DELETE CASCADE,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    fecha_expiracion TIMESTAMP NOT NULL,
+    revocado BOOLEAN NOT NULL DEFAULT FALSE,
+    reemplazado_por VARCHAR(64)
+);
+
+CREATE INDEX IF NOT EXISTS idx_tokens_refresco_familia ON tokens_refresco(familia);
+CREATE INDEX IF NOT EXISTS idx_tokens_refresco_expiracion ON tokens_refresco(fecha_expiracion);
@@ -0,0 +1,55 @@
+-- Índices compuestos alineados con las consultas reales de los repositorios
+
+-- Listados paginados por cursor (fecha_creacion, id)
+CREATE INDEX IF NOT EXISTS idx_tareas_usuario_fecha_creacion ON tareas(usuario_id, fecha_creacion, id);
+CREATE INDEX IF NOT EXISTS idx_notas_usuario_fecha_creacion ON notas(usuario_id, fecha_creacion, id);
+CREATE INDEX IF NOT EXISTS idx_materias_usuario_fecha_creacion ON materias(usuario_id, fecha_creacion, id);
+
+-- TareaRepository.findTareasUrgentes y findByUsuarioIdAndCompletadaFalse
+CREATE INDEX IF NOT EXISTS idx_tareas_usuario_completada_fecha_limite ON tareas(usuario_id, completada, fecha_limite);
+
+-- findByMateriaIdAndUsuarioId
+CREATE INDEX IF NOT EXISTS idx_tareas_usuario_materia ON tareas(usuario_id, materia_id);
+CREATE INDEX IF NOT EXISTS idx_notas_usuario_materia ON notas(usuario_id, materia_id);
+
+-- findByUsuarioIdAndMateriaIsNull (tareas y notas generales)
+CREATE INDEX IF NOT EXISTS idx_tareas_generales ON tareas(usuario_id) WHERE materia_id IS NULL;
+CREATE INDEX IF NOT EXISTS idx_notas_generales ON notas(usuario_id) WHERE materia_id IS NULL;
+
+-- Claves foráneas hacia materias (borrado de una materia)
+CREATE INDEX IF NOT EXISTS idx_tareas_materia_id ON tareas(materia_id);
+CREATE INDEX IF NOT EXISTS idx_notas_materia_id ON notas(materia_id);
+
+-- Nombre de materia único por usuario (findByNombreAndUsuarioId / existsByNombreAndUsuarioId).
+-- Los duplicados previos (salvo el más antiguo) se renombran con su id para que el índice pueda crearse.
+-- Si el usuario ya tiene una materia con ese nombre se añade un contador, y el nombre base se recorta
+-- para que el resultado quepa en los 100 caracteres que admite la entidad.
+DO $$
+DECLARE
+    duplicada RECORD;
+    intento INTEGER;
+    sufijo TEXT;
+    candidato TEXT;
+BEGIN
+    FOR duplicada IN
+        SELECT m.id, m.usuario_id, m.nombre FROM materias m
+        WHERE EXISTS (SELECT 1 FROM materias o
+                      WHERE o.usuario_id = m.usuario_id AND o.nombre = m.nombre AND o.id < m.id)
+        ORDER BY m.id
+    LOOP
+        intento := 0;
+        LOOP
+            sufijo := ' (' || duplicada.id || CASE WHEN intento > 0 THEN '-' || intento ELSE '' END || ')';
+            candidato := LEFT(duplicada.nombre, 100 - LENGTH(sufijo)) || sufijo;
+            EXIT WHEN NOT EXISTS (SELECT 1 FROM materias
+                                  WHERE usuario_id = duplicada.usuario_id AND nombre = candidato);
+            intento := intento + 1;
+        END LOOP;
+        UPDATE materias SET nombre = candidato WHERE id = duplicada.id;
+    END LOOP;
+END $$;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_materias_usuario_nombre ON materias(usuario_id, nombre);
+
+-- Índices de una sola columna que ya cubren los compuestos anteriores
+DROP INDEX IF EXISTS idx_tareas_usuario_id;
+DROP INDEX IF EXISTS idx_tareas_completada;
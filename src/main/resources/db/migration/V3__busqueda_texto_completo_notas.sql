@@ -0,0 +1,9 @@
+-- Búsqueda de texto completo sobre título y contenido de las notas.
+-- El título pesa más (A) que el contenido (B) en el ranking.
+ALTER TABLE notas ADD COLUMN IF NOT EXISTS busqueda tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('spanish', coalesce(titulo, '')), 'A') ||
+        setweight(to_tsvector('spanish', coalesce(contenido, '')), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_notas_busqueda ON notas USING GIN (busqueda);
@@ -0,0 +1,17 @@
+-- Tareas y notas pasan a obtener los ids de una secuencia en bloques de 50
+-- (generador pooled de Hibernate), lo que permite agrupar los INSERT en lotes JDBC.
+-- Se reutiliza la secuencia de la columna id, así el valor por defecto sigue funcionando
+-- para cualquier inserción que no pase por Hibernate.
+DO $$
+DECLARE
+    tabla text;
+    secuencia text;
+BEGIN
+    FOREACH tabla IN ARRAY ARRAY['tareas', 'notas'] LOOP
+        secuencia := pg_get_serial_sequence(tabla, 'id');
+        EXECUTE format('ALTER SEQUENCE %s INCREMENT BY 50', secuencia);
+        -- Con el optimizador pooled el valor devuelto es el final del bloque: el siguiente
+        -- nextval debe quedar 50 posiciones por encima del id más alto
+        EXECUTE format('SELECT setval(%L, (SELECT COALESCE(MAX(id), 0) FROM %I) + 50, false)', secuencia, tabla);
+    END LOOP;
+END $$;
@@ -0,0 +1,33 @@
+-- Archivo de tareas completadas: las que llevan más de N días completadas se mueven a
+-- tareas_archivo para que los listados e índices de tareas solo recorran las activas
+
+-- Momento en que se completó cada tarea
+ALTER TABLE tareas ADD COLUMN IF NOT EXISTS fecha_completada TIMESTAMP;
+
+-- Las completadas antes de esta migración no tienen fecha: cuentan desde ahora
+UPDATE tareas SET fecha_completada = CURRENT_TIMESTAMP WHERE completada = TRUE AND fecha_completada IS NULL;
+
+-- El archivador recorre solo las completadas, de la más antigua a la más reciente
+CREATE INDEX IF NOT EXISTS idx_tareas_completadas_fecha ON tareas(fecha_completada, id) WHERE completada = TRUE;
+
+CREATE TABLE IF NOT EXISTS tareas_archivo (
+    id BIGINT PRIMARY KEY,
+    titulo VARCHAR(255) NOT NULL,
+    descripcion TEXT,
+    fecha_limite TIMESTAMP,
+    prioridad VARCHAR(20),
+    fecha_creacion TIMESTAMP,
+    fecha_completada TIMESTAMP NOT NULL,
+    fecha_archivado TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    usuario_id BIGINT NOT NULL REFERENCES usuarios(id) ON DELETE CASCADE,
+    materia_id BIGINT REFERENCES materias(id) ON DELETE SET NULL
+);
+
+-- Listado paginado por cursor (fecha_completada, id) de GET /tareas/archivo
+CREATE INDEX IF NOT EXISTS idx_tareas_archivo_usuario_fecha ON tareas_archivo(usuario_id, fecha_completada, id);
+
+-- Purga de las archivadas fuera del periodo de conservación
+CREATE INDEX IF NOT EXISTS idx_tareas_archivo_fecha_completada ON tareas_archivo(fecha_completada);
+
+-- Clave foránea hacia materias (borrado de una materia)
+CREATE INDEX IF NOT EXISTS idx_tareas_archivo_materia_id ON tareas_archivo(materia_id);
@@ -0,0 +1,3 @@
+-- Versión de las colecciones (tareas, notas y materias) de cada usuario. Se incrementa en cada
+-- escritura y genera los ETag débiles de los listados para responder 304 sin consultarlos
+ALTER TABLE usuarios ADD COLUMN IF NOT EXISTS version_colecciones BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,28 @@
+-- Sincronización incremental (GET /sync): fecha de modificación en tareas y materias, índices
+-- por (usuario_id, fecha_modificacion) y registro de eliminaciones para los clientes sin conexión
+
+ALTER TABLE tareas ADD COLUMN IF NOT EXISTS fecha_modificacion TIMESTAMP;
+UPDATE tareas SET fecha_modificacion = COALESCE(fecha_completada, fecha_creacion, CURRENT_TIMESTAMP)
+WHERE fecha_modificacion IS NULL;
+
+ALTER TABLE materias ADD COLUMN IF NOT EXISTS fecha_modificacion TIMESTAMP;
+UPDATE materias SET fecha_modificacion = COALESCE(fecha_creacion, CURRENT_TIMESTAMP) WHERE fecha_modificacion IS NULL;
+
+UPDATE notas SET fecha_modificacion = COALESCE(fecha_creacion, CURRENT_TIMESTAMP) WHERE fecha_modificacion IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_tareas_usuario_fecha_modificacion ON tareas(usuario_id, fecha_modificacion, id);
+CREATE INDEX IF NOT EXISTS idx_notas_usuario_fecha_modificacion ON notas(usuario_id, fecha_modificacion, id);
+CREATE INDEX IF NOT EXISTS idx_materias_usuario_fecha_modificacion ON materias(usuario_id, fecha_modificacion, id);
+
+-- Una fila por cada tarea, nota o materia eliminada (o tarea archivada)
+CREATE TABLE IF NOT EXISTS eliminaciones (
+    id BIGSERIAL PRIMARY KEY,
+    usuario_id BIGINT NOT NULL REFERENCES usuarios(id) ON DELETE CASCADE,
+    tipo VARCHAR(20) NOT NULL,
+    entidad_id BIGINT NOT NULL,
+    fecha_eliminacion TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_eliminaciones_usuario_fecha ON eliminaciones(usuario_id, fecha_eliminacion, id);
+
+-- Purga de las eliminaciones fuera del periodo de conservación
+CREATE INDEX IF NOT EXISTS idx_eliminaciones_fecha ON eliminaciones(fecha_eliminacion);
@@ -0,0 +1,4 @@
+-- Recordatorios de fecha límite: el planificador carga por tramos los plazos de las tareas
+-- pendientes de todos los usuarios, en orden (fecha_limite, id)
+CREATE INDEX IF NOT EXISTS idx_tareas_pendientes_fecha_limite ON tareas(fecha_limite, id)
+    WHERE completada = FALSE AND fecha_limite IS NOT NULL;
@@ -0,0 +1,13 @@
+-- Registro de actividad por usuario (GET/POST /usuarios/actividad), antes en un mapa en memoria.
+-- Solo se insertan filas: se escriben por lotes y se leen por (usuario_id, fecha DESC, id DESC).
+-- Los ids salen de la secuencia en bloques de 50 que reserva la aplicación al registrar cada actividad
+CREATE SEQUENCE IF NOT EXISTS actividades_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS actividades (
+    id BIGINT PRIMARY KEY,
+    usuario_id BIGINT NOT NULL REFERENCES usuarios(id) ON DELETE CASCADE,
+    tipo VARCHAR(50) NOT NULL,
+    descripcion VARCHAR(500) NOT NULL,
+    fecha TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_actividades_usuario_fecha ON actividades(usuario_id, fecha DESC, id DESC);
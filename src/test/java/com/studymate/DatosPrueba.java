@@ -0,0 +1,40 @@
+package com.studymate;
+
+import com.studymate.model.Nota;
+import com.studymate.model.Usuario;
+import com.studymate.repository.NotaRepository;
+import com.studymate.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Usuarios y notas de prueba guardados en la base de datos del contexto de cada test
+ */
+@Component
+@RequiredArgsConstructor
+public class DatosPrueba {
+
+    private final UsuarioRepository usuarioRepository;
+    private final NotaRepository notaRepository;
+
+    /**
+     * Devuelve el usuario con ese email, creándolo si no existe: la base de datos se comparte entre tests
+     */
+    public Usuario crearUsuario(String email) {
+        return usuarioRepository.findByEmail(email).orElseGet(() -> {
+            Usuario usuario = new Usuario();
+            usuario.setNombre("Prueba");
+            usuario.setEmail(email);
+            usuario.setPassword("secreto123");
+            return usuarioRepository.save(usuario);
+        });
+    }
+
+    public Long crearNota(Usuario usuario, String titulo, String contenido) {
+        Nota nota = new Nota();
+        nota.setTitulo(titulo);
+        nota.setContenido(contenido);
+        nota.setUsuario(usuario);
+        return notaRepository.save(nota).getId();
+    }
+}
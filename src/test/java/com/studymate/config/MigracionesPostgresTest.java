@@ -0,0 +1,148 @@
+package com.studymate.config;
+
+import com.studymate.DatosPrueba;
+import com.studymate.dto.NotaBusquedaDTO;
+import com.studymate.model.Nota;
+import com.studymate.model.Usuario;
+import com.studymate.service.CompresionNotasService;
+import com.studymate.service.NotaService;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Migraciones de Flyway sobre PostgreSQL real: el contexto solo arranca si, tras aplicarlas,
+ * Hibernate valida el esquema contra las entidades (como en producción).
+ * Sin Docker disponible el test se omite.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "studymate.busqueda.texto-completo=true"
+})
+class MigracionesPostgresTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private NotaService notaService;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private CompresionNotasService compresionNotasService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void todasLasMigracionesSeAplican() {
+        assertThat(flyway.info().pending()).isEmpty();
+        assertThat(flyway.info().applied()).isNotEmpty()
+                .extracting(MigrationInfo::getState)
+                .allMatch(estado -> estado.isApplied() && !estado.isFailed());
+    }
+
+    @Test
+    void losNombresDeMateriaDuplicadosSeRenombranSinColisionesYDentroDelLimite() {
+        // V2 sobre datos previos: se migra hasta V1 en un esquema aparte, se insertan duplicados y se sigue
+        String esquema = "duplicados_v2";
+        Flyway.configure().dataSource(dataSource).schemas(esquema).target("1").load().migrate();
+        try {
+            String largo = "x".repeat(100);
+            jdbcTemplate.update("INSERT INTO " + esquema + ".usuarios (id, nombre, email, password) VALUES "
+                    + "(1, 'Uno', 'uno@studymate.test', 'x'), (2, 'Dos', 'dos@studymate.test', 'x')");
+            jdbcTemplate.update("INSERT INTO " + esquema + ".materias (id, nombre, usuario_id) VALUES "
+                    + "(10, 'Física', 1), (12, 'Física', 1), (20, 'Física (12)', 1), "
+                    + "(30, ?, 1), (31, ?, 1), (40, 'Física', 2)", largo, largo);
+
+            Flyway.configure().dataSource(dataSource).schemas(esquema).target("2").load().migrate();
+
+            Map<Long, String> nombres = new HashMap<>();
+            jdbcTemplate.query("SELECT id, nombre FROM " + esquema + ".materias",
+                    (RowCallbackHandler) fila -> nombres.put(fila.getLong("id"), fila.getString("nombre")));
+            assertThat(nombres).containsEntry(10L, "Física")
+                    .containsEntry(12L, "Física (12-1)")
+                    .containsEntry(20L, "Física (12)")
+                    .containsEntry(30L, largo)
+                    .containsEntry(31L, "x".repeat(95) + " (31)")
+                    .containsEntry(40L, "Física");
+            assertThat(nombres.values()).allMatch(nombre -> nombre.length() <= 100);
+        } finally {
+            jdbcTemplate.execute("DROP SCHEMA " + esquema + " CASCADE");
+        }
+    }
+
+    @Test
+    void laBusquedaDeTextoCompletoUsaLaColumnaGenerada() {
+        Usuario usuario = datos.crearUsuario("migraciones-busqueda@studymate.test");
+        Long id = datos.crearNota(usuario, "Fotosíntesis",
+                "Las plantas <img src=x onerror=alert(1)> transforman la luz en energía química");
+
+        assertThat(notaService.buscarTexto(usuario.getId(), "plantas", 0, null).getItems())
+                .singleElement()
+                .satisfies(r -> {
+                    assertThat(r.getId()).isEqualTo(id);
+                    // El contenido llega escapado; la marca de ts_headline es la única etiqueta
+                    assertThat(r.getFragmento()).contains("<mark>plantas</mark>").contains("&lt;img src=x")
+                            .doesNotContain("<img");
+                })
+                .extracting(NotaBusquedaDTO::getRango).isNotNull();
+    }
+
+    @Test
+    void laMigracionDeCompresionRecortaElExtractoComoLaEntidad() {
+        Usuario usuario = datos.crearUsuario("migraciones-compresion@studymate.test");
+        // Más de 200 unidades UTF-16 antes del carácter 200: LEFT cuenta caracteres, igual que Nota.extraer
+        String contenido = "📚 tema ".repeat(40);
+        Long id = datos.crearNota(usuario, "Emojis", contenido);
+        jdbcTemplate.update("UPDATE notas SET extracto = NULL WHERE id = ?", id);
+
+        compresionNotasService.migrarPendientes();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT extracto FROM notas WHERE id = ?", String.class, id))
+                .isEqualTo(Nota.extraer(contenido));
+    }
+
+    @Test
+    void lasSecuenciasAgrupadasCoincidenConElAllocationSize() {
+        assertThat(jdbcTemplate.queryForList("SELECT sequencename FROM pg_sequences WHERE increment_by = 50",
+                String.class)).contains("notas_id_seq", "tareas_id_seq");
+
+        // Un INSERT sin id (DEFAULT nextval) entre inserciones de Hibernate no choca con su bloque
+        Usuario usuario = datos.crearUsuario("migraciones-secuencia@studymate.test");
+        Long primera = datos.crearNota(usuario, "Hibernate", "uno");
+        Long directa = jdbcTemplate.queryForObject("INSERT INTO notas (titulo, contenido, usuario_id, "
+                + "fecha_creacion) VALUES ('SQL', 'dos', ?, CURRENT_TIMESTAMP) RETURNING id", Long.class, usuario.getId());
+        Long segunda = datos.crearNota(usuario, "Hibernate", "tres");
+
+        assertThat(List.of(primera, directa, segunda)).doesNotHaveDuplicates();
+    }
+}
@@ -0,0 +1,101 @@
+package com.studymate.config;
+
+import com.studymate.util.ContextoUsuario;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Enrutamiento de lecturas con dos instancias H2: una hace de primaria y otra de réplica.
+ * La segunda réplica configurada no existe, para comprobar que se descarta sin errores.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primaria;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "studymate.replicas.habilitado=true",
+        "studymate.replicas.instancias[0].url=jdbc:h2:mem:replica;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "studymate.replicas.instancias[0].username=sa",
+        "studymate.replicas.instancias[1].url=jdbc:h2:tcp://localhost:1/caida",
+        "studymate.replicas.instancias[1].username=sa",
+        "studymate.replicas.ventana-lectura-propia-ms=60000"
+})
+class ReplicasLecturaTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSourceReplicas dataSourceReplicas;
+
+    @AfterEach
+    void limpiarContexto() {
+        ContextoUsuario.limpiar();
+    }
+
+    @Test
+    void lasTransaccionesDeSoloLecturaVanALaReplica() {
+        // Aunque la réplica caída aún no se haya detectado, ninguna lectura debe fallar
+        for (int i = 0; i < 4; i++) {
+            assertThat(baseDeDatos(true)).isIn("REPLICA", "PRIMARIA");
+        }
+        dataSourceReplicas.comprobarSalud();
+        assertThat(dataSourceReplicas.replicasSanas()).isEqualTo(1);
+        for (int i = 0; i < 4; i++) {
+            assertThat(baseDeDatos(true)).isEqualTo("REPLICA");
+        }
+    }
+
+    @Test
+    void lasEscriturasVanALaPrimaria() {
+        assertThat(baseDeDatos(false)).isEqualTo("PRIMARIA");
+    }
+
+    @Test
+    void elUsuarioQueAcabaDeEscribirLeeDeLaPrimaria() {
+        dataSourceReplicas.comprobarSalud();
+        ContextoUsuario.establecer(7L);
+        escribir(true);
+        assertThat(baseDeDatos(true)).isEqualTo("PRIMARIA");
+
+        ContextoUsuario.establecer(8L);
+        assertThat(baseDeDatos(true)).isEqualTo("REPLICA");
+    }
+
+    @Test
+    void soloLasEscriturasConfirmadasAbrenLaVentana() {
+        dataSourceReplicas.comprobarSalud();
+        // Una transacción de escritura que solo lee
+        ContextoUsuario.establecer(9L);
+        assertThat(baseDeDatos(false)).isEqualTo("PRIMARIA");
+        assertThat(baseDeDatos(true)).isEqualTo("REPLICA");
+
+        // Una escritura deshecha
+        ContextoUsuario.establecer(10L);
+        escribir(false);
+        assertThat(baseDeDatos(true)).isEqualTo("REPLICA");
+    }
+
+    private void escribir(boolean confirmar) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            entityManager.createNativeQuery("UPDATE usuarios SET nombre = nombre WHERE id = -1").executeUpdate();
+            if (!confirmar) {
+                estado.setRollbackOnly();
+            }
+        });
+    }
+
+    private String baseDeDatos(boolean soloLectura) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setReadOnly(soloLectura);
+        return transaccion.execute(estado ->
+                (String) entityManager.createNativeQuery("SELECT DATABASE()").getSingleResult());
+    }
+}
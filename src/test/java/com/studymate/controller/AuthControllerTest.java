@@ -0,0 +1,77 @@
+package com.studymate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studymate.model.Usuario;
+import com.studymate.repository.UsuarioRepository;
+import com.studymate.service.TokenRefrescoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TokenRefrescoService tokenRefrescoService;
+
+    @Test
+    void refreshDevuelveUnTokenDeAccesoValidoYRotaElRefreshToken() throws Exception {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Refresh");
+        usuario.setApellido("Token");
+        usuario.setEmail("auth-refresh@studymate.test");
+        usuario.setPassword("secreto123");
+        usuario = usuarioRepository.save(usuario);
+        String refreshToken = tokenRefrescoService.emitir(usuario);
+
+        Map<?, ?> respuesta = objectMapper.readValue(refrescar(refreshToken)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("SUCCESS"))
+                .andExpect(jsonPath("$.expiresIn").isNumber())
+                .andReturn().getResponse().getContentAsString(), Map.class);
+        String nuevoRefresh = (String) respuesta.get("refreshToken");
+        assertThat(nuevoRefresh).isNotBlank().isNotEqualTo(refreshToken);
+
+        mockMvc.perform(get("/auth/me").header("Authorization", "Bearer " + respuesta.get("token")))
+                .andExpect(status().isOk());
+
+        // El token ya rotado no vale y arrastra al que lo sustituyó
+        refrescar(refreshToken).andExpect(status().isUnauthorized());
+        refrescar(nuevoRefresh).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refreshSinTokenEsUnaPeticionIncorrecta() throws Exception {
+        mockMvc.perform(post("/auth/refresh").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+        refrescar("no-existe").andExpect(status().isUnauthorized());
+    }
+
+    private ResultActions refrescar(String refreshToken) throws Exception {
+        return mockMvc.perform(post("/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("refreshToken", refreshToken))));
+    }
+}
@@ -0,0 +1,317 @@
+package com.studymate.controller;
+
+import com.studymate.model.Materia;
+import com.studymate.model.Nota;
+import com.studymate.model.Tarea;
+import com.studymate.model.Usuario;
+import com.studymate.repository.MateriaRepository;
+import com.studymate.repository.NotaRepository;
+import com.studymate.repository.TareaRepository;
+import com.studymate.repository.UsuarioRepository;
+import com.studymate.service.JwtService;
+import com.studymate.util.CursorSincronizacion;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica el número de sentencias SQL de cada endpoint de lectura con 1.000 filas,
+ * para que cualquier N+1 que se introduzca haga fallar el build
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConteoSentenciasTest {
+
+    private static final int FILAS = 1000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MateriaRepository materiaRepository;
+
+    @Autowired
+    private NotaRepository notaRepository;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private Statistics statistics;
+    private String token;
+    private Long notaId;
+    private Long materiaId;
+    private Long tareaId;
+    private Long tareaPendienteId;
+
+    @BeforeAll
+    void poblarDatos() {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Conteo");
+        usuario.setEmail("conteo-sentencias@studymate.test");
+        usuario.setPassword("secreto123");
+        usuario = usuarioRepository.save(usuario);
+
+        List<Materia> materias = new ArrayList<>();
+        for (int i = 0; i < FILAS; i++) {
+            Materia materia = new Materia();
+            materia.setNombre("Materia " + i);
+            materia.setUsuario(usuario);
+            materias.add(materia);
+        }
+        materias = materiaRepository.saveAll(materias);
+        materiaId = materias.get(0).getId();
+
+        // Cada nota y cada tarea apunta a una materia distinta para exponer cualquier carga perezosa
+        List<Nota> notas = new ArrayList<>();
+        List<Tarea> tareas = new ArrayList<>();
+        for (int i = 0; i < FILAS; i++) {
+            Nota nota = new Nota();
+            nota.setTitulo("Nota " + i);
+            nota.setContenido("Contenido de la nota " + i);
+            nota.setUsuario(usuario);
+            nota.setMateria(materias.get(i));
+            notas.add(nota);
+
+            Tarea tarea = new Tarea();
+            tarea.setTitulo("Tarea " + i);
+            tarea.setFechaLimite(LocalDateTime.now().plusDays(i % 10));
+            tarea.setUsuario(usuario);
+            tarea.setMateria(materias.get(i));
+            tareas.add(tarea);
+        }
+        notaId = notaRepository.saveAll(notas).get(0).getId();
+        tareas = tareaRepository.saveAll(tareas);
+        tareaId = tareas.get(0).getId();
+        // Ningún otro test la completa
+        tareaPendienteId = tareas.get(FILAS - 1).getId();
+
+        token = jwtService.generateAccessToken(usuario.getId(), usuario.getEmail());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @BeforeEach
+    void limpiarEstadisticas() {
+        statistics.clear();
+    }
+
+    @Test
+    void listadoCompletoDeNotasEsUnaSolaConsulta() throws Exception {
+        mockMvc.perform(autenticado(get("/notas").param("completo", "true")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notas.length()").value(FILAS));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void paginaDeNotasEsUnaSolaConsulta() throws Exception {
+        mockMvc.perform(autenticado(get("/notas").param("tamano", "200")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notas.length()").value(200));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void detalleDeNotaEsUnaSolaConsulta() throws Exception {
+        mockMvc.perform(autenticado(get("/notas/" + notaId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.materiaNombre").exists());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void listadoCompletoDeTareasEsUnaSolaConsulta() throws Exception {
+        mockMvc.perform(autenticado(get("/tareas").param("completo", "true")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tareas.length()").value(FILAS));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void paginaDeTareasEsUnaSolaConsulta() throws Exception {
+        mockMvc.perform(autenticado(get("/tareas").param("tamano", "200")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tareas.length()").value(200));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void detalleDeTareaCargaLaMateriaEnLaMismaConsulta() throws Exception {
+        mockMvc.perform(autenticado(get("/tareas/" + tareaId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.materia.nombre").exists());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void completarTareaNoDisparaCargasPerezosas() throws Exception {
+        mockMvc.perform(autenticado(patch("/tareas/" + tareaId + "/completar")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tarea.materia.nombre").exists());
+        // Lectura de la tarea con su materia + UPDATE
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void listadoCompletoDeMateriasEsUnaSolaConsulta() throws Exception {
+        mockMvc.perform(autenticado(get("/materias").param("completo", "true")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.materias.length()").value(FILAS));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void paginaDeMateriasEsUnaSolaConsulta() throws Exception {
+        mockMvc.perform(autenticado(get("/materias").param("tamano", "200")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.materias.length()").value(200));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void dashboardSeCalculaConConsultasAgregadas() throws Exception {
+        mockMvc.perform(autenticado(get("/dashboard")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dashboard.materias.length()").value(FILAS))
+                .andExpect(jsonPath("$.dashboard.notas").value(FILAS))
+                .andExpect(jsonPath("$.dashboard.proximasEntregas.length()").value(5));
+        // Materias, conteo de tareas, conteo de notas, próximas entregas y urgentes
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+    }
+
+    @Test
+    void listadoSinCambiosResponde304SinConsultar() throws Exception {
+        String etag = mockMvc.perform(autenticado(get("/tareas").param("completo", "true")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        statistics.clear();
+
+        mockMvc.perform(autenticado(get("/tareas").param("completo", "true")).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        // Cualquier escritura cambia la versión y el listado vuelve a enviarse
+        mockMvc.perform(autenticado(patch("/tareas/" + tareaId + "/completar"))).andExpect(status().isOk());
+        mockMvc.perform(autenticado(get("/tareas").param("completo", "true")).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    void sincronizacionSoloDevuelveLosCambiosDesdeElCursor() throws Exception {
+        String cursor = CursorSincronizacion.codificar(LocalDateTime.now());
+        mockMvc.perform(autenticado(patch("/tareas/" + tareaPendienteId + "/completar"))).andExpect(status().isOk());
+        String notaCreada = mockMvc.perform(autenticado(post("/notas")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"titulo\": \"Nota efímera\", \"contenido\": \"Se elimina enseguida\"}")))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Number idNota = JsonPath.read(notaCreada, "$.nota.id");
+        mockMvc.perform(autenticado(delete("/notas/" + idNota))).andExpect(status().isOk());
+        statistics.clear();
+
+        mockMvc.perform(autenticado(get("/sync").param("since", cursor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completo").value(false))
+                .andExpect(jsonPath("$.tareas.length()").value(1))
+                .andExpect(jsonPath("$.tareas[0].id").value(tareaPendienteId))
+                .andExpect(jsonPath("$.notas.length()").value(0))
+                .andExpect(jsonPath("$.materias.length()").value(0))
+                .andExpect(jsonPath("$.eliminadas[0].tipo").value("NOTA"))
+                .andExpect(jsonPath("$.eliminadas[0].id").value(idNota.longValue()))
+                .andExpect(jsonPath("$.cursor").isNotEmpty());
+        // Una consulta por tipo más la de eliminaciones, sin depender de las 1.000 filas de cada tabla
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    @Test
+    void crearTareaEsUnaComprobacionYUnInsert() throws Exception {
+        // La primera creación reserva ids de la secuencia y deja la materia en la caché de segundo nivel
+        Number calentamiento = idTareaCreada(crearTareaEnMateria("Calentamiento"));
+        statistics.clear();
+
+        ResultActions creada = crearTareaEnMateria("Nueva tarea")
+                .andExpect(jsonPath("$.tarea.materia.nombre").value("Materia 0"));
+        // exists de la materia + INSERT, sin leer el usuario ni la materia completos
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        // Los listados de otros tests cuentan exactamente FILAS tareas
+        tareaRepository.deleteAllById(List.of(calentamiento.longValue(), idTareaCreada(creada).longValue()));
+    }
+
+    @Test
+    void actualizarNotaEsUnaLecturaYUnUpdate() throws Exception {
+        mockMvc.perform(autenticado(put("/notas/" + notaId))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"titulo\": \"Nota 0 editada\", \"contenido\": \"Contenido editado\", "
+                        + "\"materia\": {\"id\": " + materiaId + "}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.materia.nombre").value("Materia 0"));
+        // Nota del usuario con su materia en una consulta + UPDATE; la materia no cambia y no se comprueba
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void eliminarTareaNoLaCarga() throws Exception {
+        Number id = idTareaCreada(crearTareaEnMateria("Para eliminar"));
+        statistics.clear();
+
+        mockMvc.perform(autenticado(delete("/tareas/" + id))).andExpect(status().isOk());
+        // DELETE con la condición de propiedad + registro de la eliminación para la sincronización
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        mockMvc.perform(autenticado(delete("/tareas/" + id))).andExpect(status().isBadRequest());
+    }
+
+    private ResultActions crearTareaEnMateria(String titulo) throws Exception {
+        return mockMvc.perform(autenticado(post("/tareas"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"titulo\": \"" + titulo + "\", \"materia\": {\"id\": " + materiaId + "}}"))
+                .andExpect(status().isCreated());
+    }
+
+    private Number idTareaCreada(ResultActions creada) throws Exception {
+        return JsonPath.read(creada.andReturn().getResponse().getContentAsString(), "$.tarea.id");
+    }
+
+    private MockHttpServletRequestBuilder autenticado(MockHttpServletRequestBuilder request) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+}
@@ -0,0 +1,103 @@
+package com.studymate.controller;
+
+import com.studymate.DatosPrueba;
+import com.studymate.model.OperacionCambio;
+import com.studymate.model.TipoEntidad;
+import com.studymate.model.Usuario;
+import com.studymate.service.EventosService;
+import com.studymate.service.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class EventosControllerTest {
+
+    private static final Pattern ID_EVENTO = Pattern.compile("id:(\\d+)");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private EventosService eventosService;
+
+    @Test
+    void repiteLosEventosPerdidosAlReconectarConLastEventId() throws Exception {
+        Usuario usuario = datos.crearUsuario("eventos-repeticion@studymate.test");
+        String token = jwtService.generateAccessToken(usuario.getId(), usuario.getEmail());
+
+        // El token va en el parámetro porque EventSource no permite cabeceras
+        MvcResult primera = mockMvc.perform(get("/eventos").param("token", token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        eventosService.publicar(usuario.getId(), TipoEntidad.NOTA, 10L, OperacionCambio.CREACION, 1);
+        String recibido = esperar(primera.getResponse(), "\"id\":10");
+        assertThat(recibido).contains("event:cambio").contains("\"operacion\":\"CREACION\"");
+        Matcher matcher = ID_EVENTO.matcher(recibido);
+        assertThat(matcher.find()).isTrue();
+        String ultimoEvento = matcher.group(1);
+
+        // Eventos publicados mientras el cliente estaba desconectado
+        eventosService.publicar(usuario.getId(), TipoEntidad.TAREA, 20L, OperacionCambio.MODIFICACION, 2);
+        eventosService.publicar(usuario.getId(), TipoEntidad.TAREA, 21L, OperacionCambio.ELIMINACION, 3);
+
+        MvcResult segunda = mockMvc.perform(get("/eventos")
+                        .header("Authorization", "Bearer " + token)
+                        .header("Last-Event-ID", ultimoEvento))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String repetidos = esperar(segunda.getResponse(), "\"id\":21");
+        assertThat(repetidos).contains("\"id\":20").doesNotContain("\"id\":10").doesNotContain("event:reinicio");
+
+        // Un id anterior a lo que se conserva obliga a sincronizar
+        MvcResult tercera = mockMvc.perform(get("/eventos")
+                        .header("Authorization", "Bearer " + token)
+                        .header("Last-Event-ID", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(esperar(tercera.getResponse(), "event:reinicio")).doesNotContain("\"id\":20");
+    }
+
+    @Test
+    void rechazaConexionesPorEncimaDelLimitePorUsuario() throws Exception {
+        Usuario usuario = datos.crearUsuario("eventos-limite@studymate.test");
+        String token = jwtService.generateAccessToken(usuario.getId(), usuario.getEmail());
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/eventos").header("Authorization", "Bearer " + token))
+                    .andExpect(request().asyncStarted());
+        }
+        mockMvc.perform(get("/eventos").header("Authorization", "Bearer " + token))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    // Los eventos se escriben desde los hilos de envío: espera a que llegue el texto esperado
+    private String esperar(MockHttpServletResponse response, String texto) throws Exception {
+        long limite = System.currentTimeMillis() + 5000;
+        String contenido = response.getContentAsString();
+        while (!contenido.contains(texto) && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+            contenido = response.getContentAsString();
+        }
+        assertThat(contenido).contains(texto);
+        return contenido;
+    }
+}
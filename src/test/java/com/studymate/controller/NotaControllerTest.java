@@ -0,0 +1,156 @@
+package com.studymate.controller;
+
+import com.studymate.model.Materia;
+import com.studymate.model.Nota;
+import com.studymate.model.Usuario;
+import com.studymate.repository.MateriaRepository;
+import com.studymate.repository.NotaRepository;
+import com.studymate.repository.UsuarioRepository;
+import com.studymate.service.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class NotaControllerTest {
+
+    private static final MediaType MERGE_PATCH = MediaType.parseMediaType("application/merge-patch+json");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MateriaRepository materiaRepository;
+
+    @Autowired
+    private NotaRepository notaRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private String token;
+    private Long notaId;
+    private Long materiaId;
+
+    @BeforeEach
+    void crearNota() {
+        Usuario usuario = usuarioRepository.findByEmail("nota-patch@studymate.test").orElseGet(() -> {
+            Usuario nuevo = new Usuario();
+            nuevo.setNombre("Patch");
+            nuevo.setEmail("nota-patch@studymate.test");
+            nuevo.setPassword("secreto123");
+            return usuarioRepository.save(nuevo);
+        });
+        Materia materia = new Materia();
+        materia.setNombre("Historia " + System.nanoTime());
+        materia.setUsuario(usuario);
+        materiaId = materiaRepository.save(materia).getId();
+
+        Nota nota = new Nota();
+        nota.setTitulo("Apuntes");
+        nota.setContenido("La revolución empezó en 1789.");
+        nota.setUsuario(usuario);
+        notaId = notaRepository.save(nota).getId();
+        token = jwtService.generateAccessToken(usuario.getId(), usuario.getEmail());
+    }
+
+    @Test
+    void aplicaOperacionesDeTextoSobreLaVersionBase() throws Exception {
+        mockMvc.perform(patch("/notas/{id}", notaId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"version": 0, "operaciones": [
+                                  {"posicion": 3, "eliminar": 10, "insertar": "Revolución Francesa"},
+                                  {"posicion": 0, "eliminar": 0, "insertar": "Tema 1: "}
+                                ]}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(jsonPath("$.contenido").doesNotExist());
+        assertThat(notaRepository.findById(notaId).orElseThrow().getContenido())
+                .isEqualTo("Tema 1: La Revolución Francesa empezó en 1789.");
+
+        // Un segundo autoguardado basado en la versión anterior entra en conflicto
+        mockMvc.perform(patch("/notas/{id}", notaId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\": 0, \"operaciones\": [{\"posicion\": 0, \"eliminar\": 1}]}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(patch("/notas/{id}", notaId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\": 1, \"operaciones\": [{\"posicion\": 500, \"eliminar\": 1}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rechazaOperacionesQueSeSalenDelContenidoSinDesbordar() throws Exception {
+        // posicion + eliminar desborda int: se rechaza con el mensaje propio, no con el de StringBuilder
+        mockMvc.perform(patch("/notas/{id}", notaId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\": 0, \"operaciones\": [{\"posicion\": 3, \"eliminar\": "
+                                + Integer.MAX_VALUE + "}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Operación fuera del contenido: posición 3, eliminar "
+                        + Integer.MAX_VALUE));
+        assertThat(notaRepository.findById(notaId).orElseThrow().getContenido())
+                .isEqualTo("La revolución empezó en 1789.");
+    }
+
+    @Test
+    void mergePatchCambiaSoloLosCamposIndicados() throws Exception {
+        mockMvc.perform(patch("/notas/{id}", notaId)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MERGE_PATCH)
+                        .content("{\"titulo\": \"Revolución\", \"materiaId\": " + materiaId + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+        Nota nota = notaRepository.findConMateriaById(notaId).orElseThrow();
+        assertThat(nota.getTitulo()).isEqualTo("Revolución");
+        assertThat(nota.getContenido()).isEqualTo("La revolución empezó en 1789.");
+        assertThat(nota.getMateria().getId()).isEqualTo(materiaId);
+
+        mockMvc.perform(patch("/notas/{id}", notaId)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MERGE_PATCH)
+                        .content("{\"materiaId\": null}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(patch("/notas/{id}", notaId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MERGE_PATCH)
+                        .content("{\"fechaCreacion\": null}"))
+                .andExpect(status().isBadRequest());
+
+        // Validado antes del UPDATE: 400 con el límite, no el error de la base de datos
+        mockMvc.perform(patch("/notas/{id}", notaId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MERGE_PATCH)
+                        .content("{\"titulo\": \"" + "a".repeat(Nota.LONGITUD_TITULO + 1) + "\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("El título admite " + Nota.LONGITUD_TITULO + " caracteres"));
+        assertThat(notaRepository.findById(notaId).orElseThrow().getTitulo()).isEqualTo("Revolución");
+    }
+}
@@ -0,0 +1,221 @@
+package com.studymate.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studymate.DatosPrueba;
+import com.studymate.model.Materia;
+import com.studymate.model.Tarea;
+import com.studymate.model.Usuario;
+import com.studymate.repository.MateriaRepository;
+import com.studymate.repository.TareaRepository;
+import com.studymate.service.JwtService;
+import com.studymate.util.Lotes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /tareas/batch, POST /notas/batch y PATCH /tareas/completar: un resultado por elemento,
+ * límite de tamaño, elementos de otros usuarios e ids de la secuencia agrupada de notas
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OperacionesPorLotesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private MateriaRepository materiaRepository;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario usuario;
+    private Usuario otro;
+    private String token;
+
+    @BeforeEach
+    void crearUsuarios() {
+        usuario = datos.crearUsuario("lotes@studymate.test");
+        otro = datos.crearUsuario("lotes-otro@studymate.test");
+        token = jwtService.generateAccessToken(usuario.getId(), usuario.getEmail());
+    }
+
+    @AfterEach
+    void limpiar() {
+        // Otros tests cuentan todas las notas de la base de datos compartida
+        for (Usuario u : List.of(usuario, otro)) {
+            jdbcTemplate.update("DELETE FROM notas WHERE usuario_id = ?", u.getId());
+            jdbcTemplate.update("DELETE FROM tareas WHERE usuario_id = ?", u.getId());
+        }
+    }
+
+    @Test
+    void crearTareasDevuelveUnResultadoPorElementoEnSuOrden() throws Exception {
+        Long materiaAjena = materia(otro, "Ajena").getId();
+        List<Map<String, Object>> tareas = List.of(
+                Map.of("titulo", "Primera"),
+                Map.of("titulo", " "),
+                Map.of("titulo", "Con materia ajena", "materia", Map.of("id", materiaAjena)),
+                Map.of("titulo", "Última", "prioridad", "ALTA"));
+
+        JsonNode respuesta = json(autenticado(post("/tareas/batch"), tareas)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PARTIAL"))
+                .andExpect(jsonPath("$.creadas").value(2))
+                .andExpect(jsonPath("$.errores").value(2))
+                .andExpect(jsonPath("$.resultados[1].estado").value("ERROR"))
+                .andExpect(jsonPath("$.resultados[1].mensaje").value("El título es obligatorio"))
+                .andExpect(jsonPath("$.resultados[2].mensaje").value("Materia no encontrada")));
+
+        JsonNode resultados = respuesta.get("resultados");
+        assertThat(resultados).extracting(r -> r.get("indice").asInt()).containsExactly(0, 1, 2, 3);
+        assertThat(tareaRepository.findByUsuarioId(usuario.getId()))
+                .extracting(Tarea::getId, Tarea::getTitulo)
+                .containsExactlyInAnyOrder(
+                        tuple(resultados.get(0).get("id").asLong(), "Primera"),
+                        tuple(resultados.get(3).get("id").asLong(), "Última"));
+    }
+
+    @Test
+    void losLotesVaciosODemasiadoGrandesSeRechazan() throws Exception {
+        List<Map<String, Object>> demasiadas = new ArrayList<>();
+        for (int i = 0; i <= Lotes.TAMANO_MAXIMO; i++) {
+            demasiadas.add(Map.of("titulo", "Nota " + i));
+        }
+
+        autenticado(post("/notas/batch"), demasiadas)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("no puede superar " + Lotes.TAMANO_MAXIMO)));
+        autenticado(post("/tareas/batch"), List.of())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("El lote está vacío")));
+        autenticado(patch("/tareas/completar"), Map.of("ids", List.of()))
+                .andExpect(status().isBadRequest());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notas WHERE usuario_id = ?", Long.class,
+                usuario.getId())).isZero();
+    }
+
+    @Test
+    void crearNotasReservaLosIdsEnBloquesDeLaSecuencia() throws Exception {
+        long antes = siguienteValorSecuencia();
+
+        List<Long> primerLote = idsCreados(notas("A", 30));
+        List<Long> segundoLote = idsCreados(notas("B", 30));
+
+        // 60 inserciones con bloques de 50: dos llamadas a la secuencia (más una si el optimizador aún
+        // no la había usado), no una por nota, que la avanzaría 60 * 50
+        assertThat(siguienteValorSecuencia() - antes).isLessThanOrEqualTo(3 * 50);
+        List<Long> todos = new ArrayList<>(primerLote);
+        todos.addAll(segundoLote);
+        assertThat(todos).doesNotHaveDuplicates().isSorted();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notas WHERE usuario_id = ?", Long.class,
+                usuario.getId())).isEqualTo(60);
+    }
+
+    @Test
+    void completarSoloMarcaLasTareasPropias() throws Exception {
+        Tarea propia = tarea(usuario, "Propia");
+        Tarea otraPropia = tarea(usuario, "Otra propia");
+        Tarea ajena = tarea(otro, "Ajena");
+
+        Map<String, Object> cuerpo = new HashMap<>();
+        cuerpo.put("ids", Arrays.asList(propia.getId(), ajena.getId(), null, otraPropia.getId(), propia.getId()));
+        autenticado(patch("/tareas/completar"), cuerpo)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PARTIAL"))
+                .andExpect(jsonPath("$.resultados[0].estado").value("OK"))
+                .andExpect(jsonPath("$.resultados[1].estado").value("ERROR"))
+                .andExpect(jsonPath("$.resultados[1].mensaje").value("Tarea no encontrada"))
+                .andExpect(jsonPath("$.resultados[2].estado").value("ERROR"))
+                .andExpect(jsonPath("$.resultados[3].estado").value("OK"))
+                .andExpect(jsonPath("$.resultados[4].estado").value("OK"));
+
+        assertThat(tareaRepository.findById(propia.getId()).orElseThrow().getCompletada()).isTrue();
+        assertThat(tareaRepository.findById(otraPropia.getId()).orElseThrow().getCompletada()).isTrue();
+        assertThat(tareaRepository.findById(ajena.getId()).orElseThrow().getCompletada()).isFalse();
+    }
+
+    private List<Long> idsCreados(List<Map<String, Object>> notas) throws Exception {
+        JsonNode respuesta = json(autenticado(post("/notas/batch"), notas)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("SUCCESS")));
+        List<Long> ids = new ArrayList<>();
+        respuesta.get("resultados").forEach(r -> ids.add(r.get("id").asLong()));
+        return ids;
+    }
+
+    private long siguienteValorSecuencia() {
+        return jdbcTemplate.queryForObject("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES "
+                + "WHERE SEQUENCE_NAME = 'NOTAS_ID_SEQ'", Long.class);
+    }
+
+    private static List<Map<String, Object>> notas(String prefijo, int cantidad) {
+        List<Map<String, Object>> notas = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            notas.add(Map.of("titulo", prefijo + i, "contenido", "Contenido " + i));
+        }
+        return notas;
+    }
+
+    private ResultActions autenticado(MockHttpServletRequestBuilder peticion, Object cuerpo) throws Exception {
+        return mockMvc.perform(peticion
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(cuerpo)));
+    }
+
+    private JsonNode json(ResultActions resultado) throws Exception {
+        return objectMapper.readTree(resultado.andReturn().getResponse().getContentAsString());
+    }
+
+    private Tarea tarea(Usuario propietario, String titulo) {
+        Tarea tarea = new Tarea();
+        tarea.setTitulo(titulo);
+        tarea.setCompletada(false);
+        tarea.setUsuario(propietario);
+        return tareaRepository.save(tarea);
+    }
+
+    private Materia materia(Usuario propietario, String nombre) {
+        Materia materia = new Materia();
+        materia.setNombre(nombre + " " + System.nanoTime());
+        materia.setUsuario(propietario);
+        return materiaRepository.save(materia);
+    }
+}
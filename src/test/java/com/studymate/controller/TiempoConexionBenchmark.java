@@ -0,0 +1,162 @@
+package com.studymate.controller;
+
+import com.studymate.model.Materia;
+import com.studymate.model.Tarea;
+import com.studymate.model.Usuario;
+import com.studymate.repository.MateriaRepository;
+import com.studymate.repository.TareaRepository;
+import com.studymate.repository.UsuarioRepository;
+import com.studymate.service.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Compara el tiempo que cada petición retiene la conexión del pool (hikaricp.connections.usage)
+ * con Open-Session-In-View activado y desactivado. No forma parte del build; se ejecuta con
+ * {@code mvn test -Dtest=TiempoConexionBenchmark -Dstudymate.benchmark=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "studymate.benchmark", matches = "true")
+class TiempoConexionBenchmark {
+
+    private static final int FILAS = 2000;
+    private static final int CALENTAMIENTO = 50;
+    private static final int PETICIONES = 300;
+
+    private static final Map<String, Double> mediasMs = new ConcurrentHashMap<>();
+
+    @AfterAll
+    static void compararResultados() {
+        double conOsiv = mediasMs.get("con open-in-view");
+        double sinOsiv = mediasMs.get("sin open-in-view");
+        log.info("Retención media de conexión en GET /tareas?completo=true: con OSIV {} ms, sin OSIV {} ms",
+                String.format("%.2f", conOsiv), String.format("%.2f", sinOsiv));
+        assertThat(sinOsiv).as("retención media sin OSIV (ms) frente a con OSIV %.2f ms", conOsiv)
+                .isLessThan(conOsiv);
+    }
+
+    @SpringBootTest
+    @AutoConfigureMockMvc
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    abstract static class Medicion {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Autowired
+        private UsuarioRepository usuarioRepository;
+
+        @Autowired
+        private MateriaRepository materiaRepository;
+
+        @Autowired
+        private TareaRepository tareaRepository;
+
+        @Autowired
+        private JwtService jwtService;
+
+        private String token;
+
+        @BeforeAll
+        void poblarDatos() {
+            Usuario usuario = new Usuario();
+            usuario.setNombre("Benchmark");
+            usuario.setEmail("benchmark-conexiones@studymate.test");
+            usuario.setPassword("secreto123");
+            usuario = usuarioRepository.save(usuario);
+
+            Materia materia = new Materia();
+            materia.setNombre("Materia benchmark");
+            materia.setUsuario(usuario);
+            materia = materiaRepository.save(materia);
+
+            List<Tarea> tareas = new ArrayList<>();
+            for (int i = 0; i < FILAS; i++) {
+                Tarea tarea = new Tarea();
+                tarea.setTitulo("Tarea " + i);
+                tarea.setDescripcion("Descripción de la tarea " + i);
+                tarea.setFechaLimite(LocalDateTime.now().plusDays(i % 30));
+                tarea.setUsuario(usuario);
+                tarea.setMateria(materia);
+                tareas.add(tarea);
+            }
+            tareaRepository.saveAll(tareas);
+
+            token = jwtService.generateAccessToken(usuario.getId(), usuario.getEmail());
+        }
+
+        abstract String nombre();
+
+        @Test
+        void medirRetencionDeConexion() throws Exception {
+            for (int i = 0; i < CALENTAMIENTO; i++) {
+                listarTareas();
+            }
+            Timer uso = meterRegistry.get("hikaricp.connections.usage").timer();
+            long cuentaInicial = uso.count();
+            double totalInicialMs = uso.totalTime(TimeUnit.MILLISECONDS);
+            for (int i = 0; i < PETICIONES; i++) {
+                listarTareas();
+            }
+            long prestamos = uso.count() - cuentaInicial;
+            assertThat(prestamos).isGreaterThanOrEqualTo(PETICIONES);
+            mediasMs.put(nombre(), (uso.totalTime(TimeUnit.MILLISECONDS) - totalInicialMs) / prestamos);
+        }
+
+        private void listarTareas() throws Exception {
+            mockMvc.perform(get("/tareas").param("completo", "true")
+                    .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:benchmark-osiv;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+            "spring.jpa.open-in-view=true" })
+    class ConOpenInView extends Medicion {
+
+        @Override
+        String nombre() {
+            return "con open-in-view";
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:benchmark-sin-osiv;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+            "spring.jpa.open-in-view=false" })
+    class SinOpenInView extends Medicion {
+
+        @Override
+        String nombre() {
+            return "sin open-in-view";
+        }
+    }
+}
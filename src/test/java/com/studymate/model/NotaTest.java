@@ -0,0 +1,42 @@
+package com.studymate.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotaTest {
+
+    private static final String EMOJI = "📚";
+
+    @Test
+    void alCrearYAlModificarSeCalculaElExtracto() {
+        Nota nota = new Nota();
+        nota.setContenido("corto");
+        nota.onCreate();
+        assertThat(nota.getExtracto()).isEqualTo("corto");
+
+        nota.setContenido("x".repeat(250));
+        nota.onUpdate();
+        assertThat(nota.getExtracto()).isEqualTo("x".repeat(Nota.LONGITUD_EXTRACTO));
+
+        nota.setContenido(null);
+        nota.onUpdate();
+        assertThat(nota.getExtracto()).isNull();
+    }
+
+    @Test
+    void elExtractoCuentaCaracteresSinPartirLosEmojis() {
+        // El carácter 200 ocupa dos unidades UTF-16: entra entero, como con LEFT(contenido, 200)
+        String contenido = "a".repeat(Nota.LONGITUD_EXTRACTO - 1) + EMOJI + "resto";
+        assertThat(Nota.extraer(contenido)).isEqualTo("a".repeat(Nota.LONGITUD_EXTRACTO - 1) + EMOJI);
+
+        String emojis = EMOJI.repeat(Nota.LONGITUD_EXTRACTO + 10);
+        String extracto = Nota.extraer(emojis);
+        assertThat(extracto.codePointCount(0, extracto.length())).isEqualTo(Nota.LONGITUD_EXTRACTO);
+        assertThat(extracto).isEqualTo(EMOJI.repeat(Nota.LONGITUD_EXTRACTO));
+
+        // Más de 200 unidades UTF-16 pero no más de 200 caracteres: el contenido entero
+        String justo = EMOJI.repeat(Nota.LONGITUD_EXTRACTO);
+        assertThat(Nota.extraer(justo)).isSameAs(justo);
+    }
+}
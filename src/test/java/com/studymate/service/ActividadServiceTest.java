@@ -0,0 +1,113 @@
+package com.studymate.service;
+
+import com.studymate.DatosPrueba;
+import com.studymate.dto.ActividadDTO;
+import com.studymate.dto.PaginaDTO;
+import com.studymate.repository.ActividadRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ActividadServiceTest {
+
+    @Autowired
+    private ActividadService actividadService;
+
+    @Autowired
+    private ActividadRepository actividadRepository;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void primeraPaginaDesdeMemoriaYSiguientesPorCursor() {
+        Long usuarioId = datos.crearUsuario("actividad-paginas@studymate.test").getId();
+        Long otroId = datos.crearUsuario("actividad-otro@studymate.test").getId();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            ids.add(actividadService.registrar(usuarioId, "NOTA", "Actividad " + i).getId());
+            actividadService.registrar(otroId, "TAREA", "Otra " + i);
+        }
+        // Sin esperar al lote: la página sale del anillo, que aún no se ha cargado de la base de datos
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        PaginaDTO<ActividadDTO> primera = actividadService.listar(usuarioId, null, 50);
+        assertThat(primera.getItems()).extracting(ActividadDTO::getDescripcion)
+                .startsWith("Actividad 119", "Actividad 118").hasSize(50);
+        assertThat(primera.isHayMas()).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        assertThat(actividadService.listar(usuarioId, null, 50).getItems()).isEqualTo(primera.getItems());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        // Las páginas siguientes se leen de la tabla: lo pendiente se escribe antes
+        List<Long> recorridos = new ArrayList<>(primera.getItems().stream().map(ActividadDTO::getId).toList());
+        String cursor = primera.getSiguienteCursor();
+        while (cursor != null) {
+            PaginaDTO<ActividadDTO> pagina = actividadService.listar(usuarioId, cursor, 50);
+            pagina.getItems().forEach(a -> recorridos.add(a.getId()));
+            cursor = pagina.getSiguienteCursor();
+        }
+        assertThat(recorridos).containsExactlyElementsOf(ids.stream().sorted(Comparator.reverseOrder()).toList());
+        assertThat(actividadRepository.findRecientes(otroId, Limit.of(200))).hasSize(120);
+    }
+
+    @Test
+    void siLaBaseDeDatosFallaElLoteSeReintentaYSoloSeDescartanLasFilasRechazadas() {
+        Long usuarioId = datos.crearUsuario("actividad-reintentos@studymate.test").getId();
+        Counter rechazadas = meterRegistry.counter("studymate.actividades.descartadas", "motivo", "rechazada");
+        double rechazadasAntes = rechazadas.count();
+        List<Long> ids = new ArrayList<>();
+
+        // Sin la tabla el INSERT falla por un motivo ajeno a las filas: se guardan para la siguiente escritura
+        jdbcTemplate.execute("ALTER TABLE actividades RENAME TO actividades_fuera");
+        try {
+            for (int i = 0; i < 3; i++) {
+                ids.add(actividadService.registrar(usuarioId, "NOTA", "Sin base de datos " + i).getId());
+            }
+            actividadService.escribirPendientes();
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE actividades_fuera RENAME TO actividades");
+        }
+        // Un usuario que ya no existe: la base de datos rechaza esa fila (la clave ajena de V9, que el
+        // esquema de H2 generado por Hibernate no tiene) y solo esa se descarta
+        jdbcTemplate.execute("ALTER TABLE actividades ADD CONSTRAINT fk_actividades_usuario_prueba "
+                + "FOREIGN KEY (usuario_id) REFERENCES usuarios(id)");
+        try {
+            actividadService.registrar(-1L, "NOTA", "Usuario eliminado");
+            ids.add(actividadService.registrar(usuarioId, "NOTA", "Con base de datos").getId());
+
+            actividadService.escribirPendientes();
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE actividades DROP CONSTRAINT fk_actividades_usuario_prueba");
+        }
+
+        assertThat(actividadRepository.findRecientes(usuarioId, Limit.of(10))).extracting(ActividadDTO::getId)
+                .containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(rechazadas.count() - rechazadasAntes).isEqualTo(1);
+    }
+}
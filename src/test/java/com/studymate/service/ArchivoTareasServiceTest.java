@@ -0,0 +1,132 @@
+package com.studymate.service;
+
+import com.studymate.config.ArchivoTareasConfig;
+import com.studymate.model.Tarea;
+import com.studymate.model.Usuario;
+import com.studymate.repository.TareaArchivadaRepository;
+import com.studymate.repository.TareaRepository;
+import com.studymate.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ArchivoTareasServiceTest {
+
+    @Autowired
+    private ArchivoTareasService archivoTareasService;
+
+    @Autowired
+    private ArchivoTareasConfig config;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private TareaArchivadaRepository tareaArchivadaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void crearUsuario() {
+        usuario = new Usuario();
+        usuario.setNombre("Archivo");
+        usuario.setEmail("archivo-tareas@studymate.test");
+        usuario.setPassword("secreto123");
+        usuario = usuarioRepository.save(usuario);
+    }
+
+    @AfterEach
+    void limpiar() {
+        tareaArchivadaRepository.deleteAll();
+        tareaRepository.deleteAll();
+        usuarioRepository.delete(usuario);
+        config.setTamanoLote(500);
+        config.setDiasConservacion(0);
+        config.setPausaEntreLotesMs(200);
+    }
+
+    @Test
+    void archivaEnLotesSoloLasCompletadasHaceMasDelPlazo() throws Exception {
+        config.setTamanoLote(2);
+        config.setPausaEntreLotesMs(0);
+        List<Tarea> tareas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tareas.add(tarea("Antigua " + i, true));
+        }
+        tareas.add(tarea("Reciente", true));
+        tareas.add(tarea("Pendiente", false));
+        tareaRepository.saveAll(tareas);
+        completadaHaceDias(40, "Antigua%");
+        usuarioRepository.findById(usuario.getId());
+
+        assertThat(archivoTareasService.archivarCompletadas()).isEqualTo(5);
+        // Copiar y borrar las tareas no vacía el resto de la caché de segundo nivel
+        assertThat(entityManagerFactory.getCache().contains(Usuario.class, usuario.getId())).isTrue();
+
+        assertThat(tareaRepository.findByUsuarioId(usuario.getId()))
+                .extracting(Tarea::getTitulo).containsExactlyInAnyOrder("Reciente", "Pendiente");
+        String token = jwtService.generateAccessToken(usuario.getId(), usuario.getEmail());
+        mockMvc.perform(get("/tareas/archivo").param("tamano", "3").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tareas.length()").value(3))
+                .andExpect(jsonPath("$.hayMas").value(true))
+                .andExpect(jsonPath("$.tareas[0].fechaArchivado").exists());
+    }
+
+    @Test
+    void purgaLasArchivadasFueraDelPeriodoDeConservacion() {
+        tareaRepository.saveAll(List.of(tarea("Muy antigua", true), tarea("Antigua", true)));
+        completadaHaceDias(400, "Muy antigua");
+        completadaHaceDias(40, "Antigua");
+        archivoTareasService.archivarCompletadas();
+
+        config.setDiasConservacion(365);
+        assertThat(archivoTareasService.purgarArchivadas()).isEqualTo(1);
+        assertThat(tareaArchivadaRepository.findAll()).extracting("titulo").containsExactly("Antigua");
+    }
+
+    private Tarea tarea(String titulo, boolean completada) {
+        Tarea tarea = new Tarea();
+        tarea.setTitulo(titulo);
+        tarea.setCompletada(completada);
+        tarea.setUsuario(usuario);
+        return tarea;
+    }
+
+    private void completadaHaceDias(int dias, String titulo) {
+        jdbcTemplate.update("UPDATE tareas SET fecha_completada = ? WHERE titulo LIKE ?",
+                LocalDateTime.now().minusDays(dias), titulo);
+    }
+}
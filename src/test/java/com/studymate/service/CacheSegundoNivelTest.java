@@ -0,0 +1,140 @@
+package com.studymate.service;
+
+import com.studymate.dto.MateriaDTO;
+import com.studymate.model.Materia;
+import com.studymate.model.ModoEliminacionMateria;
+import com.studymate.model.Usuario;
+import com.studymate.repository.MateriaRepository;
+import com.studymate.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Caché de segundo nivel de Usuario y Materia y caché de consultas de MateriaRepository.findByUsuarioId,
+ * medidas con las estadísticas de Hibernate: aciertos, inserciones e invalidación tras modificar
+ */
+@SpringBootTest
+class CacheSegundoNivelTest {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private MateriaService materiaService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MateriaRepository materiaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private Usuario usuario;
+    private Materia materia;
+
+    @BeforeEach
+    void poblarDatos() {
+        usuario = new Usuario();
+        usuario.setNombre("Caché");
+        usuario.setEmail("cache-segundo-nivel@studymate.test");
+        usuario.setPassword("secreto123");
+        usuario = usuarioRepository.save(usuario);
+
+        materia = new Materia();
+        materia.setNombre("Álgebra");
+        materia.setUsuario(usuario);
+        materia = materiaRepository.save(materia);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void limpiar() {
+        materiaRepository.deleteAll(materiaRepository.findByUsuarioId(usuario.getId()));
+        // Otros tests cuentan todas las eliminaciones registradas
+        jdbcTemplate.update("DELETE FROM eliminaciones WHERE usuario_id = ?", usuario.getId());
+        usuarioRepository.delete(usuario);
+    }
+
+    @Test
+    void lasEntidadesSeLeenDeLaCacheTrasLaPrimeraCarga() {
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        assertThat(usuarioService.buscarPorId(usuario.getId())).isPresent();
+        assertThat(materiaService.buscarPorId(materia.getId())).isPresent();
+
+        assertThat(statistics.getSecondLevelCacheMissCount()).isEqualTo(2);
+        assertThat(statistics.getSecondLevelCachePutCount()).isEqualTo(2);
+        long sentencias = statistics.getPrepareStatementCount();
+
+        // Otra transacción (otra sesión): sin consultas, servidas desde la caché
+        assertThat(usuarioService.buscarPorId(usuario.getId())).isPresent();
+        assertThat(materiaService.buscarPorId(materia.getId())).isPresent();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(sentencias);
+        assertThat(statistics.getDomainDataRegionStatistics(Usuario.class.getName()).getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics(Materia.class.getName()).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void laListaDeMateriasSeSirveDeLaCacheDeConsultas() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        statistics.clear();
+
+        assertThat(materiaService.buscarPorUsuario(usuario.getId())).extracting(Materia::getId)
+                .containsExactly(materia.getId());
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCachePutCount()).isEqualTo(1);
+        long sentencias = statistics.getPrepareStatementCount();
+
+        assertThat(materiaService.buscarPorUsuario(usuario.getId())).extracting(Materia::getId)
+                .containsExactly(materia.getId());
+
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCachePutCount()).isEqualTo(1);
+        // Los ids vienen de la caché de consultas y las materias de la caché de entidades
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(sentencias);
+    }
+
+    @Test
+    void modificarOEliminarUnaMateriaInvalidaLaListaCacheada() {
+        materiaService.buscarPorUsuario(usuario.getId());
+
+        MateriaDTO cambios = new MateriaDTO();
+        cambios.setId(materia.getId());
+        cambios.setNombre("Álgebra lineal");
+        materiaService.actualizarMateria(cambios);
+        statistics.clear();
+
+        // La tabla cambió después de guardar el resultado: se vuelve a consultar, con el nombre nuevo
+        assertThat(materiaService.buscarPorUsuario(usuario.getId())).extracting(Materia::getNombre)
+                .containsExactly("Álgebra lineal");
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+        assertThat(statistics.getQueryCachePutCount()).isEqualTo(1);
+
+        materiaService.eliminarMateria(materia.getId(), usuario.getId(), ModoEliminacionMateria.DESVINCULAR);
+        statistics.clear();
+
+        assertThat(materiaService.buscarPorUsuario(usuario.getId())).isEmpty();
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+        // La entrada de la materia queda bloqueada (READ_WRITE): ninguna lectura la sirve desde la caché
+        assertThat(materiaService.buscarPorId(materia.getId())).isEmpty();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isZero();
+    }
+}
@@ -0,0 +1,88 @@
+package com.studymate.service;
+
+import com.studymate.DatosPrueba;
+import com.studymate.dto.NotaResumenDTO;
+import com.studymate.model.Nota;
+import com.studymate.model.Usuario;
+import com.studymate.repository.NotaRepository;
+import com.studymate.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CompresionNotasServiceTest {
+
+    @Autowired
+    private CompresionNotasService compresionNotasService;
+
+    @Autowired
+    private NotaService notaService;
+
+    @Autowired
+    private NotaRepository notaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> notas = new ArrayList<>();
+
+    @AfterEach
+    void borrarNotas() {
+        notaRepository.deleteAllById(notas);
+    }
+
+    @Test
+    void completaElExtractoDeLasNotasAnterioresSinVaciarLaCache() {
+        Usuario usuario = datos.crearUsuario("compresion@studymate.test");
+        String largo = "Resumen del tema 1. ".repeat(20);
+        Long larga = crearNota(usuario, "Larga", largo);
+        Long corta = crearNota(usuario, "Corta", "Apuntes breves");
+        // Notas creadas antes de existir la columna extracto
+        jdbcTemplate.update("UPDATE notas SET extracto = NULL WHERE id IN (?, ?)", larga, corta);
+
+        // Mientras tanto los listados recortan el contenido
+        assertThat(notaService.buscarPorUsuario(usuario.getId()))
+                .extracting(NotaResumenDTO::getExtracto)
+                .containsExactlyInAnyOrder(largo.substring(0, Nota.LONGITUD_EXTRACTO), "Apuntes breves");
+
+        usuarioRepository.findById(usuario.getId());
+        assertThat(entityManagerFactory.getCache().contains(Usuario.class, usuario.getId())).isTrue();
+
+        assertThat(compresionNotasService.migrarPendientes()).isGreaterThanOrEqualTo(2);
+
+        assertThat(jdbcTemplate.queryForList("SELECT extracto FROM notas WHERE id IN (?, ?) ORDER BY id",
+                String.class, larga, corta))
+                .containsExactly(largo.substring(0, Nota.LONGITUD_EXTRACTO), "Apuntes breves");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notas WHERE extracto IS NULL "
+                + "AND contenido IS NOT NULL", Long.class)).isZero();
+        // El UPDATE nativo solo invalida la tabla notas, no el resto de la caché de segundo nivel
+        assertThat(entityManagerFactory.getCache().contains(Usuario.class, usuario.getId())).isTrue();
+        assertThat(notaService.buscarPorUsuario(usuario.getId()))
+                .extracting(NotaResumenDTO::getExtracto)
+                .containsExactlyInAnyOrder(largo.substring(0, Nota.LONGITUD_EXTRACTO), "Apuntes breves");
+    }
+
+    private Long crearNota(Usuario usuario, String titulo, String contenido) {
+        Long id = datos.crearNota(usuario, titulo, contenido);
+        notas.add(id);
+        return id;
+    }
+}
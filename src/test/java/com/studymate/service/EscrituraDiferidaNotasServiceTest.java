@@ -0,0 +1,168 @@
+package com.studymate.service;
+
+import com.studymate.DatosPrueba;
+import com.studymate.dto.NotaDeltaDTO;
+import com.studymate.dto.OperacionTextoDTO;
+import com.studymate.exception.ConflictoVersionException;
+import com.studymate.model.Nota;
+import com.studymate.model.Usuario;
+import com.studymate.repository.NotaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Base de datos propia: este contexto no comparte secuencias con el de los demás tests. Ventana larga:
+// el planificador no escribe nada durante el test, solo las lecturas y el límite de notas
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:escritura-diferida;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "studymate.escritura-diferida-notas.habilitado=true",
+        "studymate.escritura-diferida-notas.ventana-ms=600000",
+        "studymate.escritura-diferida-notas.retraso-maximo-ms=600000",
+        "studymate.escritura-diferida-notas.max-notas=2"
+})
+class EscrituraDiferidaNotasServiceTest {
+
+    @Autowired
+    private NotaService notaService;
+
+    @Autowired
+    private EscrituraDiferidaNotasService escrituraDiferida;
+
+    @Autowired
+    private NotaRepository notaRepository;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void lasModificacionesSeguidasSeEscribenConUnSoloUpdate() {
+        Usuario usuario = datos.crearUsuario("diferida-coalescer@studymate.test");
+        Long id = datos.crearNota(usuario, "Apuntes", "abc");
+        double coalescidas = contador("studymate.notas.escrituras", "resultado", "coalescida");
+        double lecturas = contador("studymate.notas.volcados", "motivo", "lectura");
+
+        assertThat(notaService.aplicarDelta(id, usuario.getId(), delta(0, 3, "d")).getVersion()).isEqualTo(1);
+        assertThat(notaService.aplicarDelta(id, usuario.getId(), delta(1, 4, "e")).getVersion()).isEqualTo(2);
+        Nota respuesta = notaService.aplicarDelta(id, usuario.getId(), delta(2, 5, "f"));
+        assertThat(respuesta.getVersion()).isEqualTo(3);
+        assertThat(respuesta.getContenido()).isEqualTo("abcdef");
+        // La versión base ya no es la que ve el cliente
+        assertThatThrownBy(() -> notaService.aplicarDelta(id, usuario.getId(), delta(1, 0, "x")))
+                .isInstanceOf(ConflictoVersionException.class);
+
+        // Nada escrito todavía
+        Nota guardada = notaRepository.findById(id).orElseThrow();
+        assertThat(guardada.getVersion()).isZero();
+        assertThat(guardada.getContenido()).isEqualTo("abc");
+        assertThat(contador("studymate.notas.escrituras", "resultado", "coalescida") - coalescidas).isEqualTo(2);
+
+        // Una lectura escribe antes lo pendiente, con la versión que ya conoce el cliente
+        escrituraDiferida.volcarUsuario(usuario.getId());
+        guardada = notaRepository.findById(id).orElseThrow();
+        assertThat(guardada.getVersion()).isEqualTo(3);
+        assertThat(guardada.getContenido()).isEqualTo("abcdef");
+        assertThat(guardada.getExtracto()).isEqualTo("abcdef");
+        assertThat(contador("studymate.notas.volcados", "motivo", "lectura") - lecturas).isEqualTo(1);
+    }
+
+    @Test
+    void descartaLoPendienteSiLaNotaCambiaEnOtroNodoYEscribeLasMasAntiguasAlLlenarse() {
+        Usuario usuario = datos.crearUsuario("diferida-conflicto@studymate.test");
+        Long primera = datos.crearNota(usuario, "Primera", "uno");
+        Long segunda = datos.crearNota(usuario, "Segunda", "dos");
+        Long tercera = datos.crearNota(usuario, "Tercera", "tres");
+        double descartadas = contador("studymate.notas.volcados.descartados", null, null);
+
+        notaService.aplicarDelta(primera, usuario.getId(), delta(0, 3, "!"));
+        // Otro nodo escribe la misma nota mientras tanto
+        jdbcTemplate.update("UPDATE notas SET contenido = 'otro nodo', version = version + 1 WHERE id = ?", primera);
+        notaService.aplicarDelta(segunda, usuario.getId(), delta(0, 3, "!"));
+        assertThat(escrituraDiferida.notasPendientes()).isEqualTo(2);
+
+        // La tercera supera el límite de dos: se escribe la más antigua, que ya no está en su versión base
+        notaService.aplicarDelta(tercera, usuario.getId(), delta(0, 4, "!"));
+        assertThat(escrituraDiferida.notasPendientes()).isEqualTo(2);
+        assertThat(notaRepository.findById(primera).orElseThrow().getContenido()).isEqualTo("otro nodo");
+        assertThat(contador("studymate.notas.volcados.descartados", null, null) - descartadas).isEqualTo(1);
+
+        escrituraDiferida.volcarUsuario(usuario.getId());
+        assertThat(escrituraDiferida.notasPendientes()).isZero();
+        assertThat(notaRepository.findAllById(List.of(segunda, tercera))).extracting(Nota::getContenido)
+                .containsExactlyInAnyOrder("dos!", "tres!");
+    }
+
+    @Test
+    void unaEscrituraFallidaSigueAcumulandoYSeReintenta() {
+        Usuario usuario = datos.crearUsuario("diferida-fallo@studymate.test");
+        Long id = datos.crearNota(usuario, "Fallo", "abc");
+        double fallidos = contador("studymate.notas.volcados.fallidos", null, null);
+
+        notaService.aplicarDelta(id, usuario.getId(), delta(0, 3, "!"));
+        // La base de datos rechaza el UPDATE mientras exista la restricción
+        jdbcTemplate.execute("ALTER TABLE notas ADD CONSTRAINT notas_rechazo CHECK (contenido <> 'abc!')");
+        try {
+            assertThatThrownBy(() -> escrituraDiferida.volcarUsuario(usuario.getId()))
+                    .isInstanceOf(ResponseStatusException.class)
+                    .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                    .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(contador("studymate.notas.volcados.fallidos", null, null) - fallidos).isEqualTo(1);
+            assertThat(escrituraDiferida.notasPendientes()).isEqualTo(1);
+
+            // Lo confirmado al cliente no se pierde: se sigue acumulando sobre ello
+            assertThat(notaService.aplicarDelta(id, usuario.getId(), delta(1, 4, "?")).getContenido())
+                    .isEqualTo("abc!?");
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE notas DROP CONSTRAINT notas_rechazo");
+        }
+
+        // El planificador reintenta las fallidas sin esperar a la ventana
+        escrituraDiferida.volcarVencidas();
+        assertThat(escrituraDiferida.notasPendientes()).isZero();
+        Nota guardada = notaRepository.findById(id).orElseThrow();
+        assertThat(guardada.getContenido()).isEqualTo("abc!?");
+        assertThat(guardada.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void noSeUsaDentroDeUnaTransaccion() {
+        Usuario usuario = datos.crearUsuario("diferida-transaccion@studymate.test");
+        Long id = datos.crearNota(usuario, "Transacción", "abc");
+
+        // Retendría la conexión de la transacción mientras espera o escribe con otra
+        assertThatThrownBy(() -> transactionTemplate.execute(s ->
+                notaService.aplicarDelta(id, usuario.getId(), delta(0, 3, "!"))))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(escrituraDiferida.notasPendientes()).isZero();
+    }
+
+    private double contador(String nombre, String etiqueta, String valor) {
+        var busqueda = meterRegistry.find(nombre);
+        if (etiqueta != null) {
+            busqueda = busqueda.tag(etiqueta, valor);
+        }
+        return busqueda.counter().count();
+    }
+
+    private static NotaDeltaDTO delta(long version, int posicion, String insertar) {
+        return new NotaDeltaDTO(version, List.of(new OperacionTextoDTO(posicion, 0, insertar)));
+    }
+}
@@ -0,0 +1,140 @@
+package com.studymate.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studymate.model.Materia;
+import com.studymate.model.Nota;
+import com.studymate.model.Tarea;
+import com.studymate.model.Usuario;
+import com.studymate.repository.MateriaRepository;
+import com.studymate.repository.NotaRepository;
+import com.studymate.repository.TareaRepository;
+import com.studymate.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ExportacionServiceTest {
+
+    private static final int NOTAS = 1200;
+    private static final int TAREAS = 700;
+
+    @Autowired
+    private ExportacionService exportacionService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MateriaRepository materiaRepository;
+
+    @Autowired
+    private NotaRepository notaRepository;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void poblarDatos() {
+        usuario = new Usuario();
+        usuario.setNombre("Exportación");
+        usuario.setEmail("exportar-datos@studymate.test");
+        usuario.setPassword("secreto123");
+        usuario = usuarioRepository.save(usuario);
+
+        Materia materia = new Materia();
+        materia.setNombre("Física / Química");
+        materia.setUsuario(usuario);
+        materia = materiaRepository.save(materia);
+
+        // La mitad de las notas en la materia y la otra mitad generales
+        List<Nota> notas = new ArrayList<>();
+        for (int i = 0; i < NOTAS; i++) {
+            Nota nota = new Nota();
+            nota.setTitulo("Tema " + i + ": ¿repaso?");
+            nota.setContenido("Contenido de la nota " + i);
+            nota.setUsuario(usuario);
+            nota.setMateria(i % 2 == 0 ? materia : null);
+            notas.add(nota);
+        }
+        notaRepository.saveAll(notas);
+        List<Tarea> tareas = new ArrayList<>();
+        for (int i = 0; i < TAREAS; i++) {
+            Tarea tarea = new Tarea();
+            tarea.setTitulo("Tarea " + i);
+            tarea.setUsuario(usuario);
+            tareas.add(tarea);
+        }
+        tareaRepository.saveAll(tareas);
+    }
+
+    @AfterEach
+    void limpiar() {
+        tareaRepository.deleteAll();
+        notaRepository.deleteAll();
+        materiaRepository.deleteAll();
+        usuarioRepository.delete(usuario);
+    }
+
+    @Test
+    void exportaNotasEnMarkdownPorMateriaYTareasEnJson() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        exportacionService.exportarDatos(usuario.getId(), salida);
+
+        // Se lee con proyecciones: ninguna entidad pasa por el contexto de persistencia
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        Map<String, String> entradas = leerZip(salida.toByteArray());
+        assertThat(entradas.keySet().stream().filter(n -> n.startsWith("notas/Física _ Química/")))
+                .hasSize(NOTAS / 2)
+                .allMatch(n -> n.endsWith("_ ¿repaso_.md"));
+        assertThat(entradas.keySet().stream().filter(n -> n.startsWith("notas/General/"))).hasSize(NOTAS / 2);
+        assertThat(entradas.values().stream().filter(c -> c.startsWith("# Tema 0: ¿repaso?\n")).findFirst())
+                .hasValueSatisfying(md -> assertThat(md).contains("- Materia: Física / Química")
+                        .endsWith("Contenido de la nota 0\n"));
+
+        JsonNode tareas = objectMapper.readTree(entradas.get("tareas.json"));
+        assertThat(tareas.isArray()).isTrue();
+        assertThat(tareas).hasSize(TAREAS);
+        assertThat(tareas.get(0).get("titulo").asText()).isEqualTo("Tarea 0");
+    }
+
+    private Map<String, String> leerZip(byte[] contenido) throws Exception {
+        Map<String, String> entradas = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(contenido), StandardCharsets.UTF_8)) {
+            for (ZipEntry entrada = zip.getNextEntry(); entrada != null; entrada = zip.getNextEntry()) {
+                entradas.put(entrada.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entradas;
+    }
+}
@@ -0,0 +1,131 @@
+package com.studymate.service;
+
+import com.studymate.model.Materia;
+import com.studymate.model.ModoEliminacionMateria;
+import com.studymate.model.Nota;
+import com.studymate.model.Tarea;
+import com.studymate.model.Usuario;
+import com.studymate.repository.EliminacionRepository;
+import com.studymate.repository.MateriaRepository;
+import com.studymate.repository.NotaRepository;
+import com.studymate.repository.TareaRepository;
+import com.studymate.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class MateriaServiceTest {
+
+    // Más de un lote de eliminación
+    private static final int TAREAS = 2500;
+    private static final int NOTAS = 300;
+
+    @Autowired
+    private MateriaService materiaService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MateriaRepository materiaRepository;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private NotaRepository notaRepository;
+
+    @Autowired
+    private EliminacionRepository eliminacionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Usuario usuario;
+    private Materia materia;
+
+    @BeforeEach
+    void poblarDatos() {
+        usuario = new Usuario();
+        usuario.setNombre("Eliminación");
+        usuario.setEmail("eliminar-materia@studymate.test");
+        usuario.setPassword("secreto123");
+        usuario = usuarioRepository.save(usuario);
+
+        materia = new Materia();
+        materia.setNombre("Materia grande");
+        materia.setUsuario(usuario);
+        materia = materiaRepository.save(materia);
+
+        List<Tarea> tareas = new ArrayList<>();
+        for (int i = 0; i < TAREAS; i++) {
+            Tarea tarea = new Tarea();
+            tarea.setTitulo("Tarea " + i);
+            tarea.setUsuario(usuario);
+            tarea.setMateria(materia);
+            tareas.add(tarea);
+        }
+        tareaRepository.saveAll(tareas);
+        List<Nota> notas = new ArrayList<>();
+        for (int i = 0; i < NOTAS; i++) {
+            Nota nota = new Nota();
+            nota.setTitulo("Nota " + i);
+            nota.setUsuario(usuario);
+            nota.setMateria(materia);
+            notas.add(nota);
+        }
+        notaRepository.saveAll(notas);
+    }
+
+    @AfterEach
+    void limpiar() {
+        tareaRepository.deleteAll();
+        notaRepository.deleteAll();
+        materiaRepository.deleteAll();
+        eliminacionRepository.deleteAll();
+        usuarioRepository.delete(usuario);
+    }
+
+    @Test
+    void borrarEliminaTareasYNotasSinCargarlas() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        materiaService.eliminarMateria(materia.getId(), usuario.getId(), ModoEliminacionMateria.BORRAR);
+
+        // Solo se carga la propia materia para eliminarla
+        assertThat(statistics.getEntityLoadCount()).isLessThanOrEqualTo(1);
+        assertThat(materiaRepository.existsById(materia.getId())).isFalse();
+        assertThat(tareaRepository.findByUsuarioId(usuario.getId())).isEmpty();
+        assertThat(notaRepository.count()).isZero();
+        // Una eliminación por tarea, por nota y por la materia, para los clientes sincronizados
+        assertThat(eliminacionRepository.count()).isEqualTo(TAREAS + NOTAS + 1);
+    }
+
+    @Test
+    void desvincularDejaTareasYNotasComoGenerales() {
+        assertThatThrownBy(() -> materiaService.eliminarMateria(materia.getId(), usuario.getId() + 1,
+                ModoEliminacionMateria.DESVINCULAR)).isInstanceOf(ResponseStatusException.class);
+
+        materiaService.eliminarMateria(materia.getId(), usuario.getId(), ModoEliminacionMateria.DESVINCULAR);
+
+        assertThat(materiaRepository.existsById(materia.getId())).isFalse();
+        assertThat(tareaRepository.findByUsuarioId(usuario.getId())).hasSize(TAREAS)
+                .allMatch(t -> t.getMateria() == null);
+        assertThat(notaRepository.findAll()).hasSize(NOTAS).allMatch(n -> n.getMateria() == null);
+        assertThat(eliminacionRepository.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,75 @@
+package com.studymate.service;
+
+import com.studymate.DatosPrueba;
+import com.studymate.dto.NotaBusquedaDTO;
+import com.studymate.model.Usuario;
+import com.studymate.repository.NotaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class NotaServiceTest {
+
+    @Autowired
+    private NotaService notaService;
+
+    @Autowired
+    private NotaRepository notaRepository;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    private Usuario usuario;
+    private final List<Long> notas = new ArrayList<>();
+
+    @BeforeEach
+    void crearUsuario() {
+        usuario = datos.crearUsuario("nota-busqueda@studymate.test");
+    }
+
+    @AfterEach
+    void borrarNotas() {
+        notaRepository.deleteAllById(notas);
+    }
+
+    @Test
+    void elFragmentoEscapaElContenidoYSoloMarcaLaCoincidencia() {
+        crearNota("Ataque", "Antes <script>alert('x')</script> del término & después");
+
+        assertThat(buscar("término")).singleElement()
+                .extracting(NotaBusquedaDTO::getFragmento)
+                .isEqualTo("Antes &lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt; del <mark>término</mark> &amp; después");
+        // Sin coincidencia en el contenido (solo en el título) también se escapa
+        assertThat(buscar("ataque")).singleElement()
+                .extracting(NotaBusquedaDTO::getFragmento).asString()
+                .startsWith("Antes &lt;script&gt;");
+    }
+
+    @Test
+    void losComodinesDeLikeSeBuscanLiteralmente() {
+        crearNota("Progreso", "Tema 1 al 50% completado");
+        crearNota("Otro progreso", "Tema 2 al 500 completado");
+        crearNota("Variables", "nombre_usuario y nombreXusuario");
+
+        assertThat(buscar("50%")).extracting(NotaBusquedaDTO::getTitulo).containsExactly("Progreso");
+        assertThat(buscar("e_u")).extracting(NotaBusquedaDTO::getFragmento)
+                .containsExactly("nombr<mark>e_u</mark>suario y nombreXusuario");
+        assertThat(buscar("%")).extracting(NotaBusquedaDTO::getTitulo).containsExactly("Progreso");
+    }
+
+    private List<NotaBusquedaDTO> buscar(String texto) {
+        return notaService.buscarTexto(usuario.getId(), texto, 0, null).getItems();
+    }
+
+    private void crearNota(String titulo, String contenido) {
+        notas.add(datos.crearNota(usuario, titulo, contenido));
+    }
+}
@@ -0,0 +1,72 @@
+package com.studymate.service;
+
+import com.studymate.DatosPrueba;
+import com.studymate.config.SugerenciasConfig;
+import com.studymate.dto.SugerenciaDTO;
+import com.studymate.model.Usuario;
+import com.studymate.repository.NotaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SugerenciasServiceTest {
+
+    @Autowired
+    private SugerenciasService sugerenciasService;
+
+    @Autowired
+    private SugerenciasConfig config;
+
+    @Autowired
+    private NotaRepository notaRepository;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    private Usuario usuario;
+    private long vigenciaOriginal;
+    private final List<Long> notas = new ArrayList<>();
+
+    @BeforeEach
+    void crearUsuario() {
+        usuario = datos.crearUsuario("sugerencias@studymate.test");
+        vigenciaOriginal = config.getVigenciaIndiceMs();
+    }
+
+    @AfterEach
+    void limpiar() {
+        config.setVigenciaIndiceMs(vigenciaOriginal);
+        notaRepository.deleteAllById(notas);
+    }
+
+    @Test
+    void lasNotasCreadasEnOtroNodoAparecenAlCaducarElIndice() {
+        crearNota("Ecuaciones diferenciales");
+        assertThat(sugerir("ecu")).containsExactly("Ecuaciones diferenciales");
+
+        // Escrita sin pasar por este nodo: ningún aviso tras el commit actualiza el índice
+        crearNota("Ecología");
+        assertThat(sugerir("ec")).containsExactly("Ecuaciones diferenciales");
+
+        config.setVigenciaIndiceMs(0);
+        assertThat(sugerir("ec")).containsExactly("Ecología", "Ecuaciones diferenciales");
+    }
+
+    private List<String> sugerir(String prefijo) {
+        return sugerenciasService.sugerirNotas(usuario.getId(), prefijo, null).stream()
+                .map(SugerenciaDTO::getTitulo)
+                .toList();
+    }
+
+    private void crearNota(String titulo) {
+        notas.add(datos.crearNota(usuario, titulo, null));
+    }
+}
@@ -0,0 +1,100 @@
+package com.studymate.service;
+
+import com.studymate.DatosPrueba;
+import com.studymate.model.Usuario;
+import com.studymate.repository.UsuarioRepository;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class TokenRefrescoServiceTest {
+
+    @Autowired
+    private TokenRefrescoService tokenRefrescoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rotarInvalidaElTokenYEmiteOtroDeLaMismaFamilia() {
+        Usuario usuario = datos.crearUsuario("refresco-rotar@studymate.test");
+        String primero = tokenRefrescoService.emitir(usuario);
+
+        TokenRefrescoService.Rotacion rotacion = tokenRefrescoService.rotar(primero);
+
+        assertThat(rotacion.getUsuario().getId()).isEqualTo(usuario.getId());
+        assertThat(rotacion.getRefreshToken()).isNotEqualTo(primero);
+        assertThat(tokensActivos(usuario)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT familia) FROM tokens_refresco "
+                + "WHERE usuario_id = ?", Long.class, usuario.getId())).isEqualTo(1);
+        // El nuevo también se puede rotar
+        assertThat(tokenRefrescoService.rotar(rotacion.getRefreshToken()).getRefreshToken()).isNotBlank();
+    }
+
+    @Test
+    void reutilizarUnTokenRotadoRevocaTodaLaFamilia() {
+        Usuario usuario = datos.crearUsuario("refresco-reutilizar@studymate.test");
+        String robado = tokenRefrescoService.emitir(usuario);
+        String legitimo = tokenRefrescoService.rotar(robado).getRefreshToken();
+        // Otra sesión del mismo usuario, de otra familia
+        String otraSesion = tokenRefrescoService.emitir(usuario);
+
+        assertNoAutorizado(() -> tokenRefrescoService.rotar(robado), "Refresh token reutilizado");
+
+        // La revocación se confirma aunque la rotación falle
+        assertNoAutorizado(() -> tokenRefrescoService.rotar(legitimo), "Refresh token reutilizado");
+        assertThat(tokensActivos(usuario)).isEqualTo(1);
+        assertThat(tokenRefrescoService.rotar(otraSesion).getRefreshToken()).isNotBlank();
+    }
+
+    @Test
+    void rechazaLosTokensExpirados() {
+        Usuario usuario = datos.crearUsuario("refresco-expirado@studymate.test");
+        String token = tokenRefrescoService.emitir(usuario);
+        jdbcTemplate.update("UPDATE tokens_refresco SET fecha_expiracion = ? WHERE usuario_id = ?",
+                LocalDateTime.now().minusMinutes(1), usuario.getId());
+
+        assertNoAutorizado(() -> tokenRefrescoService.rotar(token), "Refresh token expirado");
+        assertNoAutorizado(() -> tokenRefrescoService.rotar("desconocido"), "Refresh token inválido");
+    }
+
+    @Test
+    void unUsuarioInactivoNoPuedeRenovarYSeRevocaLaFamilia() {
+        Usuario usuario = datos.crearUsuario("refresco-inactivo@studymate.test");
+        String token = tokenRefrescoService.emitir(usuario);
+        usuario.setActivo(false);
+        usuarioRepository.save(usuario);
+
+        assertNoAutorizado(() -> tokenRefrescoService.rotar(token), "Usuario inactivo");
+        assertThat(tokensActivos(usuario)).isZero();
+    }
+
+    private static void assertNoAutorizado(ThrowingCallable rotacion, String motivo) {
+        assertThatThrownBy(rotacion)
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+                    assertThat(e.getReason()).isEqualTo(motivo);
+                });
+    }
+
+    private long tokensActivos(Usuario usuario) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tokens_refresco WHERE usuario_id = ? "
+                + "AND revocado = FALSE", Long.class, usuario.getId());
+    }
+}
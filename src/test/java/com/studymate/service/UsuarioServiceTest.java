@@ -0,0 +1,127 @@
+package com.studymate.service;
+
+import com.studymate.model.Usuario;
+import com.studymate.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UsuarioServiceTest {
+
+    private static final String DOMINIO = "@exportacion.studymate.test";
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final List<Usuario> creados = new ArrayList<>();
+
+    @BeforeEach
+    void crearUsuarios() {
+        creados.add(usuario("Ana", "ana", true));
+        creados.add(usuario("Luis, \"el del CSV\"", "luis", true));
+        creados.add(usuario("Inactivo", "inactivo", false));
+        usuarioRepository.saveAll(creados);
+    }
+
+    @AfterEach
+    void limpiar() {
+        usuarioRepository.deleteAll(creados);
+    }
+
+    @Test
+    void listadoPaginadoSoloIncluyeActivos() {
+        List<String> emails = new ArrayList<>();
+        String cursor = null;
+        do {
+            var pagina = usuarioService.listarUsuariosActivos(cursor, 1);
+            assertThat(pagina.getItems()).hasSizeLessThanOrEqualTo(1);
+            pagina.getItems().forEach(u -> emails.add(u.getEmail()));
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+
+        assertThat(emails).contains("ana" + DOMINIO, "luis" + DOMINIO).doesNotContain("inactivo" + DOMINIO);
+    }
+
+    @Test
+    void exportaActivosEnStreamingComoNdjsonYCsv() throws Exception {
+        String ndjson = exportar("NDJSON", "application/x-ndjson");
+        assertThat(ndjson.lines().filter(l -> l.contains(DOMINIO)))
+                .hasSize(2)
+                .allMatch(l -> l.startsWith("{") && !l.contains("password"));
+
+        String csv = exportar("CSV", "text/csv;charset=UTF-8");
+        assertThat(csv.lines().findFirst()).hasValue("id,nombre,apellido,email,fechaRegistro");
+        assertThat(csv).contains(",\"Luis, \"\"el del CSV\"\"\",,luis" + DOMINIO + ",")
+                .doesNotContain("inactivo" + DOMINIO);
+    }
+
+    @Test
+    void soloLosAdministradoresPuedenListarYExportar() throws Exception {
+        Usuario ana = creados.get(0);
+        String token = jwtService.generateAccessToken(ana.getId(), ana.getEmail());
+        mockMvc.perform(get("/usuarios/exportar"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/usuarios/exportar").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden())
+                .andExpect(request().asyncNotStarted());
+        mockMvc.perform(get("/usuarios").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+        // Las demás rutas de /usuarios siguen abiertas al usuario autenticado
+        mockMvc.perform(get("/usuarios/actividad").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/usuarios").param("tamano", "1")
+                .header("Authorization", "Bearer " + jwtService.generateAccessToken(0L, "admin@studymate.test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usuarios").isArray());
+    }
+
+    private String exportar(String formato, String tipoContenido) throws Exception {
+        // studymate.administracion.emails de las pruebas; el filtro JWT no consulta la base de datos
+        String token = jwtService.generateAccessToken(0L, "admin@studymate.test");
+        MvcResult resultado = mockMvc.perform(get("/usuarios/exportar").param("formato", formato)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", tipoContenido))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private Usuario usuario(String nombre, String email, boolean activo) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre(nombre);
+        usuario.setEmail(email + DOMINIO);
+        usuario.setPassword("secreto123");
+        usuario.setActivo(activo);
+        return usuario;
+    }
+}
@@ -0,0 +1,61 @@
+package com.studymate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RuedaTemporalTest {
+
+    // Ticks de 1 ms y tres niveles de 4 ranuras: alcance de 64 ticks, con redistribuciones frecuentes
+    private static final int[] RANURAS = {4, 4, 4};
+
+    @Test
+    void cadaValorVenceEnSuTickTrasBajarDeNivel() {
+        RuedaTemporal<Long> rueda = new RuedaTemporal<>(1, RANURAS, 1000);
+        for (long vencimiento = 1001; vencimiento < 1064; vencimiento++) {
+            rueda.programar(vencimiento, vencimiento);
+        }
+        assertThat(rueda.tamano()).isEqualTo(63);
+
+        List<Long> vencidos = new ArrayList<>();
+        for (long ahora = 1001; ahora < 1064; ahora++) {
+            List<Long> enEsteTick = rueda.avanzar(ahora);
+            // Ni antes ni después de su momento
+            assertThat(enEsteTick).containsExactly(ahora);
+            vencidos.addAll(enEsteTick);
+        }
+        assertThat(vencidos).hasSize(63);
+        assertThat(rueda.tamano()).isZero();
+    }
+
+    @Test
+    void cancelarQuitaLaEntradaYAvanzarRecuperaLosTicksPerdidos() {
+        RuedaTemporal<String> rueda = new RuedaTemporal<>(1, RANURAS, 0);
+        RuedaTemporal.Entrada<String> cancelada = rueda.programar(40, "cancelada");
+        rueda.programar(40, "mantenida");
+        rueda.programar(50, "posterior");
+        rueda.programar(-5, "pasada");
+
+        rueda.cancelar(cancelada);
+        rueda.cancelar(cancelada);
+
+        assertThat(cancelada.isProgramada()).isFalse();
+        assertThat(rueda.tamano()).isEqualTo(3);
+        // Un valor ya vencido sale en el siguiente avance
+        assertThat(rueda.avanzar(1)).containsExactly("pasada");
+        // Un salto largo entrega todo lo vencido entre medias
+        assertThat(rueda.avanzar(60)).containsExactly("mantenida", "posterior");
+        assertThat(rueda.tamano()).isZero();
+    }
+
+    @Test
+    void rechazaVencimientosFueraDeAlcance() {
+        RuedaTemporal<String> rueda = new RuedaTemporal<>(1, RANURAS, 0);
+        rueda.programar(63, "límite");
+        assertThatThrownBy(() -> rueda.programar(64, "fuera")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,36 @@
+package com.studymate.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransaccionesTest {
+
+    @Test
+    void sinTransaccionSeEjecutaEnElActo() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+        Transacciones.despuesDelCommit(ejecuciones::incrementAndGet);
+        assertThat(ejecuciones).hasValue(1);
+    }
+
+    @Test
+    void conTransaccionEsperaAlCommitYNoSeEjecutaSiSeDeshace() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Transacciones.despuesDelCommit(ejecuciones::incrementAndGet);
+            assertThat(ejecuciones).hasValue(0);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            assertThat(ejecuciones).hasValue(0);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(ejecuciones).hasValue(1);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}